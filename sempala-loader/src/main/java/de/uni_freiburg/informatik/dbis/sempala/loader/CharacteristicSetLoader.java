@@ -0,0 +1,232 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.Impala;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.InsertStatement;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.SelectStatement;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.DataType;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.FileFormat;
+
+/**
+ * Builds property tables partitioned by characteristic set, i.e. the set of
+ * predicates of a subject.
+ *
+ * Subjects with the same characteristic set share a table which only has
+ * the columns of their predicates, instead of one wide, mostly NULL property
+ * table for all subjects. If there are more characteristic sets than tables
+ * allowed (-ct), sets are merged into the table to which they add the fewest
+ * columns. The catalog '{@value #tablename_catalog}' maps the predicates to
+ * the tables and columns containing them.
+ */
+public final class CharacteristicSetLoader extends Loader {
+
+	/** The name of the catalog table "p, tablename, column_name" */
+	public static final String tablename_catalog = "characteristic_sets";
+
+	/** The names of the columns of the catalog */
+	public static final String column_name_tablename = "tablename";
+	public static final String column_name_column = "column_name";
+
+	/** The name of the intermediate table of the predicate bits */
+	private final String tablename_predicate_bits = "characteristic_set_bits";
+
+	/** The name of the intermediate table of the characteristic sets of the subjects */
+	private final String tablename_subject_sets = "subject_sets";
+
+	/** The name of the intermediate table assigning the subjects to the tables */
+	private final String tablename_subject_tables = "subject_tables";
+
+	/** The name of the column of the table index */
+	private final String column_name_table = "t";
+
+	/** The constructor */
+	public CharacteristicSetLoader(Impala wrapper, String hdfsLocation) {
+		super(wrapper, hdfsLocation);
+		tablename_output = "characteristic_set";
+	}
+
+	/**
+	 * Creates the characteristic set tables "s, p1, ..." named
+	 * "&lt;output&gt;_0", "&lt;output&gt;_1", ... and the catalog from a
+	 * triple table.
+	 *
+	 * @throws SQLException
+	 */
+	@Override
+	public void load() throws SQLException {
+		// Load the triple table
+		buildTripleTable();
+
+		// Get properties
+		ArrayList<String> predicates = new ArrayList<String>();
+		ResultSet resultSet = impala.select(column_name_predicate).distinct().from(tablename_triple_table).execute();
+		while (resultSet.next())
+			predicates.add(resultSet.getString(column_name_predicate));
+		int words = Math.max(1, (predicates.size() + 63) / 64);
+
+		// Compute the characteristic set of every subject as bitmap of its predicates
+		buildPredicateBits(tablename_predicate_bits, predicates);
+		buildBitmaps(tablename_subject_sets,
+				String.format("(SELECT DISTINCT %s, %s FROM %s)", column_name_subject, column_name_predicate, tablename_triple_table),
+				tablename_predicate_bits, column_name_subject, words);
+
+		// Get the distinct characteristic sets with their number of subjects
+		System.out.print("Merging characteristic sets");
+		long timestamp = System.currentTimeMillis();
+		SelectStatement sstmt = impala.select();
+		StringBuilder groupby = new StringBuilder();
+		for (int word = 0; word < words; word++) {
+			sstmt.addProjection(String.format("w%d", word));
+			groupby.append(word == 0 ? "" : ", ").append(String.format("w%d", word));
+		}
+		sstmt.addProjection("COUNT(*)");
+		sstmt.from(tablename_subject_sets);
+		sstmt.groupby(groupby.toString());
+		resultSet = sstmt.execute();
+		ArrayList<long[]> sets = new ArrayList<long[]>();
+		while (resultSet.next()) {
+			long[] set = new long[words + 1];
+			for (int i = 0; i <= words; i++)
+				set[i] = resultSet.getLong(i + 1);
+			sets.add(set);
+		}
+
+		// The largest sets first
+		final int count = words;
+		Collections.sort(sets, new Comparator<long[]>() {
+			@Override
+			public int compare(long[] set1, long[] set2) {
+				return Long.compare(set2[count], set1[count]);
+			}
+		});
+
+		// Assign every set to a table which covers it. A set which is not
+		// covered gets a new table, once all tables are taken it is merged
+		// into the table to which it adds the fewest columns.
+		ArrayList<long[]> tables = new ArrayList<long[]>();
+		for (long[] set : sets) {
+			long[] best = null;
+			int best_added = Integer.MAX_VALUE;
+			int best_columns = Integer.MAX_VALUE;
+			for (long[] table : tables) {
+				int added = 0;
+				int columns = 0;
+				for (int word = 0; word < words; word++) {
+					added += Long.bitCount(set[word] & ~table[word]);
+					columns += Long.bitCount(table[word]);
+				}
+				if (added < best_added || (added == best_added && columns < best_columns)) {
+					best = table;
+					best_added = added;
+					best_columns = columns;
+				}
+			}
+			if (best != null && (best_added == 0 || tables.size() >= characteristic_tables)) {
+				for (int word = 0; word < words; word++)
+					best[word] |= set[word];
+			} else {
+				tables.add(Arrays.copyOf(set, words));
+			}
+		}
+		System.out.println(String.format(" (%d sets into %d tables) [%.3fs]", sets.size(), tables.size(),
+				(float)(System.currentTimeMillis() - timestamp)/1000));
+
+		/*
+		 * Assign every subject to the first table covering its set
+		 * ("CASE WHEN bitand(w0, ~c0) = 0 AND ... THEN 0 ... END")
+		 */
+
+		System.out.print(String.format("Creating table '%s'", tablename_subject_tables));
+		timestamp = System.currentTimeMillis();
+		StringBuilder assignment = new StringBuilder("CASE");
+		for (int i = 0; i < tables.size(); i++) {
+			assignment.append(" WHEN ");
+			for (int word = 0; word < words; word++)
+				assignment.append(String.format("%sbitand(w%d, %d) = 0", word == 0 ? "" : " AND ", word, ~tables.get(i)[word]));
+			assignment.append(String.format(" THEN %d", i));
+		}
+		assignment.append(String.format(" END AS %s", column_name_table));
+		impala.dropTableIfExists(tablename_subject_tables);
+		impala
+		.createTable(tablename_subject_tables)
+		.storedAs(FileFormat.PARQUET)
+		.asSelect(
+				impala
+				.select(column_name_subject)
+				.addProjection(assignment.toString())
+				.from(tablename_subject_sets))
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStagingStats(tablename_subject_tables);
+
+		/*
+		 * Create the tables and the catalog
+		 */
+
+		HashSet<String> multi_valued = multiValuedPredicates();
+		impala.dropTableIfExists(tablename_catalog);
+		impala
+		.createTable(tablename_catalog)
+		.addColumnDefinition(column_name_predicate, DataType.STRING)
+		.addColumnDefinition(column_name_tablename, DataType.STRING)
+		.addColumnDefinition(column_name_column, DataType.STRING)
+		.storedAs(FileFormat.PARQUET)
+		.execute();
+		InsertStatement catalog = impala.insertInto(tablename_catalog);
+
+		for (int i = 0; i < tables.size(); i++) {
+			String tablename = String.format("%s_%d", tablename_output, i);
+
+			// The predicates of the table in the order of their bits
+			ArrayList<String> properties = new ArrayList<String>();
+			for (int bit = 0; bit < predicates.size(); bit++)
+				if ((tables.get(i)[bit / 64] & (1L << (bit % 64))) != 0)
+					properties.add(predicates.get(bit));
+
+			System.out.print(String.format("Creating table '%s' (%d properties)", tablename, properties.size()));
+			timestamp = System.currentTimeMillis();
+			impala.dropTableIfExists(tablename);
+			CreateStatement cstmt = impala.createTable(tablename);
+			cstmt.addColumnDefinition(column_name_subject, termDataType());
+			for (String property : properties) {
+				cstmt.addColumnDefinition(toImpalaColumnName(property), termDataType());
+				catalog.addValues(property, tablename, toImpalaColumnName(property));
+			}
+			cstmt.storedAs(FileFormat.PARQUET);
+			partitionBySubjectBucket(cstmt);
+			cstmt.execute();
+
+			SelectStatement rows = selectPivotedProperties(
+					String.format("(SELECT %s FROM %s WHERE %s = %d)",
+							column_name_subject, tablename_subject_tables, column_name_table, i),
+					properties, multi_valued);
+			InsertStatement insert = impala.insertOverwrite(tablename);
+			if (subject_buckets > 0) {
+				rows.addProjection(subjectBucket(String.format("subjects.%s", column_name_subject)));
+				insert.addPartition(column_name_subject_bucket);
+			}
+			insert.selectStatement(rows).execute();
+			System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+			computeStats(impala, tablename);
+		}
+		if (!tables.isEmpty())
+			catalog.execute();
+		computeStats(impala, tablename_catalog);
+
+		// Drop intermediate tables
+		if (!keep){
+			impala.dropTable(tablename_triple_table);
+			impala.dropTable(tablename_predicate_bits);
+			impala.dropTable(tablename_subject_sets);
+			impala.dropTable(tablename_subject_tables);
+		}
+	}
+}
@@ -1,18 +1,31 @@
 package de.uni_freiburg.informatik.dbis.sempala.loader;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.FileNotFoundException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.Impala;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.InsertStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.SelectStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.DataType;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.FileFormat;
@@ -27,6 +40,11 @@ import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.FileFo
 
 public final class ExtVPLoader extends Loader {
 
+	/** The names of the partition columns of the partitioned ExtVP table (-xp) */
+	public static final String column_name_extvp_type = "extvp_type";
+	public static final String column_name_p1 = "p1";
+	public static final String column_name_p2 = "p2";
+
 	/** The constructor */
 	public ExtVPLoader(Impala wrapper, String hdfsLocation) {
 		super(wrapper, hdfsLocation);
@@ -42,6 +60,23 @@ public final class ExtVPLoader extends Loader {
 	private int FirstPredicate = 0;
 	private int LastPredicate = 0;
 	
+	//Sizes of the partitions of the triple table
+	private HashMap<String, Double> PartitionSizes = new HashMap<>();
+	
+	//Progress of previous executions as read from the journal
+	private boolean TripleTableCompleted = false;
+	private HashSet<String> StartedPairs = new HashSet<>();
+	private HashSet<String> CompletedPairs = new HashSet<>();
+	
+	//Rows of the stats tables of the pair computed by the current thread, inserted when the pair is completed
+	private final ThreadLocal<HashMap<String, ArrayList<Object[]>>> PendingStats = new ThreadLocal<>();
+	
+	//Second predicate of the journal records of the first predicates computed by multi-output
+	private static final String AllPredicates = "*";
+	
+	//Pairs of predicates sharing at least one join value, by correlation (ss, so, oo)
+	private HashMap<String, HashSet<String>> CoOccurrences = new HashMap<>();
+	
 	/**
 	 * Creates Extended Vertical Partitioning tables from a triple table.
 	 *
@@ -60,14 +95,21 @@ public final class ExtVPLoader extends Loader {
 		setExtVPTypes(extvp_types_selected);
 
 		// Set the first predicate from which to start ExtVP calculation
-		FirstPredicate = GetCompletedPredicate(1);
+		FirstPredicate = GetFirstPredicate();
+		
+		// Continue from the tasks completed by previous executions
+		ReadJournal();
+		
+		// Create the stats tables, a new triple table starts with empty ones
+		CreateStatsTables(FirstPredicate == 0 && !TripleTableCompleted);
 		
 		// Load the triple table
-		if (FirstPredicate == 0) {
+		if (FirstPredicate == 0 && !TripleTableCompleted) {
 			long timestampTT = System.currentTimeMillis();
 			buildTripleTable();
 			AddStats("BUILD TRIPLETABLE", " TIME", "", "Time", 0, 0,
 					(double) (System.currentTimeMillis() - timestampTT) / 1000,0);
+			Journal(String.format("TRIPLETABLE\t%s\t\n", TT));
 		}
 		
 		// Get list of predicates given by user
@@ -79,68 +121,22 @@ public final class ExtVPLoader extends Loader {
 		//Create ExtVP tables
 		System.out.print(String.format("Creating %s from '%s' \n", "ExtVps", TT));
 		long timestamptotal = System.currentTimeMillis();
-		for (int i = FirstPredicate; i < LastPredicate; i++) {
-			String p1 = ListOfPredicates.get(i);
-			SelectStatement leftstmt = SelectPartition(TT, p1);
-			for (int j = i; j < ListOfPredicates.size(); j++) {
-				String p2 = ListOfPredicates.get(j);
-				SelectStatement rightstmt = SelectPartition(TT, p2);
-				double PartitionSizeP1 = TableSize(TT,p1);
-				double PartitionSizeP2 = TableSize(TT,p2);
-				if (!ExtVPTypes.isEmpty()) {
-					if (ExtVPTypes.contains("so") && ExtVPTypes.contains("os")) {
-						Compute_SOandOS(TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
-					} else if (ExtVPTypes.contains("so") && !ExtVPTypes.contains("os")) {
-						Compute_SO(TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
-					} else if (!ExtVPTypes.contains("so") && ExtVPTypes.contains("os")) {
-						Compute_OS(TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
-					} else {
-					}
-					if (ExtVPTypes.contains("ss")) {
-						Compute_SS(TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
-					}
-					if (ExtVPTypes.contains("oo")) {
-						Compute_OO(TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
-					}
-				} else {
-					System.out.println("ExtVPTypes is empty");
-				}
-				PhaseCompleted(i, p1, j, p2);
-			}
-		}		
+		ComputeExtVPs();
 		
 		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamptotal) / 1000));
 		AddStats("Complete_EXTVP_TABLES",String.valueOf(FirstPredicate)+"-"+String.valueOf(LastPredicate),"","Time",0,0, (double) (System.currentTimeMillis() - timestamptotal) / 1000,0);
 		
-		//Store statistic files in HDFS
-		try {
-			StoreInHdfs(hdfs_input_directory);
-		} catch (IllegalArgumentException | IOException e1) {
-			e1.printStackTrace();
+		//Merge the rows of the stats tables, unless other partitions of predicates may still insert into them
+		if ("All".equals(Predicate_Partition)) {
+			System.out.print(String.format("Compacting %s \n", "ExtVp Statistic Tables"));
+			long timestampStats = System.currentTimeMillis();
+			for (String StatsTable : StatsTables())
+				CompactStatsTable(StatsTable);
+			System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestampStats) / 1000));
 		}
 		
-		// Sleep 10 seconds to give impala some time to calm down
-		try {
-			Thread.sleep(10000);
-		} catch (InterruptedException e1) {
-			e1.printStackTrace();
-		}
-		
-		//Create tables of statistics
-		System.out.print(String.format("Creating %s \n", "ExtVp Statistic Tables"));
-		long timestampStats = System.currentTimeMillis();
-		try {
-			CreateStatsTables("SS",hdfs_input_directory,HdfsUserPath);
-			CreateStatsTables("SO",hdfs_input_directory,HdfsUserPath);
-			CreateStatsTables("OS",hdfs_input_directory,HdfsUserPath);
-			CreateStatsTables("OO",hdfs_input_directory,HdfsUserPath);
-			CreateStatsTables("TIME",hdfs_input_directory,HdfsUserPath);
-			CreateStatsTables("EMPTY",hdfs_input_directory,HdfsUserPath);
-		} catch (IllegalArgumentException | IOException e) {
-			System.out.println("Stats tables could not be created. ");
-			e.printStackTrace();
-		}
-		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestampStats) / 1000));
+		// Compute the optimization stats of the ExtVP tables if they were deferred
+		finishStats();
 		
 		System.exit(-1);
 	}
@@ -224,9 +220,660 @@ public final class ExtVPLoader extends Loader {
 		java.util.Collections.sort(ListOfPredicates);
 	}
 
+	/**
+	 * Compute the ExtVP tables of all pairs of predicates, where the first
+	 * predicate lies between FirstPredicate and LastPredicate.
+	 * 
+	 * Every pair of predicates is an independent task. The tasks are executed
+	 * concurrently by a pool of threads, each of them using its own impala
+	 * session. Pairs with large partitions are scheduled first, such that the
+	 * longest tasks do not end up in the tail of the computation. With
+	 * multi-output the tasks are the first predicates instead, see
+	 * {@link ExtVPLoader#ComputeMultiOutputExtVPs()}.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void ComputeExtVPs() throws IllegalArgumentException, SQLException {
+		PartitionSizes = PartitionSizes(TT);
+
+		if (extvp_multi_output) {
+			ComputeMultiOutputExtVPs();
+			return;
+		}
+
+		// Find the pairs of predicates which yield non-empty ExtVP tables
+		if (ExtVPTypes.contains("ss"))
+			CoOccurrences.put("ss", CoOccurrences(TT, column_name_subject, column_name_subject));
+		if (ExtVPTypes.contains("so") || ExtVPTypes.contains("os"))
+			CoOccurrences.put("so", CoOccurrences(TT, column_name_subject, column_name_object));
+		if (ExtVPTypes.contains("oo"))
+			CoOccurrences.put("oo", CoOccurrences(TT, column_name_object, column_name_object));
+
+		// One task for each pair of predicates, largest partitions first
+		ArrayList<int[]> Pairs = new ArrayList<>();
+		int Completed = 0;
+		for (int i = FirstPredicate; i < LastPredicate; i++) {
+			for (int j = i; j < ListOfPredicates.size(); j++) {
+				if (CompletedPairs.contains(PairKey(ListOfPredicates.get(i), ListOfPredicates.get(j))))
+					Completed++;
+				else
+					Pairs.add(new int[] { i, j });
+			}
+		}
+		Collections.sort(Pairs, new Comparator<int[]>() {
+			@Override
+			public int compare(int[] pair1, int[] pair2) {
+				return Double.compare(PairSize(pair2), PairSize(pair1));
+			}
+		});
+
+		// Delete the stats of interrupted pairs before the sessions insert into the stats tables
+		ArrayList<String> TableNames = new ArrayList<>();
+		ArrayList<String> Descriptions = new ArrayList<>();
+		for (int[] Pair : Pairs) {
+			String p1 = ListOfPredicates.get(Pair[0]);
+			String p2 = ListOfPredicates.get(Pair[1]);
+			if (!StartedPairs.contains(PairKey(p1, p2)))
+				continue;
+			for (String ExtVPFormat : ExtVPTypes) {
+				TableNames.add(TableName(p1, p2, ExtVPFormat));
+				TableNames.add(TableName(p2, p1, ExtVPFormat));
+			}
+			Descriptions.add(p1 + "_" + p2);
+		}
+		DeleteStats(TableNames, Descriptions);
+
+		System.out.println(String.format("Computing %d pairs of predicates using %d connection(s), %d pairs completed before", Pairs.size(), connections, Completed));
+		ArrayList<SessionTask> Tasks = new ArrayList<>();
+		for (final int[] Pair : Pairs) {
+			Tasks.add(new SessionTask() {
+				@Override
+				public void run(Impala session) throws SQLException {
+					ComputePair(session, Pair[0], Pair[1]);
+				}
+			});
+		}
+		RunTasks(Tasks);
+	}
+
+	/**
+	 * A task run with one of the impala sessions, see {@link ExtVPLoader#RunTasks(ArrayList)}.
+	 */
+	private interface SessionTask {
+		void run(Impala session) throws SQLException;
+	}
+
+	/**
+	 * Run tasks concurrently by a pool of threads. Each thread borrows one of
+	 * the impala sessions for the duration of a task. The sessions opened for
+	 * the tasks are closed when all tasks are done.
+	 * 
+	 * @param Tasks - Tasks in the order of their execution.
+	 * 
+	 * @throws SQLException
+	 */
+	private void RunTasks(ArrayList<SessionTask> Tasks) throws SQLException {
+		final LinkedBlockingQueue<Impala> Sessions = new LinkedBlockingQueue<>();
+		ArrayList<Impala> NewSessions = new ArrayList<>();
+		Sessions.add(impala);
+		for (int i = 1; i < connections; i++) {
+			Impala Session = impala.newSession();
+			NewSessions.add(Session);
+			Sessions.add(Session);
+		}
+
+		ExecutorService Executor = Executors.newFixedThreadPool(connections);
+		ArrayList<Future<Void>> Futures = new ArrayList<>();
+		for (final SessionTask Task : Tasks) {
+			Futures.add(Executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					Impala session = Sessions.take();
+					try {
+						Task.run(session);
+					} finally {
+						Sessions.put(session);
+					}
+					return null;
+				}
+			}));
+		}
+		Executor.shutdown();
+
+		try {
+			for (Future<Void> Future : Futures)
+				Future.get();
+		} catch (ExecutionException e) {
+			Executor.shutdownNow();
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			Executor.shutdownNow();
+			e.printStackTrace();
+			System.exit(1);
+		} finally {
+			for (Impala Session : NewSessions)
+				Session.close();
+		}
+	}
+
+	/**
+	 * Compute the ExtVP tables of all first predicates between FirstPredicate
+	 * and LastPredicate with one statement per first predicate and type.
+	 * 
+	 * The distinct (value, predicate) pairs of the subjects and of the objects
+	 * are computed once. The partition of the first predicate p1 is joined
+	 * against them, which yields the rows of all ExtVP tables of p1 and the
+	 * type in a single scan of the partition, written to a table partitioned
+	 * by the second predicate p2. The sizes of the ExtVP tables are counted
+	 * per partition, and only the partitions below the threshold are copied
+	 * into the ExtVP tables read by the translator.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void ComputeMultiOutputExtVPs() throws IllegalArgumentException, SQLException {
+		if (extvp_partitioned)
+			CreatePartitionedTable();
+
+		if (ExtVPTypes.contains("ss") || ExtVPTypes.contains("os"))
+			BuildJoinKeys(column_name_subject);
+		if (ExtVPTypes.contains("so") || ExtVPTypes.contains("oo"))
+			BuildJoinKeys(column_name_object);
+
+		// One task for each first predicate, largest partitions first
+		ArrayList<Integer> Predicates = new ArrayList<>();
+		int Completed = 0;
+		for (int i = FirstPredicate; i < LastPredicate; i++) {
+			if (CompletedPairs.contains(PairKey(ListOfPredicates.get(i), AllPredicates)))
+				Completed++;
+			else
+				Predicates.add(i);
+		}
+		Collections.sort(Predicates, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Double.compare(PartitionSize(ListOfPredicates.get(i2)), PartitionSize(ListOfPredicates.get(i1)));
+			}
+		});
+
+		// Delete the stats of interrupted predicates before the sessions insert into the stats tables
+		ArrayList<String> TableNames = new ArrayList<>();
+		ArrayList<String> Descriptions = new ArrayList<>();
+		for (int i : Predicates) {
+			String p1 = ListOfPredicates.get(i);
+			if (!StartedPairs.contains(PairKey(p1, AllPredicates)))
+				continue;
+			for (String p2 : ListOfPredicates)
+				for (String ExtVPFormat : ExtVPTypes)
+					TableNames.add(TableName(p1, p2, ExtVPFormat));
+			Descriptions.add(p1 + "_" + AllPredicates);
+		}
+		DeleteStats(TableNames, Descriptions);
+
+		System.out.println(String.format("Computing %d predicates using %d connection(s), %d predicates completed before", Predicates.size(), connections, Completed));
+		ArrayList<SessionTask> Tasks = new ArrayList<>();
+		for (final int i : Predicates) {
+			Tasks.add(new SessionTask() {
+				@Override
+				public void run(Impala session) throws SQLException {
+					ComputePredicate(session, ListOfPredicates.get(i));
+				}
+			});
+		}
+		RunTasks(Tasks);
+
+		if (!keep) {
+			impala.dropTableIfExists(JoinKeysTableName(column_name_subject));
+			impala.dropTableIfExists(JoinKeysTableName(column_name_object));
+		}
+
+		// Only the partitions written by this execution are scanned
+		if (extvp_partitioned)
+			computeIncrementalStats(tablename_output);
+	}
+
+	/**
+	 * Create the table holding all ExtVP tables as partitions (-xp). The
+	 * partition of the ExtVP table extvp_&lt;p1&gt;_&lt;p2&gt;_&lt;type&gt; is
+	 * (extvp_type = type, p1 = p1, p2 = p2), where the predicates are renamed
+	 * like in the table names, see {@link ExtVPLoader#RenamePredicates(String)}.
+	 * 
+	 * @throws SQLException
+	 */
+	private void CreatePartitionedTable() throws SQLException {
+		CreateStatement cstmt = impala.createTable(tablename_output).ifNotExists()
+				.addColumnDefinition(column_name_subject, termDataType())
+				.addColumnDefinition(column_name_object, termDataType())
+				.addPartitionDefinition(column_name_extvp_type, DataType.STRING)
+				.addPartitionDefinition(column_name_p1, DataType.STRING)
+				.addPartitionDefinition(column_name_p2, DataType.STRING)
+				.storedAs(FileFormat.PARQUET);
+		partitionBySubjectBucket(cstmt);
+		cstmt.execute();
+	}
+
+	/**
+	 * Compute the ExtVP tables of the selected types of one first predicate
+	 * and all second predicates. The predicate is journaled like a pair of
+	 * predicates with the second predicate {@link ExtVPLoader#AllPredicates}.
+	 * 
+	 * @param impala - Session used to run the statements.
+	 * @param p1 - First predicate.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void ComputePredicate(Impala impala, String p1) throws IllegalArgumentException, SQLException {
+		if (StartedPairs.contains(PairKey(p1, AllPredicates))) {
+			if (extvp_partitioned)
+				impala.dropPartitions(tablename_output, String.format("%s = '%s'", column_name_p1, RenamePredicates(p1)));
+			else
+				for (String p2 : ListOfPredicates)
+					for (String ExtVPFormat : ExtVPTypes)
+						impala.dropTableIfExists(TableName(p1, p2, ExtVPFormat));
+		}
+		Journal(String.format("STARTED\t%s\n", PairKey(p1, AllPredicates)));
+		PendingStats.set(new HashMap<String, ArrayList<Object[]>>());
+		try {
+			long timestamp = System.currentTimeMillis();
+			for (String ExtVPFormat : ExtVPTypes)
+				ComputeMultiOutput(impala, p1, ExtVPFormat);
+			AddStats("EXTVP_PREDICATE", p1, AllPredicates, "Time", 0, 0, (double) (System.currentTimeMillis() - timestamp) / 1000, 0);
+			InsertStats(impala, PendingStats.get());
+			Journal(String.format("COMPLETED\t%s\n", PairKey(p1, AllPredicates)));
+		} finally {
+			PendingStats.remove();
+		}
+	}
+
+	/**
+	 * Compute the ExtVP tables of one type of a first predicate and all
+	 * second predicates by a single join of the partition of the first
+	 * predicate with the join keys of all predicates.
+	 * 
+	 * @param impala - Session used to run the statements.
+	 * @param p1 - First predicate.
+	 * @param ExtVPFormat - ExtVP Format.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void ComputeMultiOutput(Impala impala, String p1, String ExtVPFormat) throws IllegalArgumentException, SQLException {
+		String Column1 = ExtVPFormat.charAt(0) == 's' ? column_name_subject : column_name_object;
+		String Column2 = ExtVPFormat.charAt(1) == 's' ? column_name_subject : column_name_object;
+		String TableName_p1 = MultiOutputTableName(p1, ExtVPFormat);
+		double PartitionSizeP1 = PartitionSize(p1);
+
+		System.out.print(String.format("Creating %s from '%s'", TableName_p1, TT));
+		long timestamp = System.currentTimeMillis();
+		SelectStatement mainstmt = impala.select(String.format("t1.%s", column_name_subject));
+		mainstmt.addProjection(String.format("t1.%s", column_name_object));
+		mainstmt.addProjection(String.format("k.%s AS %s", column_name_predicate, column_name_p2));
+		mainstmt.from(String.format("(%s) t1", SelectPartition(impala, TT, p1)));
+		mainstmt.join(String.format("%s k", JoinKeysTableName(Column2)), String.format("t1.%s = k.join_value", Column1), shuffle);
+		// SS and OO tables of a predicate with itself are the VP
+		if (Column1.equals(Column2))
+			mainstmt.where(String.format("k.%s <> '%s'", column_name_predicate, p1));
+		impala.dropTableIfExists(TableName_p1);
+		impala.createTable(TableName_p1)
+		.storedAs(FileFormat.PARQUET)
+		.addPartitionDefinition(column_name_p2, DataType.STRING)
+		.asSelect(mainstmt)
+		.execute();
+		double Time = (double) (System.currentTimeMillis() - timestamp) / 1000;
+		System.out.println(String.format(" [%.3fs]", Time));
+
+		// The sizes of the ExtVP tables of all second predicates
+		HashMap<String, Double> Sizes = new HashMap<>();
+		ResultSet DataSet = impala.select(column_name_p2).addProjection("Count(*) AS NrTuples").from(TableName_p1).groupby(column_name_p2).execute();
+		while (DataSet.next())
+			Sizes.put(DataSet.getString(column_name_p2), Double.parseDouble(DataSet.getString("NrTuples")));
+
+		StringBuilder Selected = new StringBuilder();
+		for (String p2 : ListOfPredicates) {
+			if (Column1.equals(Column2) && p1.equals(p2))
+				continue;
+			String TableName_p1p2 = TableName(p1, p2, ExtVPFormat);
+			Double ExtVPSize = Sizes.get(p2);
+			if (ExtVPSize == null) {
+				StoreEmptyTables(TableName_p1p2);
+				continue;
+			}
+			double Selectivity = ExtVPSize / PartitionSizeP1;
+			AddStats(TableName_p1p2, p1, p2, ExtVPFormat, ExtVPSize, PartitionSizeP1, Selectivity, Time);
+			if (Selectivity < SF && extvp_partitioned) {
+				Selected.append(Selected.length() == 0 ? "" : ", ").append(String.format("'%s'", p2));
+			} else if (Selectivity < SF) {
+				System.out.print(String.format("Creating %s from '%s'", TableName_p1p2, TableName_p1));
+				timestamp = System.currentTimeMillis();
+				CreateTable(impala, p1, p2, ExtVPFormat,
+						impala.select(column_name_subject).addProjection(column_name_object)
+						.from(TableName_p1).where(String.format("%s = '%s'", column_name_p2, p2)))
+				.execute();
+				System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+				computeDeferrableStats(impala, TableName_p1p2);
+			}
+		}
+
+		// Add the ExtVP tables below the threshold as partitions with one statement
+		if (Selected.length() > 0) {
+			System.out.print(String.format("Adding the partitions of %s to '%s'", TableName_p1, tablename_output));
+			timestamp = System.currentTimeMillis();
+			SelectStatement partitions = impala.select(column_name_subject).addProjection(column_name_object)
+					// the same renaming as RenamePredicates (four slashes: one escape for java one for sql)
+					.addProjection(String.format("regexp_replace(%s, '[<>/.`~#,\\\\s\\\\-:\\\\?]', '_') AS %s", column_name_p2, column_name_p2))
+					.from(TableName_p1)
+					.where(String.format("%s IN (%s)", column_name_p2, Selected));
+			InsertStatement insert = impala.insertInto(tablename_output)
+					.addPartition(String.format("%s='%s'", column_name_extvp_type, ExtVPFormat))
+					.addPartition(String.format("%s='%s'", column_name_p1, RenamePredicates(p1)))
+					.addPartition(column_name_p2);
+			if (subject_buckets > 0)
+				insert.addPartition(column_name_subject_bucket).selectStatement(selectWithSubjectBucket(partitions));
+			else
+				insert.selectStatement(partitions);
+			insert.execute();
+			System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+		}
+
+		if (!keep)
+			impala.dropTable(TableName_p1);
+	}
+
+	/**
+	 * Build the table of the distinct (value, predicate) pairs of a column of
+	 * the triple table, restricted to the list of predicates.
+	 * 
+	 * @param Column - Column of the join values.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void BuildJoinKeys(String Column) throws IllegalArgumentException, SQLException {
+		String Tablename = JoinKeysTableName(Column);
+		SelectStatement keys = impala.select(String.format("%s AS join_value", Column)).distinct()
+				.addProjection(column_name_predicate).from(TT);
+		if (path_of_list_of_predicates != "\\n") {
+			StringBuilder Predicates = new StringBuilder();
+			for (String Predicate : ListOfPredicates)
+				Predicates.append(Predicates.length() == 0 ? "" : ", ").append(String.format("'%s'", Predicate));
+			keys.where(String.format("%s IN (%s)", column_name_predicate, Predicates));
+		}
+
+		impala.dropTableIfExists(Tablename);
+		System.out.print(String.format("Creating %s from '%s'", Tablename, TT));
+		long timestamp = System.currentTimeMillis();
+		impala.createTable(Tablename).storedAs(FileFormat.PARQUET).asSelect(keys).execute();
+		double Time = (double) (System.currentTimeMillis() - timestamp) / 1000;
+		System.out.println(String.format(" [%.3fs]", Time));
+		AddStats("JOIN-KEYS", Column, "", "Time", 0, 0, Time, 0);
+		computeStagingStats(Tablename);
+	}
+
+	/**
+	 * Set the name of the table of the join keys of a column.
+	 */
+	private String JoinKeysTableName(String Column) {
+		return String.format("%skeys_%s", tablename_output, Column);
+	}
+
+	/**
+	 * Set the name of the table holding the ExtVP tables of a first predicate
+	 * and a format, partitioned by the second predicate.
+	 */
+	private String MultiOutputTableName(String Predicate1, String ExtVPFormat) {
+		return String.format("%smulti_%s_%s", tablename_output, RenamePredicates(Predicate1), ExtVPFormat);
+	}
+
+	/**
+	 * Compute the ExtVP tables of the selected types for one pair of predicates.
+	 * 
+	 * The pair is journaled as started before and as completed after its tables
+	 * are computed. Tables of a pair which was started but not completed by a
+	 * previous execution may be half-written, they are dropped and recomputed.
+	 * The rows of the stats tables of the pair are held back and inserted right
+	 * before its completion is journaled. The inserts are not atomic, hence the
+	 * rows of a pair which was started but not completed are deleted before the
+	 * pairs are computed, see {@link ExtVPLoader#DeleteStats(ArrayList, ArrayList)}.
+	 * 
+	 * @param impala - Session used to run the statements.
+	 * @param i - Position of the first predicate in the list of predicates.
+	 * @param j - Position of the second predicate in the list of predicates.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void ComputePair(Impala impala, int i, int j) throws IllegalArgumentException, SQLException {
+		String p1 = ListOfPredicates.get(i);
+		String p2 = ListOfPredicates.get(j);
+		if (StartedPairs.contains(PairKey(p1, p2)))
+			DropTables(impala, p1, p2);
+		Journal(String.format("STARTED\t%s\n", PairKey(p1, p2)));
+		PendingStats.set(new HashMap<String, ArrayList<Object[]>>());
+		try {
+			ComputeTables(impala, p1, p2);
+			InsertStats(impala, PendingStats.get());
+			Journal(String.format("COMPLETED\t%s\n", PairKey(p1, p2)));
+		} finally {
+			PendingStats.remove();
+		}
+	}
+
+	/**
+	 * Compute the ExtVP tables of the selected types for one pair of predicates.
+	 * 
+	 * @param impala - Session used to run the statements.
+	 * @param p1 - First predicate.
+	 * @param p2 - Second predicate.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void ComputeTables(Impala impala, String p1, String p2) throws IllegalArgumentException, SQLException {
+		long timestamp = System.currentTimeMillis();
+		SelectStatement leftstmt = SelectPartition(impala, TT, p1);
+		SelectStatement rightstmt = SelectPartition(impala, TT, p2);
+		double PartitionSizeP1 = PartitionSize(p1);
+		double PartitionSizeP2 = PartitionSize(p2);
+		if (!ExtVPTypes.isEmpty()) {
+			if (ExtVPTypes.contains("so") && ExtVPTypes.contains("os")) {
+				Compute_SOandOS(impala, TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
+			} else if (ExtVPTypes.contains("so") && !ExtVPTypes.contains("os")) {
+				Compute_SO(impala, TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
+			} else if (!ExtVPTypes.contains("so") && ExtVPTypes.contains("os")) {
+				Compute_OS(impala, TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
+			} else {
+			}
+			if (ExtVPTypes.contains("ss")) {
+				Compute_SS(impala, TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
+			}
+			if (ExtVPTypes.contains("oo")) {
+				Compute_OO(impala, TT, p1, p2, SF, leftstmt, rightstmt, PartitionSizeP1, PartitionSizeP2);
+			}
+		} else {
+			System.out.println("ExtVPTypes is empty");
+		}
+		AddStats("EXTVP_PAIR", p1, p2, "Time", 0, 0, (double) (System.currentTimeMillis() - timestamp) / 1000, 0);
+	}
+
+	/**
+	 * Drop the ExtVP tables of the selected types of a pair of predicates in
+	 * both directions.
+	 * 
+	 * @param impala - Session used to run the statements.
+	 * @param p1 - First predicate.
+	 * @param p2 - Second predicate.
+	 * 
+	 * @throws SQLException
+	 */
+	private void DropTables(Impala impala, String p1, String p2) throws SQLException {
+		for (String ExtVPFormat : ExtVPTypes) {
+			impala.dropTableIfExists(TableName(p1, p2, ExtVPFormat));
+			if (!p1.equals(p2))
+				impala.dropTableIfExists(TableName(p2, p1, ExtVPFormat));
+		}
+	}
+
+	/**
+	 * Insert rows into the stats tables, one statement per stats table.
+	 * 
+	 * @param impala - Session used to run the statements.
+	 * @param Rows - Rows to be inserted by stats table.
+	 * 
+	 * @throws SQLException
+	 */
+	private void InsertStats(Impala impala, HashMap<String, ArrayList<Object[]>> Rows) throws SQLException {
+		for (Map.Entry<String, ArrayList<Object[]>> StatsTable : Rows.entrySet()) {
+			InsertStatement stmt = impala.insertInto(StatsTable.getKey());
+			for (Object[] Row : StatsTable.getValue())
+				stmt.addValues(Row);
+			stmt.execute();
+		}
+	}
+
+	/**
+	 * Delete the rows of the interrupted pairs of predicates from the stats
+	 * tables, which were inserted before the interruption. Impala cannot
+	 * delete rows, hence every stats table is rewritten once without the rows
+	 * of all interrupted pairs. The tables are rewritten before the pairs are
+	 * computed, such that no session inserts into them meanwhile.
+	 * 
+	 * @param TableNames - Names of the ExtVP tables of the interrupted pairs.
+	 * @param Descriptions - Descriptions of the rows of the interrupted pairs in the time stats table.
+	 * 
+	 * @throws SQLException
+	 */
+	private void DeleteStats(ArrayList<String> TableNames, ArrayList<String> Descriptions) throws SQLException {
+		if (Descriptions.isEmpty())
+			return;
+		for (String StatsTable : StatsTables()) {
+			String Condition = StatsTable.equals("extvp_tableofstats_time")
+					? String.format("NOT (Operation_Name IN ('EXTVP_PAIR', 'EXTVP_PREDICATE') AND Description IN (%s))", QuotedList(Descriptions))
+					: String.format("ExtVPTable_Name NOT IN (%s)", QuotedList(TableNames));
+			System.out.print(String.format("Deleting the stats of %d interrupted pair(s) from '%s'", Descriptions.size(), StatsTable));
+			long timestamp = System.currentTimeMillis();
+			impala.insertOverwrite(StatsTable)
+			.selectStatement(impala.select("*").from(StatsTable).where(Condition))
+			.execute();
+			System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+		}
+	}
+
+	/**
+	 * Join strings to a comma separated list of SQL string literals.
+	 */
+	private String QuotedList(ArrayList<String> Values) {
+		StringBuilder List = new StringBuilder();
+		for (String Value : Values)
+			List.append(List.length() == 0 ? "" : ", ").append(String.format("'%s'", Value));
+		return List.toString();
+	}
+
+	/**
+	 * Estimate the cost of a pair of predicates by the sizes of their partitions.
+	 */
+	private double PairSize(int[] Pair) {
+		return PartitionSize(ListOfPredicates.get(Pair[0])) + PartitionSize(ListOfPredicates.get(Pair[1]));
+	}
+
+	/**
+	 * Get the size of the partition of a predicate, 0 if the predicate does not
+	 * occur in the triple table.
+	 */
+	private double PartitionSize(String Predicate) {
+		Double Size = PartitionSizes.get(Predicate);
+		return Size == null ? 0 : Size;
+	}
+
+	/**
+	 * Find all pairs of predicates (p1, p2) for which a triple with predicate
+	 * p1 and a triple with predicate p2 share a value in the given columns,
+	 * i.e. for which the ExtVP table of the correlation is not empty.
+	 * 
+	 * The distinct (value, predicate) pairs of both columns are joined on the
+	 * value, hence all pairs are found by a single query.
+	 * 
+	 * @param Tablename - Name of the triple table.
+	 * @param Column1 - Join column of the first predicate.
+	 * @param Column2 - Join column of the second predicate.
+	 * @return Set of the co-occurring pairs (see {@link #PairKey(String, String)}).
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private HashSet<String> CoOccurrences(String Tablename, String Column1, String Column2) throws IllegalArgumentException, SQLException {
+		System.out.print(String.format("Computing co-occurring predicates (%s, %s)", Column1, Column2));
+		long timestamp = System.currentTimeMillis();
+
+		SelectStatement left = impala.select(String.format("%s AS join_value", Column1)).distinct()
+				.addProjection(column_name_predicate).from(Tablename);
+		SelectStatement right = impala.select(String.format("%s AS join_value", Column2)).distinct()
+				.addProjection(column_name_predicate).from(Tablename);
+		ResultSet DataSet = impala.select(String.format("t1.%s AS p1", column_name_predicate)).distinct()
+				.addProjection(String.format("t2.%s AS p2", column_name_predicate))
+				.from(String.format("(%s) t1", left))
+				.join(String.format("(%s) t2", right), "t1.join_value = t2.join_value", true)
+				.execute();
+		HashSet<String> Pairs = new HashSet<>();
+		while (DataSet.next()) {
+			Pairs.add(PairKey(DataSet.getString("p1"), DataSet.getString("p2")));
+		}
+
+		double Time = (double) (System.currentTimeMillis() - timestamp) / 1000;
+		System.out.println(String.format(" [%.3fs]", Time));
+		AddStats("CO-OCCURRENCES", Column1, Column2, "Time", 0, Pairs.size(), Time, 0);
+		return Pairs;
+	}
+
+	/**
+	 * Check if the ExtVP table of a pair of predicates can be non-empty,
+	 * based on the co-occurrences computed before the ExtVP tables.
+	 * 
+	 * @param ExtVPFormat - ExtVP Format.
+	 * @param p1 - First predicate.
+	 * @param p2 - Second predicate.
+	 * @return false if the ExtVP table is known to be empty.
+	 */
+	private boolean CoOccur(String ExtVPFormat, String p1, String p2) {
+		// OS of (p1, p2) joins the same values as SO of (p2, p1)
+		if ("os".equals(ExtVPFormat))
+			return CoOccurrences.get("so").contains(PairKey(p2, p1));
+		return CoOccurrences.get(ExtVPFormat).contains(PairKey(p1, p2));
+	}
+
+	/**
+	 * Key of a pair of predicates in the sets of co-occurrences.
+	 */
+	private String PairKey(String p1, String p2) {
+		return p1 + "\t" + p2;
+	}
+
+	/**
+	 * Get the sizes of all partitions of a table with a single scan.
+	 * 
+	 * @param Tablename - Name of the table.
+	 * @return Map from predicate to the size of its partition.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private HashMap<String, Double> PartitionSizes(String Tablename) throws IllegalArgumentException, SQLException {
+		ResultSet DataSet = impala.select(column_name_predicate).addProjection("Count(*) AS NrTuples").from(Tablename)
+				.groupby(column_name_predicate).execute();
+		HashMap<String, Double> Sizes = new HashMap<>();
+		while (DataSet.next()) {
+			Sizes.put(DataSet.getString(column_name_predicate), Double.parseDouble(DataSet.getString("NrTuples")));
+		}
+		return Sizes;
+	}
+
 	/**
 	 * Compute ExtVP table of type SO, OS, SS and OO for given predicates.
 	 * 
+	 * @param impala - Session used to run the statements.
 	 * @param TT - Triple table.
 	 * @param p1 - First predicate.
 	 * @param p2 - Second predicate.
@@ -239,42 +886,48 @@ public final class ExtVPLoader extends Loader {
 	 * @throws IllegalArgumentException
 	 * @throws SQLException
 	 */
-	private void Compute_SO(String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
+	private void Compute_SO(Impala impala, String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
 		String ExtVPFormat = "so";
 		String TableName_p1p2_SO = TableName(p1, p2, ExtVPFormat);
 		String TableName_p2p1_SO = TableName(p2, p1, ExtVPFormat);
 		double Time = 0;
 		
-		System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_SO, TT));
-		long timestamp = System.currentTimeMillis();
+		if (!CoOccur(ExtVPFormat, p1, p2)) {
+			StoreEmptyTables(TableName_p1p2_SO);
+		} else {
+			System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_SO, TT));
+			long timestamp = System.currentTimeMillis();
 
-		SelectStatement mainstmt = impala.select(String.format("t1.%s", column_name_subject));
-		mainstmt.addProjection(String.format("t1.%s", column_name_object));
-		mainstmt.from(String.format("(%s) t1", leftstmt));
-		mainstmt.leftSemiJoin(String.format("(%s) t2", rightstmt),
-				String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
+			SelectStatement mainstmt = impala.select(String.format("t1.%s", column_name_subject));
+			mainstmt.addProjection(String.format("t1.%s", column_name_object));
+			mainstmt.from(String.format("(%s) t1", leftstmt));
+			mainstmt.leftSemiJoin(String.format("(%s) t2", rightstmt),
+					String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
 		
-		CreateStatement cstmtSO = CreateTable(p1, p2, ExtVPFormat, mainstmt);
-		cstmtSO.execute();
-		Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
-		System.out.println(String.format(" [%.3fs]", Time));
+			CreateStatement cstmtSO = CreateTable(impala, p1, p2, ExtVPFormat, mainstmt);
+			cstmtSO.execute();
+			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
+			System.out.println(String.format(" [%.3fs]", Time));
 		
-		if (!isEmpty(TableName_p1p2_SO)) {
-			impala.computeStats(TableName_p1p2_SO);
-			double ExtVPSize = TableSize(TableName_p1p2_SO);
-			double Selectivity = ExtVPSize/PartitionSizeP1;
-			AddStats(TableName_p1p2_SO,p1, p2, ExtVPFormat, ExtVPSize, PartitionSizeP1, Selectivity, Time);
-			if (Selectivity >= SF)
+			computeDeferrableStats(impala, TableName_p1p2_SO);
+			double ExtVPSize = TableSize(impala, TableName_p1p2_SO);
+			if (ExtVPSize != 0) {
+				double Selectivity = ExtVPSize/PartitionSizeP1;
+				AddStats(TableName_p1p2_SO,p1, p2, ExtVPFormat, ExtVPSize, PartitionSizeP1, Selectivity, Time);
+				if (Selectivity >= SF)
+					impala.dropTable(TableName_p1p2_SO);
+			} 
+			else {
 				impala.dropTable(TableName_p1p2_SO);
-		} 
-		else {
-			impala.dropTable(TableName_p1p2_SO);
-			StoreEmptyTables(TableName_p1p2_SO);
+				StoreEmptyTables(TableName_p1p2_SO);
+			}
 		}
 
-		if (p1 != p2) {
+		if (p1 != p2 && !CoOccur(ExtVPFormat, p2, p1)) {
+			StoreEmptyTables(TableName_p2p1_SO);
+		} else if (p1 != p2) {
 			System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_SO, TT));
-			timestamp = System.currentTimeMillis();
+			long timestamp = System.currentTimeMillis();
 
 			SelectStatement mainstmt2 = impala.select(String.format("t2.%s", column_name_subject));
 			mainstmt2.addProjection(String.format("t2.%s", column_name_object));
@@ -282,17 +935,17 @@ public final class ExtVPLoader extends Loader {
 			mainstmt2.rightSemiJoin(String.format("(%s) t2", rightstmt),
 					String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_subject), false);
 			
-			CreateStatement cstmtSO2 = CreateTable(p2, p1, ExtVPFormat, mainstmt2);
+			CreateStatement cstmtSO2 = CreateTable(impala, p2, p1, ExtVPFormat, mainstmt2);
 			cstmtSO2.execute();
 			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
 			System.out.println(String.format(" [%.3fs]", Time));
 
-			if (!isEmpty(TableName_p2p1_SO)) {
-				impala.computeStats(TableName_p2p1_SO);
-				double ExtVPSize = TableSize(TableName_p2p1_SO);
+			computeDeferrableStats(impala, TableName_p2p1_SO);
+			double ExtVPSize = TableSize(impala, TableName_p2p1_SO);
+			if (ExtVPSize != 0) {
 				double Selectivity = ExtVPSize/PartitionSizeP2;
 				AddStats(TableName_p2p1_SO,p2, p1, ExtVPFormat, ExtVPSize, PartitionSizeP2, Selectivity, Time);
-				if (TableSize(TableName_p2p1_SO) / TableSize(TT, p2) >= SF)
+				if (Selectivity >= SF)
 					impala.dropTable(TableName_p2p1_SO);
 			} else {
 				impala.dropTable(TableName_p2p1_SO);
@@ -301,41 +954,47 @@ public final class ExtVPLoader extends Loader {
 		}
 	}
 	
-	private void Compute_OS(String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
+	private void Compute_OS(Impala impala, String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
 		String ExtVPFormat = "os";
 		String TableName_p1p2_OS = TableName(p1, p2, ExtVPFormat);
 		String TableName_p2p1_OS = TableName(p2, p1, ExtVPFormat);
 		double Time = 0;
-		System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_OS, TT));
-		long timestamp = System.currentTimeMillis();
+		if (!CoOccur(ExtVPFormat, p1, p2)) {
+			StoreEmptyTables(TableName_p1p2_OS);
+		} else {
+			System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_OS, TT));
+			long timestamp = System.currentTimeMillis();
 		
-		SelectStatement mainstm = impala.select(String.format("t1.%s", column_name_subject));
-		mainstm.addProjection(String.format("t1.%s", column_name_object));
-		mainstm.from(String.format("(%s) t1", leftstmt));
-		mainstm.leftSemiJoin(String.format("(%s) t2", rightstmt),
-				String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_subject), false);
+			SelectStatement mainstm = impala.select(String.format("t1.%s", column_name_subject));
+			mainstm.addProjection(String.format("t1.%s", column_name_object));
+			mainstm.from(String.format("(%s) t1", leftstmt));
+			mainstm.leftSemiJoin(String.format("(%s) t2", rightstmt),
+					String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_subject), false);
 
-		CreateStatement cstmt = CreateTable(p1, p2, ExtVPFormat, mainstm);
-		cstmt.execute();
-		Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
-		System.out.println(String.format(" [%.3fs]", Time));
+			CreateStatement cstmt = CreateTable(impala, p1, p2, ExtVPFormat, mainstm);
+			cstmt.execute();
+			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
+			System.out.println(String.format(" [%.3fs]", Time));
 		
-		if (!isEmpty(TableName_p1p2_OS)) {
-			impala.computeStats(TableName_p1p2_OS);
-			double ExtVPSize = TableSize(TableName_p1p2_OS);
-			double PartitionSize = TableSize(TT, p1);
-			double Selectivity = ExtVPSize/PartitionSize;
-			AddStats(TableName_p1p2_OS,p1, p2, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time);
-			if (Selectivity >= SF)
+			computeDeferrableStats(impala, TableName_p1p2_OS);
+			double ExtVPSize = TableSize(impala, TableName_p1p2_OS);
+			if (ExtVPSize != 0) {
+				double PartitionSize = PartitionSizeP1;
+				double Selectivity = ExtVPSize/PartitionSize;
+				AddStats(TableName_p1p2_OS,p1, p2, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time);
+				if (Selectivity >= SF)
+					impala.dropTable(TableName_p1p2_OS);
+			} else {
 				impala.dropTable(TableName_p1p2_OS);
-		} else {
-			impala.dropTable(TableName_p1p2_OS);
-			StoreEmptyTables(TableName_p1p2_OS);
+				StoreEmptyTables(TableName_p1p2_OS);
+			}
 		}
 
-		if (p1 != p2) {
+		if (p1 != p2 && !CoOccur(ExtVPFormat, p2, p1)) {
+			StoreEmptyTables(TableName_p2p1_OS);
+		} else if (p1 != p2) {
 			System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_OS, TT));
-			timestamp = System.currentTimeMillis();
+			long timestamp = System.currentTimeMillis();
 
 			SelectStatement mainstm2 = impala.select(String.format("t2.%s", column_name_subject));
 			mainstm2.addProjection(String.format("t2.%s", column_name_object));
@@ -343,15 +1002,15 @@ public final class ExtVPLoader extends Loader {
 			mainstm2.rightSemiJoin(String.format("(%s) t2", rightstmt),
 					String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
 			
-			CreateStatement cstmt2 = CreateTable(p2, p1, ExtVPFormat, mainstm2);
+			CreateStatement cstmt2 = CreateTable(impala, p2, p1, ExtVPFormat, mainstm2);
 			cstmt2.execute();
 			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
 			System.out.println(String.format(" [%.3fs]", Time));
 
-			if (!isEmpty(TableName_p2p1_OS)) {
-				impala.computeStats(TableName_p2p1_OS);
-				double ExtVPSize = TableSize(TableName_p2p1_OS);
-				double PartitionSize = TableSize(TT, p2);
+			computeDeferrableStats(impala, TableName_p2p1_OS);
+			double ExtVPSize = TableSize(impala, TableName_p2p1_OS);
+			if (ExtVPSize != 0) {
+				double PartitionSize = PartitionSizeP2;
 				double Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p2p1_OS,p2, p1, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time);
 				if (Selectivity >= SF)
@@ -363,13 +1022,16 @@ public final class ExtVPLoader extends Loader {
 		}
 	}
 
-	private void Compute_SS(String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
+	private void Compute_SS(Impala impala, String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
 		String ExtVPFormat = "ss";
 		String TableName_p1p2_SS = TableName(p1, p2, ExtVPFormat);
 		String TableName_p2p1_SS = TableName(p2, p1, ExtVPFormat);
 		double Time = 0;
 		double Time2 = 0;
-		if (p1 != p2) {
+		if (p1 != p2 && !CoOccur(ExtVPFormat, p1, p2)) {
+			StoreEmptyTables(TableName_p1p2_SS);
+			StoreEmptyTables(TableName_p2p1_SS);
+		} else if (p1 != p2) {
 			System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_SS, TT));
 			long timestamp = System.currentTimeMillis();
 			
@@ -379,13 +1041,14 @@ public final class ExtVPLoader extends Loader {
 			mainstm.leftSemiJoin(String.format("(%s) t2", rightstmt),
 					String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_subject), false);
 
-			CreateStatement cstmtSS = CreateTable(p1, p2, ExtVPFormat, mainstm);
+			CreateStatement cstmtSS = CreateTable(impala, p1, p2, ExtVPFormat, mainstm);
 			cstmtSS.execute();
 			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
 			System.out.println(String.format(" [%.3fs]", Time));
 			
-			if (!isEmpty(TableName_p1p2_SS)) {
-				impala.computeStats(TableName_p1p2_SS);
+			computeDeferrableStats(impala, TableName_p1p2_SS);
+			double ExtVPSize = TableSize(impala, TableName_p1p2_SS);
+			if (ExtVPSize != 0) {
 				System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_SS, TT));
 				timestamp = System.currentTimeMillis();
 
@@ -395,21 +1058,20 @@ public final class ExtVPLoader extends Loader {
 				mainstm2.rightSemiJoin(String.format("(%s) t2", rightstmt),
 						String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_subject), false);
 
-				CreateStatement cstmtSS2 = CreateTable(p2, p1, ExtVPFormat, mainstm2);
+				CreateStatement cstmtSS2 = CreateTable(impala, p2, p1, ExtVPFormat, mainstm2);
 				cstmtSS2.execute();
 				Time2 = (float) (System.currentTimeMillis() - timestamp) / 1000;
 				System.out.println(String.format(" [%.3fs]", Time));
-				impala.computeStats(TableName_p2p1_SS);
+				computeDeferrableStats(impala, TableName_p2p1_SS);
 				
-				double ExtVPSize = TableSize(TableName_p1p2_SS);
-				double PartitionSize = TableSize(TT, p1);
+				double PartitionSize = PartitionSizeP1;
 				double Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p1p2_SS,p1, p2, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time);
 				if (Selectivity >= SF)
 					impala.dropTable(TableName_p1p2_SS);
 				
-				ExtVPSize = TableSize(TableName_p2p1_SS);
-				PartitionSize = TableSize(TT, p2);
+				ExtVPSize = TableSize(impala, TableName_p2p1_SS);
+				PartitionSize = PartitionSizeP2;
 				Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p2p1_SS,p2, p1, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time2);
 				if (Selectivity >= SF)
@@ -423,13 +1085,16 @@ public final class ExtVPLoader extends Loader {
 		}
 	}
 
-	private void Compute_OO(String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
+	private void Compute_OO(Impala impala, String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
 		String ExtVPFormat = "oo";
 		String TableName_p1p2_OO = TableName(p1, p2, ExtVPFormat);
 		String TableName_p2p1_OO = TableName(p2, p1, ExtVPFormat);
 		double Time = 0;
 		double Time2 = 0;
-		if (p1 != p2) {
+		if (p1 != p2 && !CoOccur(ExtVPFormat, p1, p2)) {
+			StoreEmptyTables(TableName_p1p2_OO);
+			StoreEmptyTables(TableName_p2p1_OO);
+		} else if (p1 != p2) {
 			System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_OO, TT));
 			long timestamp = System.currentTimeMillis();
 
@@ -439,13 +1104,14 @@ public final class ExtVPLoader extends Loader {
 			mainstm.leftSemiJoin(String.format("(%s) t2", rightstmt),
 					String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_object), false);
 
-			CreateStatement cstmtOO = CreateTable(p1, p2, ExtVPFormat, mainstm);
+			CreateStatement cstmtOO = CreateTable(impala, p1, p2, ExtVPFormat, mainstm);
 			cstmtOO.execute();
 			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
 			System.out.println(String.format(" [%.3fs]", Time));
 			
-			if (!isEmpty(TableName_p1p2_OO)) {
-				impala.computeStats(TableName_p1p2_OO);
+			computeDeferrableStats(impala, TableName_p1p2_OO);
+			double ExtVPSize = TableSize(impala, TableName_p1p2_OO);
+			if (ExtVPSize != 0) {
 				System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_OO, TT));
 				timestamp = System.currentTimeMillis();
 
@@ -455,21 +1121,20 @@ public final class ExtVPLoader extends Loader {
 				mainstm2.rightSemiJoin(String.format("(%s) t2", rightstmt),
 						String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_object), false);
 
-				CreateStatement cstmtOO2 = CreateTable(p2, p1, ExtVPFormat, mainstm2);
+				CreateStatement cstmtOO2 = CreateTable(impala, p2, p1, ExtVPFormat, mainstm2);
 				cstmtOO2.execute();
 				Time2 = (float) (System.currentTimeMillis() - timestamp) / 1000;
 				System.out.println(String.format(" [%.3fs]", Time2));
-				impala.computeStats(TableName_p2p1_OO);
+				computeDeferrableStats(impala, TableName_p2p1_OO);
 
-				double ExtVPSize = TableSize(TableName_p1p2_OO);
-				double PartitionSize = TableSize(TT, p1);
+				double PartitionSize = PartitionSizeP1;
 				double Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p1p2_OO,p1, p2, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time);
 				if (Selectivity >= SF)
 					impala.dropTable(TableName_p1p2_OO);
 				
-				ExtVPSize = TableSize(TableName_p2p1_OO);
-				PartitionSize = TableSize(TT, p2);
+				ExtVPSize = TableSize(impala, TableName_p2p1_OO);
+				PartitionSize = PartitionSizeP2;
 				Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p2p1_OO,p2, p1, ExtVPFormat, ExtVPSize, PartitionSize, Selectivity, Time2);
 				if (Selectivity >= SF)
@@ -483,7 +1148,7 @@ public final class ExtVPLoader extends Loader {
 		}
 	}
 
-	private void Compute_SOandOS(String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
+	private void Compute_SOandOS(Impala impala, String TT, String p1, String p2, double SF, SelectStatement leftstmt, SelectStatement rightstmt, double PartitionSizeP1, double PartitionSizeP2) throws IllegalArgumentException, SQLException {
 		String ExtVPFormatSO = "so";
 		String ExtVPFormatOS = "os";
 		String TableName_p1p2_SO = TableName(p1, p2, ExtVPFormatSO);
@@ -492,60 +1157,68 @@ public final class ExtVPLoader extends Loader {
 		String TableName_p2p1_SO = TableName(p2, p1, ExtVPFormatSO);
 		double Time = 0;
 		double Time2 = 0;
-		System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_SO, TT));
-		long timestamp = System.currentTimeMillis();		
+		if (!CoOccur(ExtVPFormatSO, p1, p2)) {
+			StoreEmptyTables(TableName_p1p2_SO);
+			StoreEmptyTables(TableName_p2p1_OS);
+		} else {
+			System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_SO, TT));
+			long timestamp = System.currentTimeMillis();		
 		
-		SelectStatement mainstm = impala.select(String.format("t1.%s", column_name_subject));
-		mainstm.addProjection(String.format("t1.%s", column_name_object));
-		mainstm.from(String.format("(%s) t1", leftstmt));
-		mainstm.leftSemiJoin(String.format("(%s) t2", rightstmt),
-				String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
+			SelectStatement mainstm = impala.select(String.format("t1.%s", column_name_subject));
+			mainstm.addProjection(String.format("t1.%s", column_name_object));
+			mainstm.from(String.format("(%s) t1", leftstmt));
+			mainstm.leftSemiJoin(String.format("(%s) t2", rightstmt),
+					String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
 		
-		CreateStatement cstmtSO = CreateTable(p1, p2, ExtVPFormatSO, mainstm);
-		cstmtSO.execute();
-		Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
-		System.out.println(String.format(" [%.3fs]", Time));
+			CreateStatement cstmtSO = CreateTable(impala, p1, p2, ExtVPFormatSO, mainstm);
+			cstmtSO.execute();
+			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
+			System.out.println(String.format(" [%.3fs]", Time));
 		
 
-		if (!isEmpty(TableName_p1p2_SO)) {
-			impala.computeStats(TableName_p1p2_SO);
-			System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_OS, TT));
-			timestamp = System.currentTimeMillis();
+			computeDeferrableStats(impala, TableName_p1p2_SO);
+			double ExtVPSize = TableSize(impala, TableName_p1p2_SO);
+			if (ExtVPSize != 0) {
+				System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_OS, TT));
+				timestamp = System.currentTimeMillis();
 
-			SelectStatement mainstm2 = impala.select(String.format("t2.%s", column_name_subject));
-			mainstm2.addProjection(String.format("t2.%s", column_name_object));
-			mainstm2.from(String.format("%s t1", TableName_p1p2_SO));
-			mainstm2.rightSemiJoin(String.format("(%s) t2", rightstmt),
-					String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
+				SelectStatement mainstm2 = impala.select(String.format("t2.%s", column_name_subject));
+				mainstm2.addProjection(String.format("t2.%s", column_name_object));
+				mainstm2.from(String.format("%s t1", TableName_p1p2_SO));
+				mainstm2.rightSemiJoin(String.format("(%s) t2", rightstmt),
+						String.format("%s.%s = %s.%s", "t1", column_name_subject, "t2", column_name_object), false);
 
-			CreateStatement cstmtOS = CreateTable(p2, p1, ExtVPFormatOS, mainstm2);
-			cstmtOS.execute();
-			Time2 = (float) (System.currentTimeMillis() - timestamp) / 1000;
-			System.out.println(String.format(" [%.3fs]", Time2));
-			impala.computeStats(TableName_p2p1_OS);
-
-			double ExtVPSize = TableSize(TableName_p1p2_SO);
-			double PartitionSize = TableSize(TT, p1);
-			double Selectivity = ExtVPSize/PartitionSize;
-			AddStats(TableName_p1p2_SO, p1, p2, ExtVPFormatSO, ExtVPSize, PartitionSize, Selectivity, Time);
-			if (Selectivity >= SF)
-				impala.dropTable(TableName_p1p2_SO);
+				CreateStatement cstmtOS = CreateTable(impala, p2, p1, ExtVPFormatOS, mainstm2);
+				cstmtOS.execute();
+				Time2 = (float) (System.currentTimeMillis() - timestamp) / 1000;
+				System.out.println(String.format(" [%.3fs]", Time2));
+				computeDeferrableStats(impala, TableName_p2p1_OS);
 
-			ExtVPSize = TableSize(TableName_p2p1_OS);
-			PartitionSize = TableSize(TT, p2);
-			Selectivity = ExtVPSize/PartitionSize;
-			AddStats(TableName_p2p1_OS,p2, p1, ExtVPFormatOS, ExtVPSize, PartitionSize, Selectivity, Time2);
-			if (Selectivity >= SF)
-				impala.dropTable(TableName_p2p1_OS);
+				double PartitionSize = PartitionSizeP1;
+				double Selectivity = ExtVPSize/PartitionSize;
+				AddStats(TableName_p1p2_SO, p1, p2, ExtVPFormatSO, ExtVPSize, PartitionSize, Selectivity, Time);
+				if (Selectivity >= SF)
+					impala.dropTable(TableName_p1p2_SO);
 
-		} else {
-			impala.dropTable(TableName_p1p2_SO);
-			StoreEmptyTables(TableName_p1p2_SO);
-			StoreEmptyTables(TableName_p2p1_OS);
+				ExtVPSize = TableSize(impala, TableName_p2p1_OS);
+				PartitionSize = PartitionSizeP2;
+				Selectivity = ExtVPSize/PartitionSize;
+				AddStats(TableName_p2p1_OS,p2, p1, ExtVPFormatOS, ExtVPSize, PartitionSize, Selectivity, Time2);
+				if (Selectivity >= SF)
+					impala.dropTable(TableName_p2p1_OS);
+
+			} else {
+				impala.dropTable(TableName_p1p2_SO);
+				StoreEmptyTables(TableName_p1p2_SO);
+				StoreEmptyTables(TableName_p2p1_OS);
+			}
 		}
-		if (p1 != p2) {
+		if (p1 != p2 && !CoOccur(ExtVPFormatOS, p1, p2)) {
+			StoreEmptyTables(TableName_p1p2_OS);
+			StoreEmptyTables(TableName_p2p1_SO);
+		} else if (p1 != p2) {
 			System.out.print(String.format("Creating %s from '%s'", TableName_p1p2_OS, TT));
-			timestamp = System.currentTimeMillis();
+			long timestamp = System.currentTimeMillis();
 
 			SelectStatement mainstm3 = impala.select(String.format("t1.%s", column_name_subject));
 			mainstm3.addProjection(String.format("t1.%s", column_name_object));
@@ -553,14 +1226,15 @@ public final class ExtVPLoader extends Loader {
 			mainstm3.leftSemiJoin(String.format("(%s) t2", rightstmt),
 					String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_subject), false);
 			
-			CreateStatement cstmtOS2 = CreateTable(p1, p2, ExtVPFormatOS, mainstm3);
+			CreateStatement cstmtOS2 = CreateTable(impala, p1, p2, ExtVPFormatOS, mainstm3);
 			cstmtOS2.execute();
 			Time = (float) (System.currentTimeMillis() - timestamp) / 1000;
 			System.out.println(String.format(" [%.3fs]", Time));
 
 
-			if (!isEmpty(TableName_p1p2_OS)) {
-				impala.computeStats(TableName_p1p2_OS);
+			computeDeferrableStats(impala, TableName_p1p2_OS);
+			double ExtVPSize = TableSize(impala, TableName_p1p2_OS);
+			if (ExtVPSize != 0) {
 				System.out.print(String.format("Creating %s from '%s'", TableName_p2p1_SO, TT));
 				timestamp = System.currentTimeMillis();
 
@@ -571,21 +1245,20 @@ public final class ExtVPLoader extends Loader {
 				mainstm4.rightSemiJoin(String.format("(%s) t2", rightstmt),
 						String.format("%s.%s = %s.%s", "t1", column_name_object, "t2", column_name_subject), false);
 
-				CreateStatement cstmtSO2 = CreateTable(p2, p1, ExtVPFormatSO, mainstm4);
+				CreateStatement cstmtSO2 = CreateTable(impala, p2, p1, ExtVPFormatSO, mainstm4);
 				cstmtSO2.execute();
 				Time2 = (float) (System.currentTimeMillis() - timestamp) / 1000;
 				System.out.println(String.format(" [%.3fs]", Time2));
-				impala.computeStats(TableName_p2p1_SO);
+				computeDeferrableStats(impala, TableName_p2p1_SO);
 
-				double ExtVPSize = TableSize(TableName_p1p2_OS);
-				double PartitionSize = TableSize(TT, p1);
+				double PartitionSize = PartitionSizeP1;
 				double Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p1p2_OS, p1, p2, ExtVPFormatOS, ExtVPSize, PartitionSize, Selectivity, Time);
-				if (TableSize(TableName_p1p2_OS) / TableSize(TT, p1) >= SF)
+				if (Selectivity >= SF)
 					impala.dropTable(TableName_p1p2_OS);
 
-				ExtVPSize = TableSize(TableName_p2p1_SO);
-				PartitionSize = TableSize(TT, p2);
+				ExtVPSize = TableSize(impala, TableName_p2p1_SO);
+				PartitionSize = PartitionSizeP2;
 				Selectivity = ExtVPSize/PartitionSize;
 				AddStats(TableName_p2p1_SO,p2, p1, ExtVPFormatSO, ExtVPSize, PartitionSize, Selectivity, Time2);
 				if (Selectivity >= SF)
@@ -600,61 +1273,36 @@ public final class ExtVPLoader extends Loader {
 	}
 
 	/**
-	 * Check if a given table is empty.
-	 * 
-	 * @param Tablename - Name of the table which is checked
-	 * @return true if table is empty.
-	 * 
-	 * @throws IllegalArgumentException
-	 * @throws SQLException
-	 */
-	private boolean isEmpty(String Tablename) throws IllegalArgumentException, SQLException {
-		ResultSet DataSet = impala.select().addProjection("Count(*) AS NrTuples").from(Tablename).execute();
-		boolean Empty = true;
-		DataSet.next();
-		if (Double.parseDouble(DataSet.getString("NrTuples")) != 0) {
-			Empty = false;
-		} else {
-			Empty = true;
-		}
-		return Empty;
-	}
-
-	/**
-	 * Get the size of a given table, or the size of a partition inside the given table based on 
-	 * predicate.
+	 * Get the size of a given table from its table stats, which are written by
+	 * COMPUTE STATS. If the table has no stats, its rows are counted. Sampled
+	 * stats (-ss) only hold an estimate, so the rows are counted as well.
 	 * 
+	 * @param impala - Session used to run the statement.
 	 * @param Tablename - Name of the table.
-	 * @param Predicate - Specified predicate.
 	 * @return table size.
 	 * 
 	 * @throws IllegalArgumentException
 	 * @throws SQLException
 	 */
-	private double TableSize(String Tablename, String Predicate) throws IllegalArgumentException, SQLException {
-		ResultSet DataSet = impala.select().addProjection("Count(*) AS NrTuples").from(Tablename)
-				.where(String.format("%s='%s'", column_name_predicate, Predicate)).execute();
-		double Nrtuples = 0;
-		DataSet.next();
-		Nrtuples = Double.parseDouble(DataSet.getString("NrTuples"));
-		return Nrtuples * 1.0000;
-	}
-	private double TableSize(String Tablename) throws IllegalArgumentException, SQLException {
-		ResultSet DataSet = impala.select().addProjection("Count(*) AS NrTuples").from(Tablename).execute();
-		double Nrtuples = 0;
-		DataSet.next();
-		Nrtuples = Double.parseDouble(DataSet.getString("NrTuples"));
-		return Nrtuples * 1.000;
+	private double TableSize(Impala impala, String Tablename) throws IllegalArgumentException, SQLException {
+		double Nrtuples = stats_sample > 0 ? -1 : impala.rowCount(Tablename);
+		if (Nrtuples < 0) {
+			ResultSet DataSet = impala.select().addProjection("Count(*) AS NrTuples").from(Tablename).execute();
+			DataSet.next();
+			Nrtuples = Double.parseDouble(DataSet.getString("NrTuples"));
+		}
+		return Nrtuples;
 	}
 
 	/**
 	 * Select a specified partition inside a table based on predicate.
 	 * 
+	 * @param impala - Session the statement is bound to.
 	 * @param TableName - Name of the table
 	 * @param Predicate - Specified predicate
 	 * @return Select statement for the partition.
 	 */
-	private SelectStatement SelectPartition(String TableName, String Predicate) {
+	private SelectStatement SelectPartition(Impala impala, String TableName, String Predicate) {
 		SelectStatement result = impala.select(column_name_subject);
 		result.addProjection(column_name_object);
 		result.from(String.format("%s", TableName));
@@ -665,15 +1313,19 @@ public final class ExtVPLoader extends Loader {
 	/**
 	 * Create empty ExtVP table based on predicates and format, without data.
 	 * 
+	 * @param impala - Session the statement is bound to.
 	 * @param Predicate1 - First predicate.
 	 * @param Predicate2 - Second predicate.
 	 * @param ExtVPFormat - ExtVP Format.
 	 * @return Create statement for the ExtVP table.
 	 */
-	private CreateStatement CreateTable(String Predicate1, String Predicate2, String ExtVPFormat, SelectStatement stmt) {
+	private CreateStatement CreateTable(Impala impala, String Predicate1, String Predicate2, String ExtVPFormat, SelectStatement stmt) {
 		CreateStatement cstmt = impala.createTable(TableName(Predicate1, Predicate2, ExtVPFormat)).ifNotExists();
 		cstmt.storedAs(FileFormat.PARQUET);
-		cstmt.asSelect(stmt);
+		if (subject_buckets > 0)
+			cstmt.addPartitionDefinition(column_name_subject_bucket, DataType.BIGINT).asSelect(selectWithSubjectBucket(stmt));
+		else
+			cstmt.asSelect(stmt);
 		return cstmt;
 	}
 
@@ -698,14 +1350,14 @@ public final class ExtVPLoader extends Loader {
 	 * 
 	 * @return New predicate with replaced characters.
 	 */
-	private String RenamePredicates(String Predicate) {
+	public static String RenamePredicates(String Predicate) {
 		// NOT ALLOWED < > : // - / . , | # @ ` ~
 		String RenamedPredicate = Predicate.replaceAll("[<>/.`~#,\\s\\-:\\?]", "_");
 		return RenamedPredicate;
 	}
 
 	/**
-	 * Store empty ExtVP tables in a .txt file.
+	 * Store empty ExtVP tables in the stats table of empty tables.
 	 * 
 	 * @param EmptyTable
 	 * 
@@ -714,66 +1366,21 @@ public final class ExtVPLoader extends Loader {
 	 */
 	private void StoreEmptyTables(String EmptyTable)
 			throws IllegalArgumentException, SQLException {
-
-		try (FileWriter fw = new FileWriter("./EmptyTables_"+String.valueOf(FirstPredicate)+".txt", true);
-				BufferedWriter bw = new BufferedWriter(fw);
-				PrintWriter Append = new PrintWriter(bw)) {
-			Append.println(EmptyTable);
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+		StoreStats("extvp_tableofstats_emptytable", EmptyTable);
 	}
 	
 	/**
-	 * Store the predicate up to which the ExtVP tables are completed.
-	 * 
-	 * @param Pred1Possition - Position of first predicate of ExtVP table in the list of predicates.
-	 * @param Predicate1 - First predicate.
-	 * @param Pred2Possition - Position of second predicate of ExtVP table in the list of predicates.
-	 * @param Predicate2 - Second predicate.
-	 * 
-	 * @throws IllegalArgumentException
-	 * @throws SQLException
-	 */
-	private void PhaseCompleted(int Pred1Possition, String Predicate1, int Pred2Possition, String Predicate2) throws IllegalArgumentException, SQLException {
-		try (FileWriter fw = new FileWriter("./ExtVpCompleted.txt");
-				BufferedWriter bw = new BufferedWriter(fw);
-				PrintWriter Append = new PrintWriter(bw)) {
-			Append.println(String.format("%d,='%s',%d,='%s'", Pred1Possition, Predicate1, Pred2Possition, Predicate2));
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
-
-	/**
-	 * In case loader for ExtVP is executed in several executions, 
-	 * then get the last predicate for which the ExtVP tables have been calculated
-	 * in previous execution. 
-	 * @param PredicatOrder
+	 * In case loader for ExtVP is executed in separated mode, 
+	 * then get the first predicate for which the ExtVP tables have to be calculated. 
 	 * @return
 	 */
-	private int GetCompletedPredicate(int PredicatOrder){
-		if (Predicate_Partition != "All") {
+	private int GetFirstPredicate(){
+		if (!"All".equals(Predicate_Partition)) {
 			String[] Position = Predicate_Partition.split(",");
 			return Integer.parseInt(Position[0]);
 		} 
-		else {
-			int i = 0;
-			int result = 0;
-			if (PredicatOrder == 2)
-				i = 2;
-			try {
-				BufferedReader br = new BufferedReader(new FileReader("./ExtVpCompleted.txt"));
-				String line = br.readLine();
-				String[] CompletedPredicates = line.toLowerCase().split("[,]");
-				result = Integer.parseInt(CompletedPredicates[i]);
-				br.close();
-			} catch (IOException e) {
-				System.err.println(
-						"ExtVpCompleted.txt does not exist or it could not be opened. ExtVPs will start from beginning");
-			}
-			return result;
-		}
+		else
+			return 0;
 	}
 	
 	/**
@@ -783,7 +1390,7 @@ public final class ExtVPLoader extends Loader {
 	 * @return
 	 */
 	private int GetLastPredicate(String PredicatePartition){
-		if (PredicatePartition != "All") {
+		if (!"All".equals(PredicatePartition)) {
 			String[] Position = Predicate_Partition.split(",");
 			try {
 				return Integer.parseInt(Position[1]);
@@ -807,164 +1414,147 @@ public final class ExtVPLoader extends Loader {
 	 * @param VPSize - Partition size based on first predicate.
 	 * @param Selectivity - Selectivity of ExtVP table size compared to partition size.
 	 */
-	private void AddStats(String TableName, String p1, String p2, String ExtVPformat, double ExtVPSize, double VPSize, double Selectivity, double Time){
-		try (FileWriter fw = new FileWriter(String.format("./ExtVpStats_%s_%d.txt", ExtVPformat, FirstPredicate), true);
-				BufferedWriter bw = new BufferedWriter(fw);
-				PrintWriter Append = new PrintWriter(bw)) {
-			Append.println(String.format("%s\t%s_%s\t%f\t%f\t%f\t%f",TableName, p1, p2, ExtVPSize, VPSize, Selectivity, Time));
+	private void AddStats(String TableName, String p1, String p2, String ExtVPformat, double ExtVPSize, double VPSize, double Selectivity, double Time) throws SQLException {
+		if (ExtVPformat.equals("Time"))
+			StoreStats("extvp_tableofstats_time", TableName, p1 + "_" + p2, ExtVPSize, VPSize, Selectivity);
+		else
+			StoreStats("extvp_tableofstats_" + ExtVPformat, TableName, p1 + "_" + p2, ExtVPSize, VPSize, Selectivity, Time);
+	}
+	
+	/**
+	 * Store a row of a stats table. Rows of a pair of predicates are held
+	 * back until the pair is completed, other rows are inserted at once.
+	 * 
+	 * @param StatsTable - Name of the stats table.
+	 * @param Row - Values of the row.
+	 * 
+	 * @throws SQLException
+	 */
+	private void StoreStats(String StatsTable, Object... Row) throws SQLException {
+		HashMap<String, ArrayList<Object[]>> Pending = PendingStats.get();
+		if (Pending == null) {
+			impala.insertInto(StatsTable).addValues(Row).execute();
+			return;
+		}
+		if (!Pending.containsKey(StatsTable))
+			Pending.put(StatsTable, new ArrayList<Object[]>());
+		Pending.get(StatsTable).add(Row);
+	}
+	
+	/**
+	 * Get the name of the journal of the ExtVP loader. The journal is an
+	 * append-only log of the triple table build and the started and completed
+	 * pairs of predicates. Every record is forced to disk before the loader
+	 * continues.
+	 * 
+	 * @return Name of the journal.
+	 */
+	private String JournalFile(){
+		return String.format("./ExtVpJournal_%d.txt", FirstPredicate);
+	}
+	
+	/**
+	 * Append records to the journal and force them to disk.
+	 * 
+	 * @param Records - Lines to be appended, each terminated by a line break.
+	 */
+	private synchronized void Journal(String Records){
+		try (FileOutputStream fos = new FileOutputStream(JournalFile(), true)) {
+			fos.write(Records.getBytes("UTF-8"));
+			fos.getFD().sync();
 		} catch (IOException e) {
+			// Continuing without journal would lose the progress on a restart
 			e.printStackTrace();
+			System.exit(1);
 		}
 	}
 	
 	/**
-	 * Put the statistic files into hdfs directories
-	 * 
-	 * @param DataSetName - Name of Dataset used to create the directory in Stats with the same name
-	 * @throws IllegalArgumentException
-	 * @throws IOException
+	 * Read the journal of previous executions, if there is any. Pairs of
+	 * predicates which were completed are skipped, pairs which were started
+	 * but not completed are recomputed.
 	 */
-	private void StoreInHdfs(String DataSetName) throws IllegalArgumentException, IOException{	
-		int index = DataSetName.lastIndexOf("/");
-		String HdfsFolderName = DataSetName.substring(index);
+	private void ReadJournal(){
+		File journal = new File(JournalFile());
+		if (!journal.exists())
+			return;
 		
-		Runtime rt; 
-
-		try {
-			Thread.sleep(10000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats");
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName);
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName + "/Empty");
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName + "/Time");
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName + "/SS");
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName + "/SO");
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName + "/OS");
-			Thread.sleep(2000);
-			rt = Runtime.getRuntime();
-			rt.exec("hdfs dfs -mkdir ./Stats" + HdfsFolderName + "/OO");
-			Thread.sleep(10000);
-
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName + "/OO");
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName + "/OS");
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName + "/SO");
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName + "/SS");
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName + "/Time");
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName + "/Empty");
-			rt.exec("hadoop fs -chmod 777 ./Stats" + HdfsFolderName);
-			rt.exec("hadoop fs -chmod 777 ./Stats");
-
-			rt.exec("hdfs dfs -put ./EmptyTables_"+String.valueOf(FirstPredicate)+".txt ./Stats" + HdfsFolderName + "/Empty");
-			rt.exec("hdfs dfs -put ./ExtVpStats_Time_"+String.valueOf(FirstPredicate)+".txt ./Stats" + HdfsFolderName + "/Time");
-			rt.exec("hdfs dfs -put ./ExtVpStats_ss_"+String.valueOf(FirstPredicate)+".txt ./Stats" + HdfsFolderName + "/SS");
-			rt.exec("hdfs dfs -put ./ExtVpStats_so_"+String.valueOf(FirstPredicate)+".txt ./Stats" + HdfsFolderName + "/SO");
-			rt.exec("hdfs dfs -put ./ExtVpStats_os_"+String.valueOf(FirstPredicate)+".txt ./Stats" + HdfsFolderName + "/OS");
-			rt.exec("hdfs dfs -put ./ExtVpStats_oo_"+String.valueOf(FirstPredicate)+".txt ./Stats" + HdfsFolderName + "/OO");
-			Thread.sleep(2000);
-		} catch (InterruptedException e) {
+		HashSet<String> Uncompleted = new HashSet<>();
+		try (RandomAccessFile raf = new RandomAccessFile(journal, "rw")) {
+			// Terminate a record torn by a crash, such that new records start on a line of their own
+			if (raf.length() > 0) {
+				raf.seek(raf.length() - 1);
+				if (raf.read() != '\n')
+					raf.write('\n');
+			}
+			raf.seek(0);
+			BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(raf.getFD()), "UTF-8"));
+			String line;
+			while ((line = br.readLine()) != null) {
+				String[] Record = line.split("\t", 3);
+				if (Record.length < 3)
+					continue;
+				String Pair = PairKey(Record[1], Record[2]);
+				if (Record[0].equals("TRIPLETABLE")) {
+					TripleTableCompleted = true;
+				} else if (Record[0].equals("STARTED")) {
+					StartedPairs.add(Pair);
+					Uncompleted.add(Pair);
+				} else if (Record[0].equals("COMPLETED") && Uncompleted.remove(Pair)) {
+					CompletedPairs.add(Pair);
+				}
+			}
+		} catch (IOException e) {
 			e.printStackTrace();
+			System.exit(1);
 		}
+		System.out.println(String.format("Resuming from '%s': %d pairs of predicates completed, %d pairs to be recomputed",
+				JournalFile(), CompletedPairs.size(), Uncompleted.size()));
 	}
-		
+	
 	/**
-	 * Store the ExtVP Loader phase statistics and ExtVP table statistics as a table.
+	 * Get the names of the stats tables.
 	 * 
-	 * @param ExtVPType - Type of statistic (SO, OS, SS, OO, TIME, EMPTY).
+	 * @return Names of the stats tables.
+	 */
+	private ArrayList<String> StatsTables(){
+		ArrayList<String> StatsTables = new ArrayList<>();
+		for (String ExtVPType : new String[] { "ss", "so", "os", "oo", "time", "emptytable" })
+			StatsTables.add("extvp_tableofstats_" + ExtVPType);
+		return StatsTables;
+	}
+	
+	/**
+	 * Create the tables of the ExtVP Loader phase statistics and ExtVP table
+	 * statistics. Rows are inserted into the tables as soon as they are known,
+	 * such that the statistics can be queried while the ExtVP tables are
+	 * still computed.
+	 * 
+	 * @param Recreate - Indicates if existing tables are dropped.
 	 * 
-	 * @throws FileNotFoundException
-	 * @throws IOException
 	 * @throws IllegalArgumentException
 	 * @throws SQLException
 	 */
-	private void CreateStatsTables(String ExtVPType, String DataSetName, String UsersDirectory) throws FileNotFoundException, IOException, IllegalArgumentException, SQLException{
-		int index = DataSetName.lastIndexOf("/");
-		String HdfsFolderName = DataSetName.substring(index);	
-
-		if(ExtVPType=="TIME"){
-			impala.createTable("external_extvp_tableofstats_time").ifNotExists()
-			.external()
-			.addColumnDefinition("Operation_Name", DataType.STRING)
-			.addColumnDefinition("Description", DataType.STRING)
-			.addColumnDefinition("Time", DataType.DOUBLE)
-			.addColumnDefinition("Measured", DataType.DOUBLE)
-			.addColumnDefinition("Seconds", DataType.DOUBLE)
-			.fieldTermintor(field_terminator)
-			.lineTermintor(line_terminator)
-			.location(UsersDirectory+"/Stats"+HdfsFolderName+"/Time/")
-			.execute();
-			
-			impala.createTable("extvp_tableofstats_time").ifNotExists()
-			.storedAs(FileFormat.PARQUET)
-			.addColumnDefinition("Operation_Name", DataType.STRING)
-			.addColumnDefinition("Description", DataType.STRING)
-			.addColumnDefinition("Time", DataType.DOUBLE)
-			.addColumnDefinition("Measured", DataType.DOUBLE)
-			.addColumnDefinition("Seconds", DataType.DOUBLE)
-			.execute();
-			
-			impala
-			.insertOverwrite("extvp_tableofstats_time")
-			.selectStatement(impala.select("Operation_Name")
-			.addProjection("Description")
-			.addProjection("Time") 
-			.addProjection("Measured") 
-			.addProjection("Seconds") 
-			.from("external_extvp_tableofstats_time"))
-			.execute();
-			
-			impala.computeStats("extvp_tableofstats_time");
-			
-			impala.dropTable("external_extvp_tableofstats_time");
-		}
-		else if(ExtVPType=="EMPTY"){
-			impala.createTable("external_extvp_tableofstats_emptytable").ifNotExists()
-			.external()
-			.addColumnDefinition("ExtVPTable_Name", DataType.STRING)
-			.lineTermintor(line_terminator)
-			.location(UsersDirectory+"/Stats"+HdfsFolderName+"/Empty/")
-			.execute();
-			
-			impala.createTable("extvp_tableofstats_emptytable").ifNotExists()
-			.storedAs(FileFormat.PARQUET)
-			.addColumnDefinition("ExtVPTable_Name", DataType.STRING)
-			.execute();
-			
-			impala
-			.insertOverwrite("extvp_tableofstats_emptytable")
-			.selectStatement(impala.select("ExtVPTable_Name")
-			.from("external_extvp_tableofstats_emptytable"))
-			.execute();
-			
-			impala.computeStats("extvp_tableofstats_emptytable");
-			
-			impala.dropTable("external_extvp_tableofstats_emptytable");
-		}
-		else{
-			impala.createTable("external_extvp_tableofstats_"+ExtVPType).ifNotExists()
-			.external()
-			.addColumnDefinition("ExtVPTable_Name", DataType.STRING)
-			.addColumnDefinition("ExtVPTable_Predicates", DataType.STRING)
-			.addColumnDefinition("ExtVPTable_Nr_Tuples", DataType.DOUBLE)
-			.addColumnDefinition("Partition_Nr_Tuples", DataType.DOUBLE)
-			.addColumnDefinition("ExtVPTable_SF", DataType.DOUBLE)
-			.addColumnDefinition("ExtVPTable_Time", DataType.DOUBLE)
-			.fieldTermintor(field_terminator)
-			.lineTermintor(line_terminator)
-			.location(UsersDirectory+"/Stats"+HdfsFolderName+"/"+ExtVPType+"/")
-			.execute();
-			
+	private void CreateStatsTables(boolean Recreate) throws IllegalArgumentException, SQLException{
+		if (Recreate)
+			for (String StatsTable : StatsTables())
+				impala.dropTableIfExists(StatsTable);
+		
+		impala.createTable("extvp_tableofstats_time").ifNotExists()
+		.storedAs(FileFormat.PARQUET)
+		.addColumnDefinition("Operation_Name", DataType.STRING)
+		.addColumnDefinition("Description", DataType.STRING)
+		.addColumnDefinition("Time", DataType.DOUBLE)
+		.addColumnDefinition("Measured", DataType.DOUBLE)
+		.addColumnDefinition("Seconds", DataType.DOUBLE)
+		.execute();
+		
+		impala.createTable("extvp_tableofstats_emptytable").ifNotExists()
+		.storedAs(FileFormat.PARQUET)
+		.addColumnDefinition("ExtVPTable_Name", DataType.STRING)
+		.execute();
+		
+		for (String ExtVPType : new String[] { "ss", "so", "os", "oo" }) {
 			impala.createTable("extvp_tableofstats_"+ExtVPType)
 			.ifNotExists()
 			.storedAs(FileFormat.PARQUET)
@@ -975,21 +1565,24 @@ public final class ExtVPLoader extends Loader {
 			.addColumnDefinition("ExtVPTable_SF", DataType.DOUBLE)
 			.addColumnDefinition("ExtVPTable_Time", DataType.DOUBLE)
 			.execute();
-			
-			impala
-			.insertOverwrite("extvp_tableofstats_"+ExtVPType)
-			.selectStatement(impala.select("ExtVPTable_Name")
-			.addProjection("ExtVPTable_Predicates")
-			.addProjection("ExtVPTable_Nr_Tuples") 
-			.addProjection("Partition_Nr_Tuples") 
-			.addProjection("ExtVPTable_SF") 
-			.addProjection("ExtVPTable_Time")
-			.from("external_extvp_tableofstats_"+ExtVPType))
-			.execute();
-			
-			impala.computeStats("extvp_tableofstats_"+ExtVPType);
-			
-			impala.dropTable("external_extvp_tableofstats_"+ExtVPType);
 		}
 	}
+	
+	/**
+	 * Rewrite a stats table into few files. Every insert of rows creates a
+	 * file of its own.
+	 * 
+	 * @param StatsTable - Name of the stats table.
+	 * 
+	 * @throws IllegalArgumentException
+	 * @throws SQLException
+	 */
+	private void CompactStatsTable(String StatsTable) throws IllegalArgumentException, SQLException{
+		impala
+		.insertOverwrite(StatsTable)
+		.selectStatement(impala.select("*").from(StatsTable))
+		.execute();
+		
+		computeStats(impala, StatsTable);
+	}
 }
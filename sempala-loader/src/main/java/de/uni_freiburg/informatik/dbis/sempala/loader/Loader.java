@@ -3,14 +3,33 @@ package de.uni_freiburg.informatik.dbis.sempala.loader;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import de.uni_freiburg.informatik.dbis.sempala.loader.spark.TripleTableWriter;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.Impala;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.InsertStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.SelectStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.DataType;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.FileFormat;
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.HivePrefixCompressFunction;
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.PrefixTrie;
 
 /**
  * 
@@ -43,6 +62,33 @@ public abstract class Loader {
 
 	/** The separator of the lines in the rdf data */
 	public String line_terminator = "\\n";
+
+	/** Parses the rdf data with spark instead of staging it in impala */
+	public TripleTableWriter triple_table_writer;
+
+	/** Indicates if the terms are to be replaced by ids of a dictionary */
+	public boolean dictionary_encoding;
+
+	/** Indicates if the input is appended to the tables of a previous load */
+	public boolean append;
+
+	/** Indicates if the property table is built with one join per property instead of one aggregation */
+	public boolean join_properties;
+
+	/** Indicates if the correlations of the single table are stored as bitmaps instead of one column per predicate */
+	public boolean bitmap;
+
+	/** Indicates if typed literals are parsed into typed columns next to the object */
+	public boolean typed_literals;
+
+	/** Indicates if a replica of the triple table sorted by object is built */
+	public boolean object_replica;
+
+	/** Indicates if the rdf:type triples are stored in a table partitioned by class */
+	public boolean type_partitions;
+
+	/** The number of buckets the subjects are hashed into, 0 if the tables are not bucketed */
+	public int subject_buckets = 0;
 	
 	
 	/*
@@ -51,6 +97,91 @@ public abstract class Loader {
 	
 	/** The table name of the triple table */
 	protected static final String tablename_triple_table = "tripletable";
+
+	/** The table name of the replica of the triple table sorted by object */
+	public static final String tablename_object_triple_table = "tripletable_os";
+
+	/** The table name of the rdf:type triples partitioned by class */
+	public static final String tablename_type_triple_table = "tripletable_type";
+
+	/** The IRI of rdf:type as it is written in the rdf data */
+	protected static final String rdf_type = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+
+	/** The table name of the triple table before dictionary encoding */
+	protected static final String tablename_term_triple_table = "tripletable_terms";
+
+	/** The table name of the triples appended to the triple table */
+	protected static final String tablename_delta_triple_table = "tripletable_delta";
+
+	/** The table name of the appended triples before dictionary encoding */
+	protected static final String tablename_term_delta_triple_table = "tripletable_delta_terms";
+
+	/** The table name of the dictionary (id to term) */
+	public static final String tablename_dictionary = "dictionary";
+
+	/** The name of the id column of the dictionary */
+	public static final String column_name_id = "id";
+
+	/** The name of the term column of the dictionary */
+	public static final String column_name_term = "term";
+
+	/** The table name of the terms to be added to the dictionary with their bucket */
+	protected static final String tablename_dictionary_terms = "dictionary_terms";
+
+	/** The table name of the first id of every bucket of new terms */
+	protected static final String tablename_dictionary_offsets = "dictionary_offsets";
+
+	/** The name of the bucket column of the new terms */
+	protected static final String column_name_term_bucket = "bucket";
+
+	/** The name of the column of the first id of a bucket */
+	protected static final String column_name_offset = "first_id";
+
+	/** The number of buckets the new terms are numbered in independently */
+	protected static final int dictionary_buckets = 256;
+
+	/** The table name of the statistics of the predicates */
+	public static final String tablename_predicate_stats = "predicate_stats";
+
+	/** The names of the columns of the statistics of the predicates */
+	public static final String column_name_triples = "triples";
+	public static final String column_name_distinct_subjects = "distinct_subjects";
+	public static final String column_name_distinct_objects = "distinct_objects";
+	public static final String column_name_max_multiplicity = "max_multiplicity";
+	public static final String column_name_avg_multiplicity = "avg_multiplicity";
+	public static final String column_name_top_objects = "top_objects";
+
+	/** The number of most frequent objects kept in the statistics of a predicate */
+	public static final int stats_top_objects = 10;
+
+	/** The names of the columns of a table of predicate bits */
+	public static final String column_name_word = "word";
+	public static final String column_name_mask = "mask";
+
+	/** The names of the columns of the numeric and date values of typed literals */
+	public static final String column_name_object_numeric = "o_num";
+	public static final String column_name_object_date = "o_date";
+
+	/** The suffixes of the property table columns of the numeric and date values */
+	public static final String column_suffix_numeric = "_num";
+	public static final String column_suffix_date = "_date";
+
+	/** The local names of the xsd datatypes parsed as numbers */
+	private static final String datatypes_numeric = "integer|decimal|double|float|int|long|short|byte"
+			+ "|nonNegativeInteger|positiveInteger|nonPositiveInteger|negativeInteger"
+			+ "|unsignedLong|unsignedInt|unsignedShort|unsignedByte";
+
+	/** The local names of the xsd datatypes parsed as timestamps */
+	private static final String datatypes_date = "dateTime|date";
+
+	/** The name of the partition column of the subject buckets */
+	public static final String column_name_subject_bucket = "s_bucket";
+
+	/** The name of the impala function replacing the prefixes */
+	protected static final String function_name_prefix_compress = "prefix_compress";
+
+	/** The HDFS directory (relative to the users folder) of the function jar */
+	protected static final String directory_name_udf = "sempala_udf";
 	
 	/** The name used for RDF subject columns */
 	public String column_name_subject = "s";
@@ -91,6 +222,51 @@ public abstract class Loader {
 	
 	/** The value of threshold*/
 	public String Predicate_Partition = "All";
+
+	/** The number of impala connections used to compute ExtVP tables */
+	public int connections = 1;
+
+	/** Indicates if the ExtVP tables of a predicate are computed by one statement per type */
+	public boolean extvp_multi_output;
+
+	/** Indicates if the ExtVP tables are stored as partitions of one table */
+	public boolean extvp_partitioned;
+
+	/** The predicates with typed columns for their numeric and date values in the property tables */
+	protected final HashSet<String> numeric_predicates = new HashSet<String>();
+	protected final HashSet<String> date_predicates = new HashSet<String>();
+
+	/** The maximal number of characteristic set tables */
+	public int characteristic_tables = 32;
+
+	/** The policy of computing the optimization stats of the tables */
+	public StatsPolicy stats_policy = StatsPolicy.FULL;
+
+	/** The percentage of the data files sampled for the optimization stats, 0 scans all files */
+	public int stats_sample = 0;
+
+	/** The tables whose stats are deferred to {@link #computeDeferredStats()} */
+	private final ConcurrentLinkedQueue<String> deferred_stats = new ConcurrentLinkedQueue<String>();
+
+	/** The number of tables with computed and with skipped stats and the time spent on stats */
+	private final AtomicLong stats_tables = new AtomicLong();
+	private final AtomicLong stats_skipped = new AtomicLong();
+	private final AtomicLong stats_millis = new AtomicLong();
+
+	/** The policies of computing the optimization stats of the tables */
+	public enum StatsPolicy {
+		/** The stats of every table are computed right after it is written */
+		FULL,
+		/** The stats of intermediate tables, which are dropped after loading, are skipped */
+		OUTPUT,
+		/** Like OUTPUT, the stats of the ExtVP tables are computed concurrently after all of them are written */
+		DEFERRED;
+
+		@Override
+		public String toString() {
+			return super.toString().toLowerCase();
+		}
+	}
 	
 	/** The constructor */
 	public Loader(Impala wrapper, String hdfsLocation) {
@@ -110,7 +286,94 @@ public abstract class Loader {
 	 */
 	protected void buildTripleTable() throws SQLException {
 
-		final String tablename_external_tripletable = "external_tripletable";
+		// Read the prefix file if there is one
+		Map<String, String> prefix_map = (prefix_file != null) ? readPrefixFile(prefix_file) : null;
+		if (prefix_map != null)
+			System.out.println(String.format("Read %d prefixes from '%s'", prefix_map.size(), prefix_file));
+
+		if (triple_table_writer != null)
+			buildTripleTableFromParquet(prefix_map);
+		else
+			buildTripleTableFromText(prefix_map, tablename_triple_table);
+
+		if (dictionary_encoding)
+			encodeTripleTable(tablename_triple_table, tablename_term_triple_table);
+
+		if (object_replica)
+			buildObjectTripleTable();
+
+		if (type_partitions)
+			buildTypeTripleTable((prefix_map != null) ? new PrefixTrie(prefix_map).compress(rdf_type) : rdf_type);
+
+		buildPredicateStats();
+	}
+
+	/**
+	 * Appends RDF data to the triple table of a previous load.
+	 *
+	 * The new triples are staged in the delta triple table first, which is
+	 * kept for the loaders updating the tables derived from the triple table.
+	 * They are inserted into their predicate partitions, so only partitions
+	 * of predicates occurring in the new data are written. If duplicates are
+	 * to be ignored, triples already in the triple table are skipped as well.
+	 *
+	 * @throws SQLException
+	 */
+	protected void appendTripleTable() throws SQLException {
+
+		// Read the prefix file if there is one
+		Map<String, String> prefix_map = (prefix_file != null) ? readPrefixFile(prefix_file) : null;
+		if (prefix_map != null)
+			System.out.println(String.format("Read %d prefixes from '%s'", prefix_map.size(), prefix_file));
+
+		// Drop the staging tables of a previous append
+		impala.dropTableIfExists(String.format("external_%s", tablename_delta_triple_table));
+		impala.dropTableIfExists(tablename_term_delta_triple_table);
+		impala.dropTableIfExists(tablename_delta_triple_table);
+
+		buildTripleTableFromText(prefix_map, tablename_delta_triple_table);
+
+		if (dictionary_encoding)
+			encodeTripleTable(tablename_delta_triple_table, tablename_term_delta_triple_table);
+
+		System.out.print(String.format("Appending '%s' to '%s'", tablename_delta_triple_table, tablename_triple_table));
+		long timestamp = System.currentTimeMillis();
+		SelectStatement ss = impala
+				.select(String.format("delta.%s", column_name_subject))
+				.addProjection(String.format("delta.%s", column_name_object));
+		for (String column : typedObjectColumns())
+			ss.addProjection(String.format("delta.%s", column));
+		ss.addProjection(String.format("delta.%s", column_name_predicate));
+		if (subject_buckets > 0)
+			ss.addProjection(String.format("delta.%s", column_name_subject_bucket));
+		ss.from(String.format("%s delta", tablename_delta_triple_table));
+		if (unique)
+			ss.leftAntiJoin(String.format("%s tt", tablename_triple_table),
+					String.format("delta.%1$s = tt.%1$s AND delta.%2$s = tt.%2$s AND delta.%3$s = tt.%3$s",
+							column_name_subject, column_name_predicate, column_name_object),
+					shuffle);
+		InsertStatement insert = impala
+				.insertInto(tablename_triple_table)
+				.addPartition(column_name_predicate);
+		if (subject_buckets > 0)
+			insert.addPartition(column_name_subject_bucket);
+		insert.selectStatement(ss).execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeIncrementalStats(tablename_triple_table);
+
+		updatePredicateStats();
+	}
+
+	/**
+	 * Builds the triple table by staging the rdf data in an external table.
+	 *
+	 * @param prefix_map The prefixes to replace or null
+	 * @param tablename The name of the triple table to build
+	 * @throws SQLException
+	 */
+	private void buildTripleTableFromText(Map<String, String> prefix_map, String tablename) throws SQLException {
+
+		final String tablename_external_tripletable = String.format("external_%s", tablename);
 
 		// Import the table from hdfs into impala
 		System.out.println(String.format("Creating external table '%s' from hdfs data", tablename_external_tripletable));
@@ -124,43 +387,22 @@ public abstract class Loader {
 		.lineTermintor(line_terminator)
 		.location(hdfs_input_directory)
 		.execute();
-		impala.computeStats(tablename_external_tripletable);
+		computeStagingStats(tablename_external_tripletable);
 
-		
-		// Read the prefix file if there is one
-		Map<String, String> prefix_map = null;
-		if (prefix_file != null) {
-			// Get the prefixes and remove braces from long format
-			prefix_map = new HashMap<String, String>();
-			try {
-				BufferedReader br = new BufferedReader(new FileReader(prefix_file));
-				for (String line; (line = br.readLine()) != null;) {
-					String[] splited = line.split("\\s+");
-					if (splited.length < 2){
-						System.out.printf("Line in prefix file has invalid format. Skip. ('%s')\n", line);
-						continue;
-					}
-					prefix_map.put(splited[1].substring(1, splited[1].length() - 1), splited[0]);
-				}
-				br.close();
-			} catch (IOException e) {
-				System.err.println("[ERROR] Could not open prefix file. Reason: " + e.getMessage());
-				System.exit(1);
-			}
-		}
-
-		// Create a new parquet table, partitioned by predicate");
-		System.out.print(String.format("Creating internal partitioned table '%s' from '%s'", tablename_triple_table, tablename_external_tripletable));
+		// Create a new parquet table, partitioned by predicate (and subject bucket)
+		System.out.print(String.format("Creating internal partitioned table '%s' from '%s'", tablename, tablename_external_tripletable));
 		
 		long timestamp = System.currentTimeMillis();
-		impala
-		.createTable(tablename_triple_table)
-		.ifNotExists()
-		.storedAs(FileFormat.PARQUET)
-		.addColumnDefinition(column_name_subject, DataType.STRING)
-		.addColumnDefinition(column_name_object, DataType.STRING)
-		.addPartitionDefinition(column_name_predicate, DataType.STRING)
-		.execute();
+		CreateStatement cstmt = partitionBySubjectBucket(addTypedObjectColumns(impala
+				.createTable(tablename)
+				.ifNotExists()
+				.storedAs(FileFormat.PARQUET)
+				.addColumnDefinition(column_name_subject, DataType.STRING)
+				.addColumnDefinition(column_name_object, DataType.STRING))
+				.addPartitionDefinition(column_name_predicate, DataType.STRING));
+		if (object_replica)
+			cstmt.sortBy(column_name_subject);
+		cstmt.execute();
 
 		// First create a select statement for the INSERT statement.
 		SelectStatement ss;
@@ -173,58 +415,754 @@ public abstract class Loader {
 		// Replace prefixes
 		if (prefix_map != null) {
 			// Build a select statement _WITH_ prefix replaced values
+			String hdfs_prefix_file = createPrefixFunction();
 			ss = impala
-					.select(prefixHelper(column_name_subject, prefix_map))
-					.addProjection(prefixHelper(column_name_object_dot_stripped, prefix_map))
-					.addProjection(prefixHelper(column_name_predicate, prefix_map));
+					.select(String.format("%s AS %s", prefixHelper(column_name_subject, hdfs_prefix_file), column_name_subject))
+					.addProjection(prefixHelper(column_name_object_dot_stripped, hdfs_prefix_file));
+			addTypedObjectValues(ss, column_name_object_dot_stripped);
+			ss.addProjection(prefixHelper(column_name_predicate, hdfs_prefix_file));
 		} else {
 			// Build a select statement _WITH_OUT_ prefix replaced values
 			ss = impala
 					.select(column_name_subject)
-					.addProjection(column_name_object_dot_stripped)
-					.addProjection(column_name_predicate);
+					.addProjection(column_name_object_dot_stripped);
+			addTypedObjectValues(ss, column_name_object_dot_stripped);
+			ss.addProjection(column_name_predicate);
 		}
 		if (unique)
 			ss.distinct();
 		ss.from(tablename_external_tripletable);
 
 		// Now insert the data into the new table
+		InsertStatement insert = impala
+				.insertOverwrite(tablename)
+				.addPartition(column_name_predicate);
+		if (subject_buckets > 0)
+			insert.addPartition(column_name_subject_bucket).selectStatement(selectWithSubjectBucket(ss));
+		else
+			insert.selectStatement(ss);
+		insert.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename);
+
+		// Drop intermediate tables
+		if (!keep)
+			impala.dropTable(tablename_external_tripletable);
+	}
+
+	/**
+	 * Builds the triple table from the parquet files written by the native
+	 * N-Triples parser.
+	 *
+	 * The parser already strips the dot and replaces the prefixes, so the
+	 * parquet files can be used as they are. The triple table is created as
+	 * an internal table on top of their location and the predicate partitions
+	 * are added to the metastore.
+	 *
+	 * @param prefix_map The prefixes to replace or null
+	 * @throws SQLException
+	 */
+	private void buildTripleTableFromParquet(Map<String, String> prefix_map) throws SQLException {
+		triple_table_writer.column_name_subject = column_name_subject;
+		triple_table_writer.column_name_predicate = column_name_predicate;
+		triple_table_writer.column_name_object = column_name_object;
+		triple_table_writer.prefix_map = prefix_map;
+		triple_table_writer.unique = unique;
+		triple_table_writer.write();
+
+		System.out.print(String.format("Creating internal partitioned table '%s' from '%s'", tablename_triple_table, triple_table_writer.getOutputDirectory()));
+		long timestamp = System.currentTimeMillis();
 		impala
-		.insertOverwrite(tablename_triple_table)
-		.addPartition(column_name_predicate)
-		.selectStatement(ss)
+		.createTable(tablename_triple_table)
+		.ifNotExists()
+		.storedAs(FileFormat.PARQUET)
+		.addColumnDefinition(column_name_subject, DataType.STRING)
+		.addColumnDefinition(column_name_object, DataType.STRING)
+		.addPartitionDefinition(column_name_predicate, DataType.STRING)
+		.location(triple_table_writer.getOutputDirectory())
 		.execute();
 		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
-		impala.computeStats(tablename_triple_table);
+		impala.recoverPartitions(tablename_triple_table);
+		computeStats(impala, tablename_triple_table);
+	}
+
+	/**
+	 * Replaces the terms of the triple table by ids.
+	 *
+	 * Every distinct subject and object gets a BIGINT id in the dictionary
+	 * table, see {@link #addTermIds(String, String)}. The triple table is
+	 * then rebuilt with the ids in place of the terms, so every table derived
+	 * from it joins on BIGINT instead of long strings. The predicate
+	 * stays a STRING since it is a partition key and table and column names
+	 * are derived from it.
+	 *
+	 * When appending, the terms which are not in the dictionary yet get ids
+	 * following the largest id of the dictionary.
+	 *
+	 * @param tablename The name of the triple table to encode
+	 * @param tablename_terms The name of the triple table before encoding
+	 * @throws SQLException
+	 */
+	private void encodeTripleTable(String tablename, String tablename_terms) throws SQLException {
+		impala.renameTable(tablename, tablename_terms);
+
+		String terms = String.format("(SELECT %1$s AS %3$s FROM %4$s UNION SELECT %2$s AS %3$s FROM %4$s) terms",
+				column_name_subject, column_name_object, column_name_term, tablename_terms);
+		addTermIds(terms, tablename_terms);
+
+		System.out.print(String.format("Creating encoded partitioned table '%s' from '%s'", tablename, tablename_terms));
+		long timestamp = System.currentTimeMillis();
+		CreateStatement cstmt = partitionBySubjectBucket(addTypedObjectColumns(impala
+				.createTable(tablename)
+				.ifNotExists()
+				.storedAs(FileFormat.PARQUET)
+				.addColumnDefinition(column_name_subject, DataType.BIGINT)
+				.addColumnDefinition(column_name_object, DataType.BIGINT))
+				.addPartitionDefinition(column_name_predicate, DataType.STRING));
+		if (object_replica)
+			cstmt.sortBy(column_name_subject);
+		cstmt.execute();
+		SelectStatement encoded = impala
+				.select(String.format("ds.%s", column_name_id))
+				.addProjection(String.format("do.%s", column_name_id));
+		// The typed values are taken from the terms
+		for (String column : typedObjectColumns())
+			encoded.addProjection(String.format("tt.%s", column));
+		encoded.addProjection(String.format("tt.%s", column_name_predicate))
+				.from(String.format("%s tt", tablename_terms))
+				.join(String.format("%s ds", tablename_dictionary),
+						String.format("tt.%s = ds.%s", column_name_subject, column_name_term), shuffle)
+				.join(String.format("%s do", tablename_dictionary),
+						String.format("tt.%s = do.%s", column_name_object, column_name_term), shuffle);
+		InsertStatement insert = impala
+				.insertOverwrite(tablename)
+				.addPartition(column_name_predicate);
+		if (subject_buckets > 0) {
+			encoded.addProjection(subjectBucket(String.format("ds.%s", column_name_id)));
+			insert.addPartition(column_name_subject_bucket);
+		}
+		insert.selectStatement(encoded).execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename);
 
 		// Drop intermediate tables
 		if (!keep)
-			impala.dropTable(tablename_external_tripletable);
+			impala.dropTable(tablename_terms);
 	}
 
 	/**
-	 * Creates the enormous prefix replace case statements for
-	 * buildTripleStoreTable.
+	 * Gives the terms which are not in the dictionary yet an id and adds them
+	 * to the dictionary, which is created if it does not exist.
 	 *
-	 * buildTripleStoreTable makes use of regex_replace in its select clause
-	 * which is dynamically created for each column. This function takes over
-	 * this part to not violate DRY principle.
+	 * A single row_number() over all terms would sort every term on one node.
+	 * Instead the new terms are hashed into {@value #dictionary_buckets}
+	 * buckets, which are numbered independently. Every bucket starts at the
+	 * sum of the sizes of the buckets before it, following the largest id of
+	 * the dictionary. So the ids are dense and unique, but not in the order
+	 * of the terms.
 	 *
-	 * Note: Replace this with lambdas in Java 8.
+	 * @param terms The distinct terms as FROM expression "terms" with the
+	 *            column of the term
+	 * @param tablename_terms The name of the triple table of the terms
+	 * @throws SQLException
+	 */
+	private void addTermIds(String terms, String tablename_terms) throws SQLException {
+		impala.dropTableIfExists(tablename_dictionary_terms);
+		impala.dropTableIfExists(tablename_dictionary_offsets);
+
+		// The new terms with their bucket
+		System.out.print(String.format("Creating table '%s' from '%s'", tablename_dictionary_terms, tablename_terms));
+		long timestamp = System.currentTimeMillis();
+		SelectStatement new_terms = impala
+				.select(String.format("terms.%s", column_name_term))
+				.addProjection(String.format("pmod(fnv_hash(terms.%s), %d) AS %s", column_name_term, dictionary_buckets, column_name_term_bucket))
+				.from(terms);
+		if (append)
+			new_terms.leftAntiJoin(String.format("%s d", tablename_dictionary),
+					String.format("terms.%1$s = d.%1$s", column_name_term), shuffle);
+		impala
+		.createTable(tablename_dictionary_terms)
+		.storedAs(FileFormat.PARQUET)
+		.asSelect(new_terms)
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStagingStats(tablename_dictionary_terms);
+
+		// The first id of every bucket, the prefix sum of the bucket sizes
+		String max_id = append
+				? String.format("(SELECT COALESCE(MAX(%s), 0) AS max_id FROM %s) m", column_name_id, tablename_dictionary)
+				: "(SELECT CAST(0 AS BIGINT) AS max_id) m";
+		System.out.print(String.format("Creating table '%s'", tablename_dictionary_offsets));
+		timestamp = System.currentTimeMillis();
+		impala
+		.createTable(tablename_dictionary_offsets)
+		.storedAs(FileFormat.PARQUET)
+		.asSelect(
+				impala
+				.select(String.format("b.%s", column_name_term_bucket))
+				.addProjection(String.format("m.max_id + SUM(b.bucket_size) OVER (ORDER BY b.%s) - b.bucket_size AS %s",
+						column_name_term_bucket, column_name_offset))
+				.from(String.format("(SELECT %1$s, COUNT(*) AS bucket_size FROM %2$s GROUP BY %1$s) b",
+						column_name_term_bucket, tablename_dictionary_terms))
+				.crossJoin(max_id, false))
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		// Number the terms of every bucket on its own
+		if (append)
+			System.out.print(String.format("Adding the terms of '%s' to dictionary '%s'", tablename_terms, tablename_dictionary));
+		else
+			System.out.print(String.format("Creating dictionary '%s' from '%s'", tablename_dictionary, tablename_terms));
+		timestamp = System.currentTimeMillis();
+		SelectStatement ids = impala
+				.select(String.format("o.%s + row_number() OVER (PARTITION BY t.%s ORDER BY t.%s) AS %s",
+						column_name_offset, column_name_term_bucket, column_name_term, column_name_id))
+				.addProjection(String.format("t.%s", column_name_term))
+				.from(String.format("%s t", tablename_dictionary_terms))
+				.join(String.format("%s o", tablename_dictionary_offsets),
+						String.format("t.%1$s = o.%1$s", column_name_term_bucket), false);
+		if (append)
+			impala.insertInto(tablename_dictionary).selectStatement(ids).execute();
+		else
+			impala.createTable(tablename_dictionary).storedAs(FileFormat.PARQUET).asSelect(ids).execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_dictionary);
+
+		// Drop intermediate tables
+		if (!keep) {
+			impala.dropTable(tablename_dictionary_terms);
+			impala.dropTable(tablename_dictionary_offsets);
+		}
+	}
+
+	/**
+	 * Builds a replica of the triple table sorted by object.
 	 *
-	 * @param column_name The column name for which to create the case statement
-	 * 
-	 * @return The complete CASE statement for this column
-	 */
-	private static String prefixHelper(String column_name, Map<String, String> prefix_map) {
-		// For each prefix append a case with a regex_replace stmt
-		StringBuilder case_clause_builder = new StringBuilder();
-		for (Map.Entry<String, String> entry : prefix_map.entrySet()) {
-			case_clause_builder.append(String.format(
-					"\n\t WHEN %1$s LIKE '<%2$s%%'" + "\n\t THEN regexp_replace(translate(%1$s, '<>', ''), '%2$s', '%3$s')",
-					column_name, entry.getKey(), entry.getValue()));
+	 * The triple table is sorted by subject, so the parquet min/max statistics
+	 * of its row groups only skip row groups of lookups by subject. The rows
+	 * of every predicate partition of the replica are sorted by object, so a
+	 * triple pattern with a bound object skips the row groups of the replica
+	 * instead of scanning the whole partition.
+	 *
+	 * @throws SQLException
+	 */
+	private void buildObjectTripleTable() throws SQLException {
+		impala.dropTableIfExists(tablename_object_triple_table);
+		System.out.print(String.format("Creating replica '%s' of '%s' sorted by object", tablename_object_triple_table, tablename_triple_table));
+		long timestamp = System.currentTimeMillis();
+		partitionBySubjectBucket(addTypedObjectColumns(impala
+				.createTable(tablename_object_triple_table)
+				.storedAs(FileFormat.PARQUET)
+				.addColumnDefinition(column_name_subject, termDataType())
+				.addColumnDefinition(column_name_object, termDataType()))
+				.addPartitionDefinition(column_name_predicate, DataType.STRING))
+		.sortBy(column_name_object)
+		.execute();
+		SelectStatement ss = impala
+				.select(column_name_subject)
+				.addProjection(column_name_object);
+		for (String column : typedObjectColumns())
+			ss.addProjection(column);
+		ss.addProjection(column_name_predicate)
+				.from(tablename_triple_table);
+		InsertStatement insert = impala
+				.insertOverwrite(tablename_object_triple_table)
+				.addPartition(column_name_predicate);
+		if (subject_buckets > 0) {
+			ss.addProjection(column_name_subject_bucket);
+			insert.addPartition(column_name_subject_bucket);
+		}
+		insert.selectStatement(ss).execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_object_triple_table);
+	}
+
+	/**
+	 * Builds the table of the rdf:type triples partitioned by class.
+	 *
+	 * rdf:type usually is the largest predicate, while its object is bound in
+	 * almost every triple pattern. The subjects of every class are stored in
+	 * their own partition, so a lookup of a class reads only this partition
+	 * instead of the whole rdf:type partition of the triple table.
+	 *
+	 * @param type_predicate rdf:type as it is stored in the triple table
+	 * @throws SQLException
+	 */
+	private void buildTypeTripleTable(String type_predicate) throws SQLException {
+		impala.dropTableIfExists(tablename_type_triple_table);
+		System.out.print(String.format("Creating table '%s' of the classes of '%s'", tablename_type_triple_table, type_predicate));
+		long timestamp = System.currentTimeMillis();
+		partitionBySubjectBucket(impala
+				.createTable(tablename_type_triple_table)
+				.storedAs(FileFormat.PARQUET)
+				.addColumnDefinition(column_name_subject, termDataType())
+				.addPartitionDefinition(column_name_object, termDataType()))
+		.sortBy(column_name_subject)
+		.execute();
+		SelectStatement ss = impala
+				.select(column_name_subject)
+				.addProjection(column_name_object)
+				.from(tablename_triple_table)
+				.where(String.format("%s = '%s'", column_name_predicate, type_predicate));
+		InsertStatement insert = impala
+				.insertOverwrite(tablename_type_triple_table)
+				.addPartition(column_name_object);
+		if (subject_buckets > 0) {
+			ss.addProjection(column_name_subject_bucket);
+			insert.addPartition(column_name_subject_bucket);
+		}
+		insert.selectStatement(ss).execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_type_triple_table);
+	}
+
+	/**
+	 * Adds the columns of the typed values of the object if typed literals are
+	 * parsed, see {@link #addTypedObjectValues(SelectStatement, String)}.
+	 *
+	 * @param cstmt The create statement of a triple table
+	 * @return The create statement
+	 */
+	protected CreateStatement addTypedObjectColumns(CreateStatement cstmt) {
+		if (typed_literals) {
+			cstmt.addColumnDefinition(column_name_object_numeric, DataType.DOUBLE);
+			cstmt.addColumnDefinition(column_name_object_date, DataType.TIMESTAMP);
+		}
+		return cstmt;
+	}
+
+	/**
+	 * @return The names of the columns of the typed values of the object or
+	 *         none if typed literals are not parsed
+	 */
+	protected ArrayList<String> typedObjectColumns() {
+		ArrayList<String> columns = new ArrayList<String>();
+		if (typed_literals) {
+			columns.add(column_name_object_numeric);
+			columns.add(column_name_object_date);
 		}
-		return String.format("CASE %s \n\tELSE %s\n\tEND", case_clause_builder.toString(), column_name);
+		return columns;
+	}
+
+	/**
+	 * Adds the typed values of an object term to a select statement if typed
+	 * literals are parsed.
+	 *
+	 * Literals of the numeric xsd datatypes are parsed into a DOUBLE, literals
+	 * of xsd:dateTime and xsd:date into a TIMESTAMP (without time zone). The
+	 * values are NULL for all other terms. The datatype may be written as full
+	 * IRI or with a prefix. Range filters compare these columns, so the parquet
+	 * min/max statistics skip row groups.
+	 *
+	 * @param sstmt The select statement
+	 * @param column The column or expression of the object term
+	 */
+	protected void addTypedObjectValues(SelectStatement sstmt, String column) {
+		if (!typed_literals)
+			return;
+		String lexical = String.format("regexp_extract(%s, '^\"([^\"]*)\"', 1)", column);
+		sstmt.addProjection(String.format("CASE WHEN %s RLIKE '\\\\^\\\\^\\\\S*[#:](%s)>?$' THEN CAST(%s AS DOUBLE) END AS %s",
+				column, datatypes_numeric, lexical, column_name_object_numeric));
+		sstmt.addProjection(String.format("CASE WHEN %s RLIKE '\\\\^\\\\^\\\\S*[#:](%s)>?$' THEN CAST(regexp_replace(substr(%s, 1, 19), 'T', ' ') AS TIMESTAMP) END AS %s",
+				column, datatypes_date, lexical, column_name_object_date));
+	}
+
+	/**
+	 * Returns the bucket of a subject, i.e. its hash modulo the number of
+	 * buckets. All tables compute it the same way, so the rows of a subject
+	 * are in the same bucket of every table.
+	 *
+	 * @param column The column or expression of the subject
+	 * @return The expression of the bucket
+	 */
+	protected String subjectBucket(String column) {
+		return String.format("pmod(fnv_hash(%s), %d)", column, subject_buckets);
+	}
+
+	/**
+	 * Appends the bucket of the subject to the rows of a select statement
+	 * having a column named like the subject column.
+	 *
+	 * @param sstmt The select statement
+	 * @return The select statement with the bucket as last column
+	 */
+	protected String selectWithSubjectBucket(SelectStatement sstmt) {
+		return String.format("SELECT b.*, %s AS %s FROM (%s) b",
+				subjectBucket(String.format("b.%s", column_name_subject)), column_name_subject_bucket, sstmt);
+	}
+
+	/**
+	 * Partitions a table by the bucket of the subject if the tables are
+	 * bucketed. It is the last partition column.
+	 *
+	 * @param cstmt The create statement of the table
+	 * @return The create statement
+	 */
+	protected CreateStatement partitionBySubjectBucket(CreateStatement cstmt) {
+		if (subject_buckets > 0)
+			cstmt.addPartitionDefinition(column_name_subject_bucket, DataType.BIGINT);
+		return cstmt;
+	}
+
+	/**
+	 * @return The type of the columns holding rdf terms, BIGINT if the terms
+	 *         are dictionary encoded, STRING otherwise
+	 */
+	protected DataType termDataType() {
+		return dictionary_encoding ? DataType.BIGINT : DataType.STRING;
+	}
+
+	/**
+	 * Creates a table assigning every predicate a bit of one of
+	 * W = ceil(#predicates / 64) BIGINT words, "p, word, mask".
+	 *
+	 * @param tablename The table to create
+	 * @param predicates The predicates in the order of their bits
+	 * @throws SQLException
+	 */
+	protected void buildPredicateBits(String tablename, ArrayList<String> predicates) throws SQLException {
+		impala.dropTableIfExists(tablename);
+		System.out.print(String.format("Creating table '%s'", tablename));
+		long timestamp = System.currentTimeMillis();
+		impala
+		.createTable(tablename)
+		.addColumnDefinition(column_name_predicate, DataType.STRING)
+		.addColumnDefinition(column_name_word, DataType.INT)
+		.addColumnDefinition(column_name_mask, DataType.BIGINT)
+		.storedAs(FileFormat.PARQUET)
+		.execute();
+		InsertStatement istmt = impala.insertInto(tablename);
+		for (int bit = 0; bit < predicates.size(); bit++)
+			istmt.addValues(predicates.get(bit), bit / 64, 1L << (bit % 64));
+		if (!predicates.isEmpty())
+			istmt.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+	}
+
+	/**
+	 * Creates a table with the bitmap of the predicates of every term of a
+	 * relation table. The bits of the distinct predicates of a term are
+	 * disjoint, so their sum is their bitwise or.
+	 *
+	 * @param tablename The table to create, "term, w0..wW-1"
+	 * @param tablename_relations The relation table "term, p"
+	 * @param tablename_bits The table of the bits of the predicates, see {@link #buildPredicateBits(String, ArrayList)}
+	 * @param column_name The column of the term (subject or object)
+	 * @param words The number of words of the bitmaps
+	 * @throws SQLException
+	 */
+	protected void buildBitmaps(String tablename, String tablename_relations, String tablename_bits, String column_name, int words) throws SQLException {
+		impala.dropTableIfExists(tablename);
+		System.out.print(String.format("Creating table '%s'", tablename));
+		long timestamp = System.currentTimeMillis();
+		SelectStatement ss = impala.select(String.format("r.%s", column_name));
+		for (int word = 0; word < words; word++)
+			ss.addProjection(String.format("SUM(CASE WHEN b.%1$s = %3$d THEN b.%2$s ELSE 0 END) AS w%3$d",
+					column_name_word, column_name_mask, word));
+		ss.from(String.format("%s r", tablename_relations));
+		ss.join(String.format("%s b", tablename_bits),
+				String.format("r.%1$s = b.%1$s", column_name_predicate), false);
+		ss.groupby(String.format("r.%s", column_name));
+		impala
+		.createTable(tablename)
+		.storedAs(FileFormat.PARQUET)
+		.asSelect(ss)
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStagingStats(tablename);
+	}
+
+	/**
+	 * Builds the statistics of the predicates of the triple table.
+	 *
+	 * For every predicate the table '{@value #tablename_predicate_stats}'
+	 * holds the number of triples, of distinct subjects and of distinct
+	 * objects, the maximal and average number of values of a subject and the
+	 * {@value #stats_top_objects} most frequent objects ("&lt;count&gt;
+	 * &lt;object&gt;" separated by newlines). The statistics are computed by
+	 * one statement aggregating the triples by subject and by object.
+	 *
+	 * @throws SQLException
+	 */
+	protected void buildPredicateStats() throws SQLException {
+		impala.dropTableIfExists(tablename_predicate_stats);
+		System.out.print(String.format("Creating table '%s'", tablename_predicate_stats));
+		long timestamp = System.currentTimeMillis();
+		impala
+		.createTable(tablename_predicate_stats)
+		.storedAs(FileFormat.PARQUET)
+		.asSelect(selectPredicateStats(null))
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_predicate_stats);
+	}
+
+	/**
+	 * Recomputes the statistics of the predicates of the appended triples,
+	 * see {@link #buildPredicateStats()}. Only the partitions of these
+	 * predicates are aggregated, the rows of the other predicates are kept.
+	 *
+	 * @throws SQLException
+	 */
+	protected void updatePredicateStats() throws SQLException {
+		// The predicates of the appended triples
+		ResultSet resultSet = impala
+				.select(column_name_predicate)
+				.distinct()
+				.from(tablename_delta_triple_table)
+				.execute();
+		StringBuilder predicates = new StringBuilder();
+		int count = 0;
+		for (; resultSet.next(); count++)
+			predicates.append(count == 0 ? "" : ", ").append(String.format("'%s'", resultSet.getString(column_name_predicate)));
+		if (count == 0)
+			return;
+		String condition = String.format("%s IN (%s)", column_name_predicate, predicates);
+
+		System.out.print(String.format("Updating table '%s' (%d predicates)", tablename_predicate_stats, count));
+		long timestamp = System.currentTimeMillis();
+		impala
+		.insertOverwrite(tablename_predicate_stats)
+		.selectStatement(String.format("%s\nUNION ALL\n%s",
+				impala.select("*").from(tablename_predicate_stats).where(String.format("NOT %s", condition)),
+				selectPredicateStats(condition)))
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_predicate_stats);
+	}
+
+	/**
+	 * Builds the select statement of the statistics of the predicates, see
+	 * {@link #buildPredicateStats()}.
+	 *
+	 * @param condition The condition on the predicate column restricting the
+	 *            partitions of the triple table, or null for all predicates
+	 * @return The select statement
+	 */
+	private SelectStatement selectPredicateStats(String condition) {
+		String where = (condition != null) ? String.format(" WHERE %s", condition) : "";
+
+		// The number of values of every subject of a predicate
+		SelectStatement subjects = impala
+				.select(column_name_predicate)
+				.addProjection(String.format("SUM(n) AS %s", column_name_triples))
+				.addProjection(String.format("COUNT(*) AS %s", column_name_distinct_subjects))
+				.addProjection(String.format("MAX(n) AS %s", column_name_max_multiplicity))
+				.addProjection(String.format("AVG(n) AS %s", column_name_avg_multiplicity))
+				.from(String.format("(SELECT %1$s, %2$s, COUNT(*) AS n FROM %3$s%4$s GROUP BY %1$s, %2$s) ps",
+						column_name_predicate, column_name_subject, tablename_triple_table, where))
+				.groupby(column_name_predicate);
+
+		// The number of triples of every object of a predicate, ranked by frequency
+		SelectStatement objects = impala
+				.select(column_name_predicate)
+				.addProjection(String.format("COUNT(*) AS %s", column_name_distinct_objects))
+				.addProjection(String.format("group_concat(CASE WHEN r <= %d THEN concat(CAST(n AS STRING), ' ', CAST(%s AS STRING)) END, '\\n') AS %s",
+						stats_top_objects, column_name_object, column_name_top_objects))
+				.from(String.format("(SELECT %1$s, %2$s, n, row_number() OVER (PARTITION BY %1$s ORDER BY n DESC) AS r"
+						+ " FROM (SELECT %1$s, %2$s, COUNT(*) AS n FROM %3$s%4$s GROUP BY %1$s, %2$s) po_counts) po",
+						column_name_predicate, column_name_object, tablename_triple_table, where))
+				.groupby(column_name_predicate);
+
+		return impala
+				.select(String.format("subjects.%s", column_name_predicate))
+				.addProjection(String.format("subjects.%s", column_name_triples))
+				.addProjection(String.format("subjects.%s", column_name_distinct_subjects))
+				.addProjection(String.format("objects.%s", column_name_distinct_objects))
+				.addProjection(String.format("subjects.%s", column_name_max_multiplicity))
+				.addProjection(String.format("subjects.%s", column_name_avg_multiplicity))
+				.addProjection(String.format("objects.%s", column_name_top_objects))
+				.from(String.format("(%s) subjects", subjects))
+				.join(String.format("(%s) objects", objects),
+						String.format("subjects.%1$s = objects.%1$s", column_name_predicate), shuffle);
+	}
+
+	/**
+	 * @return The predicates with more than one value for a subject, see
+	 *         {@link #buildPredicateStats()}
+	 * @throws SQLException
+	 */
+	protected HashSet<String> multiValuedPredicates() throws SQLException {
+		ResultSet resultSet = impala
+				.select(column_name_predicate)
+				.from(tablename_predicate_stats)
+				.where(String.format("%s > 1", column_name_max_multiplicity))
+				.execute();
+		HashSet<String> multi_valued = new HashSet<String>();
+		while (resultSet.next())
+			multi_valued.add(resultSet.getString(column_name_predicate));
+		return multi_valued;
+	}
+
+	/**
+	 * Finds the predicates with numeric and date values, which get typed
+	 * columns in the property tables, if typed literals are parsed.
+	 *
+	 * @throws SQLException
+	 */
+	protected void findTypedPredicates() throws SQLException {
+		numeric_predicates.clear();
+		date_predicates.clear();
+		if (!typed_literals)
+			return;
+		ResultSet resultSet = impala
+				.select(column_name_predicate)
+				.addProjection(String.format("COUNT(%s) AS numeric_values", column_name_object_numeric))
+				.addProjection(String.format("COUNT(%s) AS date_values", column_name_object_date))
+				.from(tablename_triple_table)
+				.groupby(column_name_predicate)
+				.execute();
+		while (resultSet.next()) {
+			if (resultSet.getLong("numeric_values") > 0)
+				numeric_predicates.add(resultSet.getString(column_name_predicate));
+			if (resultSet.getLong("date_values") > 0)
+				date_predicates.add(resultSet.getString(column_name_predicate));
+		}
+	}
+
+	/**
+	 * Returns the columns of a property in a property table, the column of
+	 * its terms followed by the typed columns of its numeric and date values,
+	 * see {@link #findTypedPredicates()}.
+	 *
+	 * @param predicate The predicate of the property
+	 * @return The pairs of the column in the triple table and the column in the property table
+	 */
+	protected ArrayList<String[]> propertyColumns(String predicate) {
+		ArrayList<String[]> columns = new ArrayList<String[]>();
+		String column = toImpalaColumnName(predicate);
+		columns.add(new String[] { column_name_object, column });
+		if (numeric_predicates.contains(predicate))
+			columns.add(new String[] { column_name_object_numeric, column + column_suffix_numeric });
+		if (date_predicates.contains(predicate))
+			columns.add(new String[] { column_name_object_date, column + column_suffix_date });
+		return columns;
+	}
+
+	/**
+	 * Builds the select statement of the rows of a property table with one
+	 * aggregation of the triple table by subject.
+	 *
+	 * The single valued properties are pivoted into their columns by
+	 * conditional aggregation. Multi valued properties are joined, such that
+	 * a subject still has one row for every combination of its values. So the
+	 * number of joins is the number of multi valued properties instead of all
+	 * properties.
+	 *
+	 * @param tablename_subjects The table (or inline view) of the subjects of the rows or null for all subjects
+	 * @param predicates The properties in the order of the columns
+	 * @param multi_valued The multi valued properties, see {@link #multiValuedPredicates()}
+	 * @return The select statement
+	 */
+	protected SelectStatement selectPivotedProperties(String tablename_subjects, ArrayList<String> predicates,
+			HashSet<String> multi_valued) {
+		// Pivot the single valued properties ("MAX(CASE WHEN tt.predicate = <predicate> THEN tt.object END) AS <predicate>")
+		SelectStatement pivot = impala.select(String.format("tt.%s", column_name_subject));
+		for (String predicate : predicates)
+			if (!multi_valued.contains(predicate))
+				for (String[] column : propertyColumns(predicate))
+					pivot.addProjection(String.format("MAX(CASE WHEN tt.%s = '%s' THEN tt.%s END) AS %s",
+							column_name_predicate, predicate, column[0], column[1]));
+		pivot.from(String.format("%s tt", tablename_triple_table));
+		if (tablename_subjects != null)
+			pivot.leftSemiJoin(String.format("%s ts", tablename_subjects),
+					String.format("tt.%1$s = ts.%1$s", column_name_subject), shuffle);
+		pivot.groupby(String.format("tt.%s", column_name_subject));
+
+		SelectStatement sstmt = impala.select();
+
+		// Add the subject column and the property columns in the order of the predicates
+		sstmt.addProjection(String.format("subjects.%s", column_name_subject));
+		for (int i = 0; i < predicates.size(); i++)
+			for (String[] column : propertyColumns(predicates.get(i)))
+				if (multi_valued.contains(predicates.get(i)))
+					sstmt.addProjection(String.format("t%d.%s AS %s", i, column[0], column[1]));
+				else
+					sstmt.addProjection(String.format("subjects.%s", column[1]));
+		sstmt.from(String.format("(%s) subjects", pivot));
+
+		// Append the multi valued properties via join
+		for (int i = 0; i < predicates.size(); i++)
+			if (multi_valued.contains(predicates.get(i)))
+				sstmt.leftJoin(
+						String.format("%s t%d", tablename_triple_table, i),
+						String.format("subjects.%2$s = t%1$d.%2$s AND t%1$d.%3$s = '%4$s'",
+								i, column_name_subject,
+								column_name_predicate, predicates.get(i)),
+						shuffle);
+		return sstmt;
+	}
+
+	/**
+	 * Reads the prefix file.
+	 *
+	 * Each line holds a prefix and its namespace in long format, e.g.
+	 * "foaf: &lt;http://xmlns.com/foaf/0.1/&gt;".
+	 *
+	 * @param prefix_file The path of the prefix file
+	 * @return A map from namespace (braces removed) to prefix
+	 */
+	public static Map<String, String> readPrefixFile(String prefix_file) {
+		Map<String, String> prefix_map = null;
+		try {
+			BufferedReader br = new BufferedReader(new FileReader(prefix_file));
+			prefix_map = PrefixTrie.readPrefixes(br);
+			br.close();
+		} catch (IOException e) {
+			System.err.println("[ERROR] Could not open prefix file. Reason: " + e.getMessage());
+			System.exit(1);
+		}
+		return prefix_map;
+	}
+
+	/**
+	 * Creates the impala function replacing the prefixes.
+	 *
+	 * The jar containing {@link HivePrefixCompressFunction} and the prefix
+	 * file are copied to HDFS (into the directory given by -ud or the home
+	 * directory of the user), so every impala daemon can load them.
+	 *
+	 * @return The HDFS path of the prefix file, the second argument of the
+	 *         function
+	 * @throws SQLException
+	 */
+	private String createPrefixFunction() throws SQLException {
+		String jar = HivePrefixCompressFunction.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+		if (!jar.endsWith(".jar")) {
+			System.err.println("[ERROR] The prefix function has to be loaded from a jar. Build the loader first.");
+			System.exit(1);
+		}
+
+		Path hdfs_jar = null;
+		Path hdfs_prefix_file = null;
+		try {
+			FileSystem fs = FileSystem.get(new Configuration());
+			Path directory = fs.makeQualified(new Path(
+					(HdfsUserPath != null) ? new Path(HdfsUserPath) : fs.getHomeDirectory(), directory_name_udf));
+			fs.mkdirs(directory);
+			hdfs_jar = new Path(directory, new Path(jar).getName());
+			hdfs_prefix_file = new Path(directory, new Path(prefix_file).getName());
+			fs.copyFromLocalFile(false, true, new Path(jar), hdfs_jar);
+			fs.copyFromLocalFile(false, true, new Path(prefix_file), hdfs_prefix_file);
+		} catch (IOException e) {
+			System.err.println("[ERROR] Could not copy the prefix function to HDFS. Reason: " + e.getMessage());
+			System.exit(1);
+		}
+
+		impala.createFunction(String.format("%s(STRING, STRING)", function_name_prefix_compress), "STRING",
+				hdfs_jar.toString(), HivePrefixCompressFunction.class.getName());
+		return hdfs_prefix_file.toString();
+	}
+
+	/**
+	 * Returns the call of the prefix function for a column.
+	 *
+	 * @param column_name The column name for which to replace the prefixes
+	 * @param hdfs_prefix_file The HDFS path of the prefix file
+	 * @return The function call
+	 */
+	private static String prefixHelper(String column_name, String hdfs_prefix_file) {
+		return String.format("%s(%s, '%s')", function_name_prefix_compress, column_name, hdfs_prefix_file);
 	}
 	
 	/**
@@ -238,6 +1176,138 @@ public abstract class Loader {
 		return s.replaceAll("[<>]", "").trim().replaceAll("[[^\\w]+]", "_");
 	}
 
+	/**
+	 * Computes the optimization stats of an output table, sampled if a
+	 * percentage of the data files is given (-ss).
+	 *
+	 * @param session The session to use
+	 * @param tablename The table
+	 * @throws SQLException
+	 */
+	protected void computeStats(Impala session, String tablename) throws SQLException {
+		long timestamp = System.currentTimeMillis();
+		session.computeStats(tablename, stats_sample);
+		stats_millis.addAndGet(System.currentTimeMillis() - timestamp);
+		stats_tables.incrementAndGet();
+	}
+
+	/**
+	 * Computes the optimization stats of the partitions of a table which have
+	 * none, i.e. the partitions written by appending.
+	 *
+	 * @param tablename The table
+	 * @throws SQLException
+	 */
+	protected void computeIncrementalStats(String tablename) throws SQLException {
+		long timestamp = System.currentTimeMillis();
+		impala.computeIncrementalStats(tablename);
+		stats_millis.addAndGet(System.currentTimeMillis() - timestamp);
+		stats_tables.incrementAndGet();
+	}
+
+	/**
+	 * Computes the optimization stats of an intermediate table, which is
+	 * dropped after loading. They are skipped unless the stats policy is
+	 * {@link StatsPolicy#FULL} or the intermediate tables are kept.
+	 *
+	 * @param tablename The table
+	 * @throws SQLException
+	 */
+	protected void computeStagingStats(String tablename) throws SQLException {
+		if (stats_policy == StatsPolicy.FULL || keep)
+			computeStats(impala, tablename);
+		else
+			stats_skipped.incrementAndGet();
+	}
+
+	/**
+	 * Computes the optimization stats of a table which is not read while
+	 * loading. With the stats policy {@link StatsPolicy#DEFERRED} they are
+	 * computed by {@link #computeDeferredStats()}.
+	 *
+	 * @param session The session to use
+	 * @param tablename The table
+	 * @throws SQLException
+	 */
+	protected void computeDeferrableStats(Impala session, String tablename) throws SQLException {
+		if (stats_policy == StatsPolicy.DEFERRED)
+			deferred_stats.add(tablename);
+		else
+			computeStats(session, tablename);
+	}
+
+	/**
+	 * Computes the deferred optimization stats, see
+	 * {@link #computeDeferrableStats(Impala, String)}, concurrently on
+	 * {@link #connections} sessions. Tables which were dropped in the meantime
+	 * are skipped. The sessions opened for it are closed afterwards.
+	 *
+	 * @throws SQLException
+	 */
+	protected void computeDeferredStats() throws SQLException {
+		if (deferred_stats.isEmpty())
+			return;
+
+		// The deferred tables which still exist
+		HashSet<String> existing = impala.tableNames();
+		final ConcurrentLinkedQueue<String> tables = new ConcurrentLinkedQueue<String>();
+		for (String tablename : new LinkedHashSet<String>(deferred_stats))
+			if (existing.contains(tablename.toLowerCase()))
+				tables.add(tablename);
+		deferred_stats.clear();
+
+		System.out.println(String.format("Precomputing deferred optimization stats for %d tables using %d connection(s)", tables.size(), connections));
+		long timestamp = System.currentTimeMillis();
+		ExecutorService executor = Executors.newFixedThreadPool(connections);
+		ArrayList<Future<Void>> tasks = new ArrayList<Future<Void>>();
+		ArrayList<Impala> sessions = new ArrayList<Impala>();
+		for (int i = 0; i < connections; i++) {
+			final Impala session = (i == 0) ? impala : impala.newSession();
+			if (session != impala)
+				sessions.add(session);
+			tasks.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					for (String tablename; (tablename = tables.poll()) != null;)
+						computeStats(session, tablename);
+					return null;
+				}
+			}));
+		}
+		executor.shutdown();
+
+		try {
+			for (Future<Void> task : tasks)
+				task.get();
+		} catch (ExecutionException e) {
+			executor.shutdownNow();
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException) e.getCause();
+			throw new RuntimeException(e.getCause());
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			e.printStackTrace();
+			System.exit(1);
+		} finally {
+			for (Impala session : sessions)
+				session.close();
+		}
+		System.out.println(String.format("Precomputed deferred optimization stats [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+	}
+
+	/**
+	 * Computes the deferred optimization stats and prints the time spent on
+	 * optimization stats with the stats policy in use.
+	 *
+	 * @throws SQLException
+	 */
+	public void finishStats() throws SQLException {
+		computeDeferredStats();
+		System.out.println(String.format("Optimization stats (policy %s%s): %d tables, %d skipped [%.3fs]",
+				stats_policy, stats_sample > 0 ? String.format(", %d%% sampled", stats_sample) : "",
+				stats_tables.get(), stats_skipped.get(), (float)stats_millis.get()/1000));
+	}
+
 	/** Abstract method that has to be implemented */
 	public abstract void load() throws SQLException;
 }
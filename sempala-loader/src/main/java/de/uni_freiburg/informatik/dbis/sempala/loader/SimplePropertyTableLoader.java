@@ -3,9 +3,12 @@ package de.uni_freiburg.informatik.dbis.sempala.loader;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.Impala;
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.InsertStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.SelectStatement;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.DataType;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.FileFormat;
@@ -20,6 +23,9 @@ public final class SimplePropertyTableLoader extends Loader {
 	/** The name of the intermediate table of distinct subjects */
 	private final String tablename_distinct_subjects = "distinct_subjects";
 
+	/** The name of the intermediate table of the subjects of appended triples */
+	private final String tablename_touched_subjects = "touched_subjects";
+
 	/** The constructor */
 	public SimplePropertyTableLoader(Impala wrapper, String hdfsLocation){
 		super(wrapper, hdfsLocation);	
@@ -37,24 +43,32 @@ public final class SimplePropertyTableLoader extends Loader {
 	 */
 	@Override
 	public void load() throws SQLException {
+		if (append) {
+			append();
+			return;
+		}
+
 		// Load the triple table
 		buildTripleTable();
 		
 		// Build a table containing distinct subjects
-		System.out.print(String.format("Creating table containing distinct subjects (%s)", tablename_distinct_subjects));
-		long timestamp = System.currentTimeMillis();
-		impala
-		.createTable(tablename_distinct_subjects)
-		.storedAs(FileFormat.PARQUET)
-		.asSelect(
-				impala
-				.select(column_name_subject)
-				.distinct()
-				.from(tablename_triple_table)
-				)
-		.execute();
-		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
-		impala.computeStats(tablename_distinct_subjects);
+		long timestamp;
+		if (join_properties) {
+			System.out.print(String.format("Creating table containing distinct subjects (%s)", tablename_distinct_subjects));
+			timestamp = System.currentTimeMillis();
+			impala
+			.createTable(tablename_distinct_subjects)
+			.storedAs(FileFormat.PARQUET)
+			.asSelect(
+					impala
+					.select(column_name_subject)
+					.distinct()
+					.from(tablename_triple_table)
+					)
+			.execute();
+			System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+			computeStagingStats(tablename_distinct_subjects);
+		}
 
 		System.out.print(String.format("Creating property table (%s)", tablename_output));
 		timestamp = System.currentTimeMillis();
@@ -71,7 +85,163 @@ public final class SimplePropertyTableLoader extends Loader {
 		while (resultSet.next())
 			predicates.add(resultSet.getString(column_name_predicate));
 
+		// Find the properties with typed columns
+		findTypedPredicates();
+
 		// Build a select stmt for the Insert-as-select statement
+		SelectStatement sstmt = join_properties
+				? selectProperties(tablename_distinct_subjects, predicates)
+				: selectPivotedProperties(null, predicates);
+
+		// Create the property table "s, p, o[, p1, ...]"
+		CreateStatement cstmt = impala.createTable(tablename_output).ifNotExists();
+		cstmt.addColumnDefinition(column_name_subject, termDataType());
+		for (String pred : predicates)
+			for (String[] column : propertyColumns(pred))
+				cstmt.addColumnDefinition(column[1], column[0].equals(column_name_object_numeric) ? DataType.DOUBLE
+						: column[0].equals(column_name_object_date) ? DataType.TIMESTAMP : termDataType());
+		cstmt.storedAs(FileFormat.PARQUET);
+		partitionBySubjectBucket(cstmt);
+		cstmt.execute();
+		
+		// Insert data into the single table using the built select stmt
+		InsertStatement insert = impala.insertOverwrite(tablename_output);
+		if (subject_buckets > 0) {
+			sstmt.addProjection(subjectBucket(String.format("subjects.%s", column_name_subject)));
+			insert.addPartition(column_name_subject_bucket);
+		}
+		insert.selectStatement(sstmt).execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_output);
+		
+		// Drop intermediate tables
+		if (!keep){
+			impala.dropTable(tablename_triple_table);
+			if (join_properties)
+				impala.dropTable(tablename_distinct_subjects);
+		}
+	}
+
+	/**
+	 * Appends RDF data to the property table of a previous load.
+	 *
+	 * Only the rows of the subjects of the new triples are computed from the
+	 * triple table. With subject buckets only the buckets of these subjects
+	 * are rewritten, otherwise the rows of all other subjects are copied as
+	 * they are into a new table, which replaces the property table.
+	 * Properties which are new get a column of their own. The triple table of
+	 * the previous load has to be kept (-k).
+	 *
+	 * @throws SQLException
+	 */
+	private void append() throws SQLException {
+		// Append to the triple table
+		appendTripleTable();
+
+		// Build a table containing the subjects of the appended triples (and their bucket)
+		System.out.print(String.format("Creating table containing touched subjects (%s)", tablename_touched_subjects));
+		long timestamp = System.currentTimeMillis();
+		impala.dropTableIfExists(tablename_touched_subjects);
+		SelectStatement subjects = impala.select(column_name_subject).distinct();
+		if (subject_buckets > 0)
+			subjects.addProjection(column_name_subject_bucket);
+		impala
+		.createTable(tablename_touched_subjects)
+		.storedAs(FileFormat.PARQUET)
+		.asSelect(subjects.from(tablename_delta_triple_table))
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStagingStats(tablename_touched_subjects);
+
+		// Get properties
+		ResultSet resultSet = impala
+				.select(column_name_predicate)
+				.distinct()
+				.from(tablename_triple_table)
+				.execute();
+		HashMap<String, String> predicates = new HashMap<String, String>();
+		while (resultSet.next()) {
+			String predicate = resultSet.getString(column_name_predicate);
+			predicates.put(toImpalaColumnName(predicate).toLowerCase(), predicate);
+		}
+
+		// Keep the order of the existing columns, columns of new properties come last
+		ArrayList<String> columns = impala.columnNames(tablename_output);
+		columns.remove(column_name_subject.toLowerCase());
+		columns.remove(column_name_subject_bucket.toLowerCase());
+		ArrayList<String> properties = new ArrayList<String>();
+		for (String column : columns)
+			properties.add(predicates.remove(column));
+		for (String property : predicates.values()) {
+			impala.addColumn(tablename_output, toImpalaColumnName(property), termDataType());
+			columns.add(toImpalaColumnName(property));
+			properties.add(property);
+		}
+
+		String tablename_updated = String.format("%s_updated", tablename_output);
+		String tablename_previous = String.format("%s_previous", tablename_output);
+		if (subject_buckets == 0) {
+			impala.dropTableIfExists(tablename_updated);
+			impala.dropTableIfExists(tablename_previous);
+		}
+
+		System.out.print(String.format("Updating property table (%s)", tablename_output));
+		timestamp = System.currentTimeMillis();
+
+		// The rows of the untouched subjects
+		SelectStatement untouched = impala.select(String.format("pt.%s", column_name_subject));
+		for (String column : columns)
+			untouched.addProjection(String.format("pt.%s", column));
+		untouched.from(String.format("%s pt", tablename_output));
+		untouched.leftAntiJoin(String.format("%s ts", tablename_touched_subjects),
+				String.format("pt.%1$s = ts.%1$s", column_name_subject), shuffle);
+
+		// The rows of the touched subjects
+		SelectStatement touched = join_properties
+				? selectProperties(tablename_touched_subjects, properties)
+				: selectPivotedProperties(tablename_touched_subjects, properties);
+
+		if (subject_buckets > 0) {
+			// Overwrite only the buckets of the touched subjects
+			untouched.addProjection(String.format("pt.%s", column_name_subject_bucket));
+			untouched.leftSemiJoin(String.format("(SELECT DISTINCT %1$s FROM %2$s) tb", column_name_subject_bucket, tablename_touched_subjects),
+					String.format("pt.%1$s = tb.%1$s", column_name_subject_bucket), false);
+			touched.addProjection(subjectBucket(String.format("subjects.%s", column_name_subject)));
+			impala
+			.insertOverwrite(tablename_output)
+			.addPartition(column_name_subject_bucket)
+			.selectStatement(String.format("%s\nUNION ALL\n%s", untouched, touched))
+			.execute();
+		} else {
+			// Impala cannot update the rows of parquet tables, the table is replaced
+			impala
+			.createTable(tablename_updated)
+			.storedAs(FileFormat.PARQUET)
+			.asSelect(String.format("%s\nUNION ALL\n%s", untouched, touched))
+			.execute();
+			// Keep the previous table until the new one took its place
+			impala.renameTable(tablename_output, tablename_previous);
+			impala.renameTable(tablename_updated, tablename_output);
+			impala.dropTable(tablename_previous);
+		}
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename_output);
+
+		// Drop intermediate tables
+		if (!keep){
+			impala.dropTable(tablename_delta_triple_table);
+			impala.dropTable(tablename_touched_subjects);
+		}
+	}
+
+	/**
+	 * Builds the select statement of the rows of a property table.
+	 *
+	 * @param tablename_subjects The table of the subjects of the rows
+	 * @param predicates The properties in the order of the columns
+	 * @return The select statement
+	 */
+	private SelectStatement selectProperties(String tablename_subjects, ArrayList<String> predicates) {
 		SelectStatement sstmt = impala.select();
 
 		// Add the subject column
@@ -79,10 +249,11 @@ public final class SimplePropertyTableLoader extends Loader {
 
 		// Add the property columns to select clause (", t<x>.object AS <predicate>")
    	    for (int i = 0; i < predicates.size(); i++)
-			sstmt.addProjection(String.format("t%d.%s AS %s", i, column_name_object, toImpalaColumnName(predicates.get(i))));
+   	    	for (String[] column : propertyColumns(predicates.get(i)))
+   	    		sstmt.addProjection(String.format("t%d.%s AS %s", i, column[0], column[1]));
 
 		// Add distinct subjects table reference
-		sstmt.from(String.format("%s subjects", tablename_distinct_subjects));
+		sstmt.from(String.format("%s subjects", tablename_subjects));
 
 		// Append the properties via join
 		// "LEFT JOIN <tablename_internal_parquet> t<x> ON (t1.subject =
@@ -94,27 +265,22 @@ public final class SimplePropertyTableLoader extends Loader {
    	    					i, column_name_subject,
    	    					column_name_predicate, predicates.get(i)),
    	    			shuffle);
+		return sstmt;
+	}
 
-		// Create the property table "s, p, o[, p1, ...]"
-		CreateStatement cstmt = impala.createTable(tablename_output).ifNotExists();
-		cstmt.addColumnDefinition(column_name_subject, DataType.STRING);
-		for (String pred : predicates)
-			cstmt.addColumnDefinition(toImpalaColumnName(pred), DataType.STRING);
-		cstmt.storedAs(FileFormat.PARQUET);
-		cstmt.execute();
-		
-		// Insert data into the single table using the built select stmt
-		impala
-		.insertOverwrite(tablename_output)
-		.selectStatement(sstmt)
-		.execute();
-		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
-		impala.computeStats(tablename_output);
-		
-		// Drop intermediate tables
-		if (!keep){
-			impala.dropTable(tablename_triple_table);
-			impala.dropTable(tablename_distinct_subjects);
-		}
+	/**
+	 * Builds the select statement of the rows of a property table with one
+	 * aggregation of the triple table by subject, see
+	 * {@link Loader#selectPivotedProperties(String, ArrayList, HashSet)}.
+	 *
+	 * @param tablename_subjects The table of the subjects of the rows or null for all subjects
+	 * @param predicates The properties in the order of the columns
+	 * @return The select statement
+	 * @throws SQLException
+	 */
+	private SelectStatement selectPivotedProperties(String tablename_subjects, ArrayList<String> predicates) throws SQLException {
+		HashSet<String> multi_valued = multiValuedPredicates();
+		System.out.print(String.format(" (%d of %d properties multi valued)", multi_valued.size(), predicates.size()));
+		return selectPivotedProperties(tablename_subjects, predicates, multi_valued);
 	}
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package de.uni_freiburg.informatik.dbis.sempala.loader;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement;
@@ -24,6 +25,15 @@ public final class SingleTableLoader extends Loader {
 	/** The name of the intermediate table of distinct object predicate relations */
 	private final String tablename_distinct_op_relations = "distinct_op_relations";
 	
+	/** The name of the intermediate table of the predicate bitmaps of the subjects */
+	private final String tablename_distinct_sp_bitmaps = "distinct_sp_bitmaps";
+
+	/** The name of the intermediate table of the predicate bitmaps of the objects */
+	private final String tablename_distinct_op_bitmaps = "distinct_op_bitmaps";
+
+	/** The name of the table mapping the predicates to their bits (-bm) */
+	public static final String tablename_bitmap = "singletable_bitmap";
+
 	/** The constructor */
 	public SingleTableLoader(Impala wrapper, String hdfsLocation){
 		super(wrapper, hdfsLocation);
@@ -40,6 +50,11 @@ public final class SingleTableLoader extends Loader {
 	 */
 	@Override
 	public void load() throws SQLException  {
+		if (append) {
+			append();
+			return;
+		}
+
 		// Load the triple table
 		buildTripleTable();
 
@@ -60,7 +75,7 @@ public final class SingleTableLoader extends Loader {
 				.from(tablename_triple_table))
 		.execute();
 		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
-		impala.computeStats(tablename_distinct_sp_relations);
+		computeStagingStats(tablename_distinct_sp_relations);
 
 		/*
 		 * Create a table for the distinct object-predicate tuples (not partitioned)
@@ -80,7 +95,7 @@ public final class SingleTableLoader extends Loader {
 				.from(tablename_triple_table))
 		.execute();
 		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
-		impala.computeStats(tablename_distinct_op_relations);
+		computeStagingStats(tablename_distinct_op_relations);
 
 		/*
 		 * Create the single table
@@ -93,13 +108,27 @@ public final class SingleTableLoader extends Loader {
 		ResultSet resultSet = impala.select(column_name_predicate).distinct().from(tablename_triple_table).execute();
 		while (resultSet.next())
 			predicates.add(resultSet.getString(column_name_predicate));
+
+		if (bitmap) {
+			buildBitmapTable(predicates);
+			System.out.println(String.format("Singletable created in [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+			computeStats(impala, tablename_output);
+			if (!keep){
+				impala.dropTable(tablename_triple_table);
+				impala.dropTable(tablename_distinct_sp_relations);
+				impala.dropTable(tablename_distinct_op_relations);
+				impala.dropTable(tablename_distinct_sp_bitmaps);
+				impala.dropTable(tablename_distinct_op_bitmaps);
+			}
+			return;
+		}
 		
 		// Create the new single table "s, p, o, [ss_p1, so_p1, os_p1], ..."
 		CreateStatement cstmt = impala
 				.createTable(tablename_output)
-				.addColumnDefinition(column_name_subject, DataType.STRING)
+				.addColumnDefinition(column_name_subject, termDataType())
 				.addPartitionDefinition(column_name_predicate, DataType.STRING)
-				.addColumnDefinition(column_name_object, DataType.STRING);
+				.addColumnDefinition(column_name_object, termDataType());
 		for (String pred : predicates){
 			String impalaConformPred = toImpalaColumnName(pred);
 			cstmt.addColumnDefinition(String.format("ss_%s", impalaConformPred), DataType.BOOLEAN);
@@ -113,149 +142,22 @@ public final class SingleTableLoader extends Loader {
 		 * Fill the single table
 		 */
 
-		// Sets containing existing relations  
-		HashSet<String> SS_relations = new HashSet<String>();
-		HashSet<String> SO_relations = new HashSet<String>();
-		HashSet<String> OS_relations = new HashSet<String>();
-		
 		for (String predicate : predicates){
 
 			System.out.print(String.format("Processing '%s'", predicate));
 			long localtimestamp = System.currentTimeMillis();
-			
-			// Reset existing relations 
-			SS_relations.clear(); 
-			SO_relations.clear(); 
-			OS_relations.clear();
-			
-			// Get all predicates that are in a SS relation to any triples in this partition (predicate)
-			resultSet =
-					impala
-					.select(column_name_predicate).distinct()
-					.from(String.format("%s sp", tablename_distinct_sp_relations))
-					.leftSemiJoin(
-							String.format("%s tt", tablename_triple_table),
-							String.format("tt.%s=sp.%s AND tt.%s='%s'",
-									column_name_subject, column_name_subject, column_name_predicate, predicate),
-							shuffle)
-					.execute();
-			while (resultSet.next())
-				SS_relations.add(resultSet.getString(column_name_predicate));
-			
-    		// Get all predicates that are in a SO relation to any triples in this partition (predicate)
-			resultSet = impala.select(column_name_predicate).distinct()
-					.from(String.format("%s op", tablename_distinct_op_relations))
-					.leftSemiJoin(
-							String.format("%s tt", tablename_triple_table),
-							String.format("tt.%s=op.%s AND tt.%s='%s'",
-									column_name_subject, column_name_object, column_name_predicate, predicate),
-							shuffle)
-					.execute();
-			while (resultSet.next())
-				SO_relations.add(resultSet.getString(column_name_predicate));
-			
-			// Get all predicates that are in a OS relation to any triples in this partition (predicate)
-			resultSet =
-					impala
-					.select(column_name_predicate).distinct()
-					.from(String.format("%s sp", tablename_distinct_sp_relations))
-					.leftSemiJoin(
-							String.format("%s tt", tablename_triple_table),
-							String.format("tt.%s=sp.%s AND tt.%s='%s'",
-									column_name_object, column_name_subject, column_name_predicate, predicate),
-							shuffle)
-					.execute();
-			while (resultSet.next())
-				OS_relations.add(resultSet.getString(column_name_predicate));
-
-			// Build a select stmt for the Insert-as-select statement
-			SelectStatement ss = impala.select();
-
-			// Build the huge select clause
-			ss.addProjection(String.format("tt.%s", column_name_subject));
-			ss.addProjection(String.format("tt.%s", column_name_object));
-			ss.from(String.format("%s tt", tablename_triple_table));
-			
-			for (String p : predicates){
-				String impalaConformPredicate = toImpalaColumnName(p);
-				
-				// SS_p_i
-				if (SS_relations.contains(p)){
-					ss.addProjection(String.format("CASE WHEN %s.%s IS NULL THEN false ELSE true END AS %s",
-							String.format("tss_%s", impalaConformPredicate),
-							column_name_subject,
-							String.format("ss_%s", impalaConformPredicate)));
-					ss.leftJoin(
-							// Table reference e.g. "LEFT JOIN subjects tss_p1"
-							String.format("%s tss_%s", tablename_distinct_sp_relations, impalaConformPredicate),
-							// On clause e.g. "ON tt.id=tss_p1.id AND tss_p1.predicate='wsdbm:friendOf'"
-							String.format("tt.%1$s=tss_%3$s.%1$s AND tss_%3$s.%2$s='%4$s'",
-									column_name_subject,
-									column_name_predicate,
-									impalaConformPredicate,
-									p),
-		   	    			shuffle);
-				} else {
-					ss.addProjection("false");
-				}
-
-				// SO_pi
-				if (SO_relations.contains(p)){
-					ss.addProjection(String.format("CASE WHEN %s.%s IS NULL THEN false ELSE true END AS %s",
-							String.format("tso_%s", impalaConformPredicate),
-							column_name_object,
-							String.format("so_%s", impalaConformPredicate)));
-					ss.leftJoin(
-							// Table reference e.g. "LEFT JOIN objects tso_p1"
-							String.format("%s tso_%s", tablename_distinct_op_relations, impalaConformPredicate),
-							// On clause e.g. "ON tt.id=tso_p1.object AND tso_p1.predicate='wsdbm:friendOf'"
-							String.format("tt.%1$s=tso_%4$s.%3$s AND tso_%4$s.%2$s='%5$s'",
-									column_name_subject,
-									column_name_predicate,
-									column_name_object,
-									impalaConformPredicate,
-									p),
-		   	    			shuffle);
-				} else {
-					ss.addProjection("false");
-				}
-				
-				if (OS_relations.contains(p)){
-					ss.addProjection(String.format("CASE WHEN %s.%s IS NULL THEN false ELSE true END AS %s",
-							String.format("tos_%s", impalaConformPredicate),
-							column_name_subject,
-							String.format("os_%s", impalaConformPredicate)));
-					ss.leftJoin(
-							// Table reference e.g. "LEFT JOIN subjects tos_p1"
-							String.format("%s tos_%s", tablename_distinct_sp_relations, impalaConformPredicate),
-							// On clause e.g. "ON tt.object=tos_p1.id AND tos_p1.predicate='wsdbm:friendOf'"
-							String.format("tt.%3$s=tos_%4$s.%1$s AND tos_%4$s.%2$s='%5$s'",
-									column_name_subject,
-									column_name_predicate,
-									column_name_object,
-									impalaConformPredicate,
-									p),
-		   	    			shuffle);
-					
-				} else {
-					ss.addProjection("false");
-				}
-			}
-			// Partition column at last (impala requirement)
-			ss.addProjection(String.format("tt.%s", column_name_predicate));
-			ss.where(String.format("tt.%s='%s'", column_name_predicate, predicate));
-			
+
 			// Insert data into the single table using the built select stmt
 			impala
 			.insertInto(tablename_output)
 			.addPartition(column_name_predicate)
-			.selectStatement(ss)
+			.selectStatement(selectPartition(predicate, predicates))
 			.execute();
 			
 			System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - localtimestamp)/1000));
 		}
 		System.out.println(String.format("Singletable created in [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
-		impala.computeStats(tablename_output);
+		computeStats(impala, tablename_output);
 		
 		// Drop intermediate tables
 		if (!keep){
@@ -264,4 +166,319 @@ public final class SingleTableLoader extends Loader {
 			impala.dropTable(tablename_distinct_op_relations);
 		}
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Builds the single table with the correlations stored as bitmaps.
+	 *
+	 * Every predicate gets a bit in one of W = ceil(#predicates / 64) BIGINT
+	 * words, stored in the table '{@value #tablename_bitmap}'. The table has
+	 * the columns "s, o, ss_0..ss_W-1, so_0.., os_0.." instead of three
+	 * BOOLEAN columns per predicate. The bitmaps of all subjects and objects
+	 * are computed in one grouped pass over the relation tables each, the
+	 * single table is then filled by one insert joining them to the triple
+	 * table.
+	 *
+	 * @param predicates All predicates of the triple table
+	 * @throws SQLException
+	 */
+	private void buildBitmapTable(ArrayList<String> predicates) throws SQLException {
+		int words = Math.max(1, (predicates.size() + 63) / 64);
+
+		// Assign the bits to the predicates
+		buildPredicateBits(tablename_bitmap, predicates);
+
+		// Compute the bitmaps of the subjects and the objects
+		buildBitmaps(tablename_distinct_sp_bitmaps, tablename_distinct_sp_relations, tablename_bitmap, column_name_subject, words);
+		buildBitmaps(tablename_distinct_op_bitmaps, tablename_distinct_op_relations, tablename_bitmap, column_name_object, words);
+
+		// Create the new single table "s, o, ss_0.., so_0.., os_0..", partitioned by p
+		CreateStatement cstmt = impala
+				.createTable(tablename_output)
+				.addColumnDefinition(column_name_subject, termDataType())
+				.addPartitionDefinition(column_name_predicate, DataType.STRING)
+				.addColumnDefinition(column_name_object, termDataType());
+		for (String relation : new String[] { "ss", "so", "os" })
+			for (int word = 0; word < words; word++)
+				cstmt.addColumnDefinition(String.format("%s_%d", relation, word), DataType.BIGINT);
+		cstmt.storedAs(FileFormat.PARQUET);
+		cstmt.execute();
+
+		/*
+		 * Fill the single table: SS are the predicates of the subject as
+		 * subject, SO the predicates of the subject as object and OS the
+		 * predicates of the object as subject.
+		 */
+		System.out.print(String.format("Filling table '%s'", tablename_output));
+		long timestamp = System.currentTimeMillis();
+		SelectStatement ss = impala.select();
+		ss.addProjection(String.format("tt.%s", column_name_subject));
+		ss.addProjection(String.format("tt.%s", column_name_object));
+		for (String relation : new String[] { "ss", "so", "os" })
+			for (int word = 0; word < words; word++)
+				ss.addProjection(String.format("COALESCE(%1$s.w%2$d, 0) AS %1$s_%2$d", relation, word));
+		ss.from(String.format("%s tt", tablename_triple_table));
+		ss.leftJoin(String.format("%s ss", tablename_distinct_sp_bitmaps),
+				String.format("tt.%1$s = ss.%1$s", column_name_subject), shuffle);
+		ss.leftJoin(String.format("%s so", tablename_distinct_op_bitmaps),
+				String.format("tt.%s = so.%s", column_name_subject, column_name_object), shuffle);
+		ss.leftJoin(String.format("%s os", tablename_distinct_sp_bitmaps),
+				String.format("tt.%s = os.%s", column_name_object, column_name_subject), shuffle);
+		// Partition column at last (impala requirement)
+		ss.addProjection(String.format("tt.%s", column_name_predicate));
+		impala
+		.insertInto(tablename_output)
+		.addPartition(column_name_predicate)
+		.selectStatement(ss)
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+	}
+
+	/**
+	 * Appends RDF data to the single table of a previous load.
+	 *
+	 * A new triple changes the relations of the rows whose subject is one of
+	 * its terms or whose object is its subject. Only the predicate partitions
+	 * containing such rows are recomputed, all other partitions are left as
+	 * they are. Predicates which are new get their columns added, which are
+	 * NULL in the untouched partitions, as none of their rows is in relation
+	 * to a new predicate. The triple table and the relation tables of the
+	 * previous load have to be kept (-k).
+	 *
+	 * @throws SQLException
+	 */
+	private void append() throws SQLException {
+		// Append to the triple table
+		appendTripleTable();
+
+		// Add the new relations
+		appendRelations(tablename_distinct_sp_relations, column_name_subject);
+		appendRelations(tablename_distinct_op_relations, column_name_object);
+
+		System.out.println(String.format("Starting the update of the singletable '%s'", tablename_output));
+		long timestamp = System.currentTimeMillis();
+
+		// Get the predicates in the order of the columns, new predicates come last
+		HashMap<String, String> new_predicates = new HashMap<String, String>();
+		ResultSet resultSet = impala.select(column_name_predicate).distinct().from(tablename_triple_table).execute();
+		while (resultSet.next()) {
+			String predicate = resultSet.getString(column_name_predicate);
+			new_predicates.put(toImpalaColumnName(predicate).toLowerCase(), predicate);
+		}
+		ArrayList<String> predicates = new ArrayList<String>();
+		for (String column : impala.columnNames(tablename_output))
+			if (column.startsWith("ss_"))
+				predicates.add(new_predicates.remove(column.substring(3)));
+		for (String predicate : new_predicates.values()) {
+			String impalaConformPred = toImpalaColumnName(predicate);
+			impala.addColumn(tablename_output, String.format("ss_%s", impalaConformPred), DataType.BOOLEAN);
+			impala.addColumn(tablename_output, String.format("so_%s", impalaConformPred), DataType.BOOLEAN);
+			impala.addColumn(tablename_output, String.format("os_%s", impalaConformPred), DataType.BOOLEAN);
+			predicates.add(predicate);
+		}
+
+		// Find the partitions with rows in relation to the appended triples
+		// (subject is a new subject, subject is a new object, object is a new subject)
+		String touched = "SELECT tt.%1$s FROM %2$s tt LEFT SEMI JOIN %3$s d ON tt.%4$s = d.%5$s";
+		resultSet = impala
+				.select(column_name_predicate)
+				.distinct()
+				.from(String.format("(%s\nUNION ALL\n%s\nUNION ALL\n%s) touched",
+						String.format(touched, column_name_predicate, tablename_triple_table, tablename_delta_triple_table,
+								column_name_subject, column_name_subject),
+						String.format(touched, column_name_predicate, tablename_triple_table, tablename_delta_triple_table,
+								column_name_subject, column_name_object),
+						String.format(touched, column_name_predicate, tablename_triple_table, tablename_delta_triple_table,
+								column_name_object, column_name_subject)))
+				.execute();
+		ArrayList<String> partitions = new ArrayList<String>();
+		while (resultSet.next())
+			partitions.add(resultSet.getString(column_name_predicate));
+
+		/*
+		 * Recompute the touched partitions
+		 */
+
+		for (String predicate : partitions){
+
+			System.out.print(String.format("Processing '%s'", predicate));
+			long localtimestamp = System.currentTimeMillis();
+
+			// Overwrite the partition using the built select stmt
+			impala
+			.insertOverwrite(tablename_output)
+			.addPartition(column_name_predicate)
+			.selectStatement(selectPartition(predicate, predicates))
+			.execute();
+			
+			System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - localtimestamp)/1000));
+		}
+		System.out.println(String.format("Singletable updated %d partitions in [%.3fs]", partitions.size(), (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeIncrementalStats(tablename_output);
+
+		// Drop intermediate tables
+		if (!keep)
+			impala.dropTable(tablename_delta_triple_table);
+	}
+
+	/**
+	 * Adds the distinct term-predicate tuples of the appended triples, which
+	 * are not in a relation table yet.
+	 *
+	 * @param tablename The relation table
+	 * @param column_name The column of the term (subject or object)
+	 * @throws SQLException
+	 */
+	private void appendRelations(String tablename, String column_name) throws SQLException {
+		System.out.print(String.format("Appending to table '%s'", tablename));
+		long timestamp = System.currentTimeMillis();
+		impala
+		.insertInto(tablename)
+		.selectStatement(
+				impala
+				.select(String.format("d.%s", column_name))
+				.addProjection(String.format("d.%s", column_name_predicate))
+				.distinct()
+				.from(String.format("%s d", tablename_delta_triple_table))
+				.leftAntiJoin(String.format("%s r", tablename),
+						String.format("d.%1$s = r.%1$s AND d.%2$s = r.%2$s", column_name, column_name_predicate),
+						shuffle))
+		.execute();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		computeStats(impala, tablename);
+	}
+
+	/**
+	 * Builds the select statement of the rows of one predicate partition of
+	 * the single table.
+	 *
+	 * @param predicate The predicate of the partition
+	 * @param predicates All predicates in the order of the columns
+	 * @return The select statement
+	 * @throws SQLException
+	 */
+	private SelectStatement selectPartition(String predicate, ArrayList<String> predicates) throws SQLException {
+		// Sets containing existing relations  
+		HashSet<String> SS_relations = new HashSet<String>();
+		HashSet<String> SO_relations = new HashSet<String>();
+		HashSet<String> OS_relations = new HashSet<String>();
+		
+		// Get all predicates that are in a SS relation to any triples in this partition (predicate)
+		ResultSet resultSet =
+				impala
+				.select(column_name_predicate).distinct()
+				.from(String.format("%s sp", tablename_distinct_sp_relations))
+				.leftSemiJoin(
+						String.format("%s tt", tablename_triple_table),
+						String.format("tt.%s=sp.%s AND tt.%s='%s'",
+								column_name_subject, column_name_subject, column_name_predicate, predicate),
+						shuffle)
+				.execute();
+		while (resultSet.next())
+			SS_relations.add(resultSet.getString(column_name_predicate));
+		
+		// Get all predicates that are in a SO relation to any triples in this partition (predicate)
+		resultSet = impala.select(column_name_predicate).distinct()
+				.from(String.format("%s op", tablename_distinct_op_relations))
+				.leftSemiJoin(
+						String.format("%s tt", tablename_triple_table),
+						String.format("tt.%s=op.%s AND tt.%s='%s'",
+								column_name_subject, column_name_object, column_name_predicate, predicate),
+						shuffle)
+				.execute();
+		while (resultSet.next())
+			SO_relations.add(resultSet.getString(column_name_predicate));
+		
+		// Get all predicates that are in a OS relation to any triples in this partition (predicate)
+		resultSet =
+				impala
+				.select(column_name_predicate).distinct()
+				.from(String.format("%s sp", tablename_distinct_sp_relations))
+				.leftSemiJoin(
+						String.format("%s tt", tablename_triple_table),
+						String.format("tt.%s=sp.%s AND tt.%s='%s'",
+								column_name_object, column_name_subject, column_name_predicate, predicate),
+						shuffle)
+				.execute();
+		while (resultSet.next())
+			OS_relations.add(resultSet.getString(column_name_predicate));
+
+		// Build a select stmt for the Insert-as-select statement
+		SelectStatement ss = impala.select();
+
+		// Build the huge select clause
+		ss.addProjection(String.format("tt.%s", column_name_subject));
+		ss.addProjection(String.format("tt.%s", column_name_object));
+		ss.from(String.format("%s tt", tablename_triple_table));
+		
+		for (String p : predicates){
+			String impalaConformPredicate = toImpalaColumnName(p);
+			
+			// SS_p_i
+			if (SS_relations.contains(p)){
+				ss.addProjection(String.format("CASE WHEN %s.%s IS NULL THEN false ELSE true END AS %s",
+						String.format("tss_%s", impalaConformPredicate),
+						column_name_subject,
+						String.format("ss_%s", impalaConformPredicate)));
+				ss.leftJoin(
+						// Table reference e.g. "LEFT JOIN subjects tss_p1"
+						String.format("%s tss_%s", tablename_distinct_sp_relations, impalaConformPredicate),
+						// On clause e.g. "ON tt.id=tss_p1.id AND tss_p1.predicate='wsdbm:friendOf'"
+						String.format("tt.%1$s=tss_%3$s.%1$s AND tss_%3$s.%2$s='%4$s'",
+								column_name_subject,
+								column_name_predicate,
+								impalaConformPredicate,
+								p),
+		   	    			shuffle);
+			} else {
+				ss.addProjection("false");
+			}
+
+			// SO_pi
+			if (SO_relations.contains(p)){
+				ss.addProjection(String.format("CASE WHEN %s.%s IS NULL THEN false ELSE true END AS %s",
+						String.format("tso_%s", impalaConformPredicate),
+						column_name_object,
+						String.format("so_%s", impalaConformPredicate)));
+				ss.leftJoin(
+						// Table reference e.g. "LEFT JOIN objects tso_p1"
+						String.format("%s tso_%s", tablename_distinct_op_relations, impalaConformPredicate),
+						// On clause e.g. "ON tt.id=tso_p1.object AND tso_p1.predicate='wsdbm:friendOf'"
+						String.format("tt.%1$s=tso_%4$s.%3$s AND tso_%4$s.%2$s='%5$s'",
+								column_name_subject,
+								column_name_predicate,
+								column_name_object,
+								impalaConformPredicate,
+								p),
+		   	    			shuffle);
+			} else {
+				ss.addProjection("false");
+			}
+			
+			if (OS_relations.contains(p)){
+				ss.addProjection(String.format("CASE WHEN %s.%s IS NULL THEN false ELSE true END AS %s",
+						String.format("tos_%s", impalaConformPredicate),
+						column_name_subject,
+						String.format("os_%s", impalaConformPredicate)));
+				ss.leftJoin(
+						// Table reference e.g. "LEFT JOIN subjects tos_p1"
+						String.format("%s tos_%s", tablename_distinct_sp_relations, impalaConformPredicate),
+						// On clause e.g. "ON tt.object=tos_p1.id AND tos_p1.predicate='wsdbm:friendOf'"
+						String.format("tt.%3$s=tos_%4$s.%1$s AND tos_%4$s.%2$s='%5$s'",
+								column_name_subject,
+								column_name_predicate,
+								column_name_object,
+								impalaConformPredicate,
+								p),
+		   	    			shuffle);
+				
+			} else {
+				ss.addProjection("false");
+			}
+		}
+		// Partition column at last (impala requirement)
+		ss.addProjection(String.format("tt.%s", column_name_predicate));
+		ss.where(String.format("tt.%s='%s'", column_name_predicate, predicate));
+
+		return ss;
+	}
+}
@@ -0,0 +1,66 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.bench;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+
+/**
+ * Generates the triples (s, p, o) of a partition for the benchmarks. A share
+ * of the triples belongs to a few hub subjects, the rest is spread uniformly
+ * over the other subjects, predicates and objects. The partition number is
+ * the seed of the random numbers, so every run generates the same triples.
+ */
+final class GenerateTriples implements FlatMapFunction<Iterator<Integer>, Row> {
+
+	private static final long serialVersionUID = 8530327151650298375L;
+
+	private final long triples;
+	private final int subjects;
+	private final int predicates;
+	private final int hubs;
+	private final double hubShare;
+
+	/**
+	 * @param triples The number of triples of every partition
+	 * @param subjects The number of subjects including the hubs
+	 * @param predicates The number of predicates
+	 * @param hubs The number of hub subjects
+	 * @param hubShare The share of the triples belonging to the hubs
+	 */
+	GenerateTriples(long triples, int subjects, int predicates, int hubs, double hubShare) {
+		this.triples = triples;
+		this.subjects = subjects;
+		this.predicates = predicates;
+		this.hubs = hubs;
+		this.hubShare = hubShare;
+	}
+
+	static String subject(int i) {
+		return String.format("<http://example.org/s%d>", i);
+	}
+
+	static String predicate(int i) {
+		return String.format("<http://example.org/p%d>", i);
+	}
+
+	@Override
+	public Iterable<Row> call(Iterator<Integer> seeds) {
+		ArrayList<Row> rows = new ArrayList<Row>();
+		while (seeds.hasNext()) {
+			Random random = new Random(seeds.next());
+			for (long i = 0; i < triples; i++) {
+				int subject = (hubs > 0 && random.nextDouble() < hubShare) ? random.nextInt(hubs)
+						: hubs + random.nextInt(subjects - hubs);
+				rows.add(RowFactory.create(
+						subject(subject),
+						predicate(random.nextInt(predicates)),
+						String.format("<http://example.org/o%d>", random.nextInt(subjects))));
+			}
+		}
+		return rows;
+	}
+}
@@ -1,4 +1,4 @@
-package de.uni_freiburg.informatik.dbis.sempala.loader.udf;
+package de.uni_freiburg.informatik.dbis.sempala.loader.bench;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,6 +30,9 @@ import org.apache.spark.sql.types.StructType;
  * results for each predicate will be the same as the order of the predicates
  * specified in the creation of the function.
  * 
+ * This is the former aggregation of the complex property table, it is kept
+ * as baseline of {@link PropertiesAggregatorBenchmark}.
+ * 
  * @author Matteo Cossu
  *
  */
@@ -98,7 +101,7 @@ public class PropertiesAggregateFunction extends UserDefinedAggregateFunction {
 		if (properties.containsKey(property)) {
 			List<String> values = getStringList(properties.get(property));
 			values.add(value);
-			properties.replace(property, values);
+			properties.put(property, values);
 		} else { // otherwise just create a new list with that value
 			List<String> values = new ArrayList<String>();
 			values.add(value);
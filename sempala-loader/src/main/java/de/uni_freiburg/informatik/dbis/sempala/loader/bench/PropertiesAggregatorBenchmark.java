@@ -0,0 +1,151 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.DataFrame;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.storage.StorageLevel;
+
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.PropertiesAggregator;
+
+/**
+ * Compares the aggregation of the complex property table by
+ * {@link PropertiesAggregator} with the former user defined aggregate
+ * function {@link PropertiesAggregateFunction}.
+ *
+ * The triples are generated with skewed subjects: a share of the triples
+ * belongs to a few hub subjects, the rest is spread uniformly over the other
+ * subjects. Both aggregations run on the same cached triples, the
+ * aggregation with salted hub subjects is timed as well.
+ *
+ * The benchmark runs in Spark local mode unless a master is given, e.g.
+ * spark-submit --master local[8] --class
+ * de.uni_freiburg.informatik.dbis.sempala.loader.bench.PropertiesAggregatorBenchmark
+ * Sempala.jar [triples] [subjects] [predicates] [hub share] [skew threshold]
+ */
+public final class PropertiesAggregatorBenchmark {
+
+	/** The number of hub subjects. */
+	private static final int hubs = 10;
+
+	/** The number of runs of every aggregation. */
+	private static final int runs = 3;
+
+	/** The fraction of the triples sampled to find the heavy subjects. */
+	private static final double skew_sample_fraction = 0.01;
+
+	/** Separator of predicate and object of the former aggregation. */
+	private static final String columns_separator = "$%";
+
+	public static void main(String[] args) {
+		long triples = (args.length > 0) ? Long.parseLong(args[0]) : 1000000;
+		int subjects = (args.length > 1) ? Integer.parseInt(args[1]) : 10000;
+		int predicates = (args.length > 2) ? Integer.parseInt(args[2]) : 20;
+		double hubShare = (args.length > 3) ? Double.parseDouble(args[3]) : 0.3;
+		long skewThreshold = (args.length > 4) ? Long.parseLong(args[4]) : 10000;
+
+		SparkConf sparkConfiguration = new SparkConf()
+				.setAppName("PropertiesAggregatorBenchmark")
+				.setIfMissing("spark.master", "local[*]");
+		JavaSparkContext javaContext = new JavaSparkContext(sparkConfiguration);
+		SQLContext sqlContext = new SQLContext(javaContext);
+		int partitions = javaContext.defaultParallelism();
+
+		System.out.print(String.format("Generating %d triples of %d subjects (%d hubs with %.0f%% of the triples)",
+				triples, subjects, hubs, hubShare * 100));
+		long timestamp = System.currentTimeMillis();
+		List<Integer> seeds = new ArrayList<Integer>();
+		for (int i = 0; i < partitions; i++)
+			seeds.add(i);
+		JavaRDD<Row> rows = javaContext.parallelize(seeds, partitions)
+				.mapPartitions(new GenerateTriples(triples / partitions, subjects, predicates, hubs, hubShare));
+		StructType schema = DataTypes.createStructType(new StructField[] {
+				DataTypes.createStructField("s", DataTypes.StringType, false),
+				DataTypes.createStructField("p", DataTypes.StringType, false),
+				DataTypes.createStructField("o", DataTypes.StringType, false) });
+		DataFrame tripleTable = sqlContext.createDataFrame(rows, schema).persist(StorageLevel.MEMORY_AND_DISK_SER());
+		tripleTable.count();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		// a property is complex if a subject has more than one value, as in the loader
+		HashSet<String> complexPredicates = new HashSet<String>();
+		for (Row predicate : tripleTable.groupBy("s", "p").count().where("count > 1").select("p").distinct().collect())
+			complexPredicates.add(predicate.getString(0));
+		ArrayList<String> allPredicates = new ArrayList<String>();
+		String[] allProperties = new String[predicates];
+		Boolean[] isComplexProperty = new Boolean[predicates];
+		for (int i = 0; i < predicates; i++) {
+			allPredicates.add(GenerateTriples.predicate(i));
+			allProperties[i] = PropertiesAggregator.normalize(GenerateTriples.predicate(i));
+			isComplexProperty[i] = complexPredicates.contains(GenerateTriples.predicate(i));
+		}
+		PropertiesAggregator aggregator = new PropertiesAggregator(allProperties, isComplexProperty, allPredicates);
+
+		System.out.print("Sampling heavy subjects");
+		timestamp = System.currentTimeMillis();
+		HashMap<String, Integer> salts = PropertiesAggregator.heavySubjects(tripleTable.javaRDD(), skew_sample_fraction,
+				skewThreshold, partitions);
+		System.out.println(String.format(" (%d subjects) [%.3fs]", salts.size(), (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		for (int run = 1; run <= runs; run++) {
+			System.out.print(String.format("Aggregating with PropertiesAggregateFunction (run %d)", run));
+			timestamp = System.currentTimeMillis();
+			long count = aggregateWithFunction(tripleTable, allProperties, isComplexProperty);
+			System.out.println(String.format(" (%d rows) [%.3fs]", count, (float)(System.currentTimeMillis() - timestamp)/1000));
+
+			System.out.print(String.format("Aggregating with PropertiesAggregator (run %d)", run));
+			timestamp = System.currentTimeMillis();
+			count = aggregator.aggregate(tripleTable.javaRDD()).count();
+			System.out.println(String.format(" (%d rows) [%.3fs]", count, (float)(System.currentTimeMillis() - timestamp)/1000));
+
+			if (salts.isEmpty())
+				continue;
+			System.out.print(String.format("Aggregating with PropertiesAggregator, salted heavy subjects (run %d)", run));
+			timestamp = System.currentTimeMillis();
+			count = aggregator.aggregate(tripleTable.javaRDD(), salts, partitions).count();
+			System.out.println(String.format(" (%d rows) [%.3fs]", count, (float)(System.currentTimeMillis() - timestamp)/1000));
+		}
+
+		tripleTable.unpersist();
+		javaContext.stop();
+	}
+
+	/**
+	 * Aggregates the triples the way the complex property table loader did
+	 * before {@link PropertiesAggregator}.
+	 *
+	 * @return The number of rows of the property table
+	 */
+	private static long aggregateWithFunction(DataFrame tripleTable, String[] allProperties, Boolean[] isComplexProperty) {
+		PropertiesAggregateFunction aggregator = new PropertiesAggregateFunction(allProperties,
+				Pattern.quote(columns_separator));
+
+		DataFrame compressedTriples = tripleTable.select(tripleTable.col("s"), functions.concat(tripleTable.col("p"),
+				functions.lit(columns_separator), tripleTable.col("o")).alias("po"));
+		DataFrame grouped = compressedTriples.groupBy("s")
+				.agg(aggregator.apply(compressedTriples.col("po")).alias("group"));
+
+		// extract the properties from the array, single values of simple properties
+		String[] selectProperties = new String[allProperties.length + 1];
+		selectProperties[0] = "s";
+		for (int i = 0; i < allProperties.length; i++)
+			selectProperties[i + 1] = isComplexProperty[i]
+					? String.format("group[%d] AS %s", i, allProperties[i])
+					: String.format("group[%d][0] AS %s", i, allProperties[i]);
+
+		// counted as RDD, otherwise the unused aggregate would be pruned
+		return grouped.selectExpr(selectProperties).javaRDD().count();
+	}
+}
@@ -0,0 +1,170 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.DataFrame;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SQLContext;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.api.java.UDF1;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+
+/**
+ * Compares star queries on a triple table partitioned by predicate with the
+ * same table partitioned by predicate and subject bucket (loader option -sb).
+ *
+ * The queries are built like the ExtVP joins of the translator: the star
+ * with a bound subject also selects the bucket of the subject, so only one
+ * partition per predicate is scanned, and the star with a subject variable
+ * also joins the buckets. Spark has no runtime filters, so the latter shows
+ * the cost of the additional join key rather than pruned partitions.
+ *
+ * The buckets are the hash code of the subject modulo the number of buckets
+ * instead of fnv_hash of impala, the layout of the partitions is the same.
+ * The benchmark runs in Spark local mode unless a master is given, e.g.
+ * spark-submit --master local[8] --class
+ * de.uni_freiburg.informatik.dbis.sempala.loader.bench.SubjectBucketsBenchmark
+ * Sempala.jar [triples] [subjects] [predicates] [buckets] [star size] [directory]
+ */
+public final class SubjectBucketsBenchmark {
+
+	/** The number of runs of every query. */
+	private static final int runs = 3;
+
+	/** The name of the function computing the bucket of a subject. */
+	private static final String function_name_subject_bucket = "subject_bucket";
+
+	/** The name of the column of the subject bucket, as in the loader. */
+	private static final String column_name_subject_bucket = "s_bucket";
+
+	public static void main(String[] args) {
+		long triples = (args.length > 0) ? Long.parseLong(args[0]) : 1000000;
+		int subjects = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+		int predicates = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+		int buckets = (args.length > 3) ? Integer.parseInt(args[3]) : 16;
+		int size = (args.length > 4) ? Integer.parseInt(args[4]) : 3;
+		String directory = (args.length > 5) ? args[5]
+				: System.getProperty("java.io.tmpdir") + "/sempala_subject_buckets";
+
+		SparkConf sparkConfiguration = new SparkConf()
+				.setAppName("SubjectBucketsBenchmark")
+				.setIfMissing("spark.master", "local[*]");
+		JavaSparkContext javaContext = new JavaSparkContext(sparkConfiguration);
+		SQLContext sqlContext = new SQLContext(javaContext);
+		int partitions = javaContext.defaultParallelism();
+		sqlContext.udf().register(function_name_subject_bucket, new SubjectBucket(buckets), DataTypes.IntegerType);
+
+		System.out.print(String.format("Generating %d triples of %d subjects", triples, subjects));
+		long timestamp = System.currentTimeMillis();
+		List<Integer> seeds = new ArrayList<Integer>();
+		for (int i = 0; i < partitions; i++)
+			seeds.add(i);
+		JavaRDD<Row> rows = javaContext.parallelize(seeds, partitions)
+				.mapPartitions(new GenerateTriples(triples / partitions, subjects, predicates, 0, 0));
+		StructType schema = DataTypes.createStructType(new StructField[] {
+				DataTypes.createStructField("s", DataTypes.StringType, false),
+				DataTypes.createStructField("p", DataTypes.StringType, false),
+				DataTypes.createStructField("o", DataTypes.StringType, false) });
+		DataFrame tripleTable = sqlContext.createDataFrame(rows, schema)
+				.selectExpr("s", "o", "p", String.format("%s(s) AS %s", function_name_subject_bucket, column_name_subject_bucket));
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		System.out.print(String.format("Writing the triple table partitioned by predicate to '%s/plain'", directory));
+		timestamp = System.currentTimeMillis();
+		tripleTable.select("s", "o", "p").write().mode(SaveMode.Overwrite).partitionBy("p").parquet(directory + "/plain");
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		System.out.print(String.format("Writing the triple table partitioned by predicate and %d subject buckets to '%s/bucketed'",
+				buckets, directory));
+		timestamp = System.currentTimeMillis();
+		tripleTable.write().mode(SaveMode.Overwrite).partitionBy("p", column_name_subject_bucket).parquet(directory + "/bucketed");
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		sqlContext.read().parquet(directory + "/plain").registerTempTable("tripletable_plain");
+		sqlContext.read().parquet(directory + "/bucketed").registerTempTable("tripletable_bucketed");
+
+		// a subject in the middle of the range, it has triples of most predicates
+		String subject = GenerateTriples.subject(subjects / 2);
+		int bucket = new SubjectBucket(buckets).call(subject);
+
+		for (int run = 1; run <= runs; run++) {
+			for (boolean bound : new boolean[] { true, false }) {
+				String star = String.format("star of %d triples with %s subject", size, bound ? "a bound" : "a variable");
+
+				System.out.print(String.format("Querying %s without subject buckets (run %d)", star, run));
+				timestamp = System.currentTimeMillis();
+				long count = sqlContext.sql(starQuery("tripletable_plain", size, bound ? subject : null, -1)).count();
+				System.out.println(String.format(" (%d rows) [%.3fs]", count, (float)(System.currentTimeMillis() - timestamp)/1000));
+
+				System.out.print(String.format("Querying %s with subject buckets (run %d)", star, run));
+				timestamp = System.currentTimeMillis();
+				count = sqlContext.sql(starQuery("tripletable_bucketed", size, bound ? subject : null, bucket)).count();
+				System.out.println(String.format(" (%d rows) [%.3fs]", count, (float)(System.currentTimeMillis() - timestamp)/1000));
+			}
+		}
+
+		javaContext.stop();
+	}
+
+	/**
+	 * Builds a star of triples with the predicates 0 to size - 1 that share
+	 * their subject.
+	 *
+	 * @param table The triple table
+	 * @param size The number of triples of the star
+	 * @param subject The bound subject or null for a subject variable
+	 * @param bucket The bucket of the bound subject, -1 if the table has no
+	 *        subject buckets
+	 * @return The query
+	 */
+	private static String starQuery(String table, int size, String subject, int bucket) {
+		boolean buckets = bucket >= 0;
+		StringBuilder projection = new StringBuilder("SELECT t0.s");
+		StringBuilder from = new StringBuilder(" FROM ");
+		for (int i = 0; i < size; i++) {
+			projection.append(String.format(", t%1$d.o AS o%1$d", i));
+
+			String triple = String.format("(SELECT s, o%s FROM %s WHERE p = '%s'",
+					buckets ? ", " + column_name_subject_bucket : "", table, GenerateTriples.predicate(i));
+			if (subject != null)
+				triple += String.format(" AND s = '%s'", subject);
+			// the bucket of a bound subject selects one partition
+			if (subject != null && buckets)
+				triple += String.format(" AND %s = %d", column_name_subject_bucket, bucket);
+			triple += String.format(") t%d", i);
+
+			if (i == 0) {
+				from.append(triple);
+				continue;
+			}
+			from.append(String.format(" JOIN %s ON t0.s = t%d.s", triple, i));
+			// the buckets of a subject variable are joined as well
+			if (buckets)
+				from.append(String.format(" AND t0.%1$s = t%2$d.%1$s", column_name_subject_bucket, i));
+		}
+		return projection.append(from).toString();
+	}
+
+	/** Returns the bucket of a subject */
+	private static final class SubjectBucket implements UDF1<String, Integer> {
+
+		private static final long serialVersionUID = -5208623641840197126L;
+
+		private final int buckets;
+
+		SubjectBucket(int buckets) {
+			this.buckets = buckets;
+		}
+
+		@Override
+		public Integer call(String subject) {
+			return (subject.hashCode() & Integer.MAX_VALUE) % buckets;
+		}
+	}
+}
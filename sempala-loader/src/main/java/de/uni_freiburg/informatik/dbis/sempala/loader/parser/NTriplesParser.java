@@ -0,0 +1,151 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.parser;
+
+import java.io.Serializable;
+
+/**
+ * A streaming parser for lines in N-Triples format.
+ *
+ * The parser scans a line once, character by character, and only allocates
+ * the three terms it returns. Terms are delimited by their syntax, not by a
+ * field terminator. Hence literals containing tabs or spaces are kept in one
+ * piece and the terminating dot is never part of the object. The terms are
+ * returned exactly as written in the input (IRIs keep their angle brackets,
+ * literals their quotes, language tags and datatypes).
+ *
+ * An instance keeps the terms of the last parsed line and is meant to be
+ * reused for all lines of a partition.
+ */
+public final class NTriplesParser implements Serializable {
+
+	private static final long serialVersionUID = 2983748347312095147L;
+
+	private String subject = null;
+	private String predicate = null;
+	private String object = null;
+
+	/**
+	 * Parses a single line.
+	 *
+	 * @param line The line to parse
+	 * @return true if the line contained a triple, false if it was empty, a
+	 *         comment or malformed
+	 */
+	public boolean parse(final String line) {
+		subject = predicate = object = null;
+
+		int start = skipWhitespace(line, 0);
+		if (start == line.length() || line.charAt(start) == '#')
+			return false;
+
+		int end = endOfTerm(line, start);
+		if (end < 0)
+			return false;
+		final String s = line.substring(start, end);
+
+		start = skipWhitespace(line, end);
+		end = endOfTerm(line, start);
+		if (end < 0 || line.charAt(start) == '"')
+			return false;
+		final String p = line.substring(start, end);
+
+		start = skipWhitespace(line, end);
+		end = endOfTerm(line, start);
+		if (end < 0)
+			return false;
+		final String o = line.substring(start, end);
+
+		// Only the terminating dot may follow the object
+		start = skipWhitespace(line, end);
+		if (start < line.length() && line.charAt(start) != '.')
+			return false;
+
+		subject = s;
+		predicate = p;
+		object = o;
+		return true;
+	}
+
+	/** @return The subject of the last parsed triple */
+	public String getSubject() {
+		return subject;
+	}
+
+	/** @return The predicate of the last parsed triple */
+	public String getPredicate() {
+		return predicate;
+	}
+
+	/** @return The object of the last parsed triple */
+	public String getObject() {
+		return object;
+	}
+
+	private static boolean isWhitespace(final char c) {
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+
+	private static int skipWhitespace(final String line, int i) {
+		while (i < line.length() && isWhitespace(line.charAt(i)))
+			i++;
+		return i;
+	}
+
+	/**
+	 * Finds the end of the term starting at the given position.
+	 *
+	 * @return The index after the last character of the term or -1 if there
+	 *         is no well formed term at this position
+	 */
+	private static int endOfTerm(final String line, final int start) {
+		final int length = line.length();
+		if (start >= length)
+			return -1;
+
+		switch (line.charAt(start)) {
+		case '<': {
+			// IRI
+			final int close = line.indexOf('>', start + 1);
+			return close < 0 ? -1 : close + 1;
+		}
+		case '"': {
+			// Literal, skip escaped characters
+			int i = start + 1;
+			while (i < length) {
+				final char c = line.charAt(i);
+				if (c == '\\')
+					i += 2;
+				else if (c == '"')
+					break;
+				else
+					i++;
+			}
+			if (i >= length)
+				return -1;
+			i++;
+
+			if (i < length && line.charAt(i) == '@') {
+				// Language tag
+				i++;
+				while (i < length && (Character.isLetterOrDigit(line.charAt(i)) || line.charAt(i) == '-'))
+					i++;
+			} else if (line.startsWith("^^<", i)) {
+				// Datatype IRI
+				final int close = line.indexOf('>', i + 3);
+				return close < 0 ? -1 : close + 1;
+			}
+			return i;
+		}
+		default: {
+			// Blank nodes and bare tokens end at the next whitespace. A blank
+			// node label must not end with a dot, so a dot glued to the last
+			// token is the terminating one.
+			int i = start;
+			while (i < length && !isWhitespace(line.charAt(i)))
+				i++;
+			if (skipWhitespace(line, i) == length && i - 1 > start && line.charAt(i - 1) == '.')
+				i--;
+			return i;
+		}
+		}
+	}
+}
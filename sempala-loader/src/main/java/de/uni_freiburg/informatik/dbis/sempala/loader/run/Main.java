@@ -10,12 +10,15 @@ import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 
+import de.uni_freiburg.informatik.dbis.sempala.loader.CharacteristicSetLoader;
 import de.uni_freiburg.informatik.dbis.sempala.loader.ExtVPLoader;
 import de.uni_freiburg.informatik.dbis.sempala.loader.Loader;
 import de.uni_freiburg.informatik.dbis.sempala.loader.SimplePropertyTableLoader;
 import de.uni_freiburg.informatik.dbis.sempala.loader.SingleTableLoader;
 import de.uni_freiburg.informatik.dbis.sempala.loader.spark.ComplexPropertyTableLoader;
 import de.uni_freiburg.informatik.dbis.sempala.loader.spark.Spark;
+import de.uni_freiburg.informatik.dbis.sempala.loader.spark.SparkExtVPLoader;
+import de.uni_freiburg.informatik.dbis.sempala.loader.spark.TripleTableWriter;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.Impala;
 import de.uni_freiburg.informatik.dbis.sempala.loader.sql.Impala.QueryOption;
 
@@ -57,12 +60,9 @@ public class Main {
 		String database = commandLine.getOptionValue(OptionNames.DATABASE.toString());
 		Impala impala = null;
 		Spark spark = null;
-		if (format.equals(Format.EXTVP.toString()) || format.equals(Format.SIMPLE_PROPERTY_TABLE.toString()) || format.equals(Format.SINGLE_TABLE.toString())) {
+		if (format.equals(Format.EXTVP.toString()) || format.equals(Format.SIMPLE_PROPERTY_TABLE.toString()) || format.equals(Format.SINGLE_TABLE.toString())
+				|| format.equals(Format.CHARACTERISTIC_SETS.toString())) {
 			// Connect to the impala daemon
-			if(!commandLine.hasOption(OptionNames.USER_HDFS_DIRECTORY.toString())){
-				System.err.println("For ExtVP format user's absolut path of HDFS direcotry -ud is also required.");
-				System.exit(1);
-			}
 			try {
 				String host = commandLine.getOptionValue(OptionNames.HOST.toString());
 				String port = commandLine.getOptionValue(OptionNames.PORT.toString(), "21050");
@@ -74,7 +74,7 @@ public class Main {
 				System.err.println("For ExtVP format the Host -H is also required");
 				System.exit(1);
 			}
-		} else if (format.equals(Format.COMPLEX_PROPERTY_TABLE.toString())) {
+		} else if (format.equals(Format.COMPLEX_PROPERTY_TABLE.toString()) || format.equals(Format.EXTVP_SPARK.toString())) {
 			// use spark
 			spark = new Spark("sempalaApp", database);
 		}
@@ -85,6 +85,7 @@ public class Main {
 
 		Loader loader = null;
 		ComplexPropertyTableLoader complexPropertyLoader = null;
+		SparkExtVPLoader sparkExtVPLoader = null;
 
 		// Construct the loader corresponding to format
 		String hdfsInputDirectory = commandLine.getOptionValue(OptionNames.INPUT.toString());
@@ -92,8 +93,17 @@ public class Main {
 			loader = new SimplePropertyTableLoader(impala, hdfsInputDirectory);
 		} else if (format.equals(Format.COMPLEX_PROPERTY_TABLE.toString())) {
 			complexPropertyLoader = new ComplexPropertyTableLoader(spark, hdfsInputDirectory);
+		} else if (format.equals(Format.EXTVP_SPARK.toString())) {
+			if (!commandLine.hasOption(OptionNames.NATIVE_PARSER.toString())) {
+				System.err.println("Fatal: The format extvp_spark needs the HDFS directory of the parquet files of the triple table (-np).");
+				System.exit(1);
+			}
+			sparkExtVPLoader = new SparkExtVPLoader(spark, new TripleTableWriter(spark, hdfsInputDirectory,
+					commandLine.getOptionValue(OptionNames.NATIVE_PARSER.toString())));
 		} else if (format.equals(Format.SINGLE_TABLE.toString())) {
 			loader = new SingleTableLoader(impala, hdfsInputDirectory);
+		} else if (format.equals(Format.CHARACTERISTIC_SETS.toString())) {
+			loader = new CharacteristicSetLoader(impala, hdfsInputDirectory);
 		} else if (format.equals(Format.EXTVP.toString()))
 			loader = new ExtVPLoader(impala, hdfsInputDirectory);
 		else {
@@ -153,9 +163,228 @@ public class Main {
 			
 			if(commandLine.hasOption(OptionNames.PREDICATE_PARTITION.toString()))
 				loader.Predicate_Partition = commandLine.getOptionValue(OptionNames.PREDICATE_PARTITION.toString());
+
+			if(commandLine.hasOption(OptionNames.BLOOM_FILTER.toString())) {
+				System.err.println("Fatal: Bloom filters are only supported for the format extvp_spark.");
+				System.exit(1);
+			}
+
+			if(commandLine.hasOption(OptionNames.CONNECTIONS.toString())) {
+				try {
+					loader.connections = Integer.parseInt(commandLine.getOptionValue(OptionNames.CONNECTIONS.toString()));
+					if (loader.connections < 1)
+						throw new NumberFormatException();
+				} catch (NumberFormatException e) {
+					System.err.println("Fatal: The number of connections has to be a positive integer.");
+					System.exit(1);
+				}
+			}
+
+			if(commandLine.hasOption(OptionNames.CHARACTERISTIC_TABLES.toString())) {
+				try {
+					loader.characteristic_tables = Integer.parseInt(commandLine.getOptionValue(OptionNames.CHARACTERISTIC_TABLES.toString()));
+					if (loader.characteristic_tables < 1)
+						throw new NumberFormatException();
+				} catch (NumberFormatException e) {
+					System.err.println("Fatal: The number of characteristic set tables has to be a positive integer.");
+					System.exit(1);
+				}
+			}
+
+			if(commandLine.hasOption(OptionNames.SKEW_THRESHOLD.toString())
+					|| commandLine.hasOption(OptionNames.SHUFFLE_PARTITIONS.toString())) {
+				System.err.println("Fatal: The skew threshold and the shuffle partitions are only supported for the format complex_property_table.");
+				System.exit(1);
+			}
+
+			if(commandLine.hasOption(OptionNames.STATS_POLICY.toString())) {
+				String policy = commandLine.getOptionValue(OptionNames.STATS_POLICY.toString());
+				try {
+					loader.stats_policy = Loader.StatsPolicy.valueOf(policy.toUpperCase());
+				} catch (IllegalArgumentException e) {
+					System.err.println(String.format("Fatal: Unknown stats policy '%s'.", policy));
+					System.exit(1);
+				}
+			}
+
+			if(commandLine.hasOption(OptionNames.STATS_SAMPLE.toString())) {
+				try {
+					loader.stats_sample = Integer.parseInt(commandLine.getOptionValue(OptionNames.STATS_SAMPLE.toString()));
+					if (loader.stats_sample < 1 || loader.stats_sample > 100)
+						throw new NumberFormatException();
+				} catch (NumberFormatException e) {
+					System.err.println("Fatal: The stats sample has to be a percentage between 1 and 100.");
+					System.exit(1);
+				}
+			}
+
+			if(commandLine.hasOption(OptionNames.DICTIONARY_ENCODING.toString()))
+				loader.dictionary_encoding = commandLine.hasOption(OptionNames.DICTIONARY_ENCODING.toString());
+
+			if(commandLine.hasOption(OptionNames.JOIN_PROPERTIES.toString()))
+				loader.join_properties = commandLine.hasOption(OptionNames.JOIN_PROPERTIES.toString());
+
+			if(commandLine.hasOption(OptionNames.APPEND.toString())) {
+				if (format.equals(Format.EXTVP.toString()) || format.equals(Format.CHARACTERISTIC_SETS.toString())) {
+					System.err.println("Fatal: Appending is only supported for the formats simple_property_table and single_table.");
+					System.exit(1);
+				}
+				if (commandLine.hasOption(OptionNames.NATIVE_PARSER.toString())) {
+					System.err.println("Fatal: Appending is not supported with the native parser.");
+					System.exit(1);
+				}
+				loader.append = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.BITMAP.toString())) {
+				if (!format.equals(Format.SINGLE_TABLE.toString())) {
+					System.err.println("Fatal: Bitmaps are only supported for the format single_table.");
+					System.exit(1);
+				}
+				if (commandLine.hasOption(OptionNames.APPEND.toString())) {
+					System.err.println("Fatal: Appending is not supported with bitmaps.");
+					System.exit(1);
+				}
+				loader.bitmap = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.TYPED_LITERALS.toString())) {
+				if (commandLine.hasOption(OptionNames.NATIVE_PARSER.toString())) {
+					System.err.println("Fatal: Typed literals are not supported with the native parser.");
+					System.exit(1);
+				}
+				if (commandLine.hasOption(OptionNames.APPEND.toString()) && format.equals(Format.SIMPLE_PROPERTY_TABLE.toString())) {
+					System.err.println("Fatal: Appending to the property table is not supported with typed literals.");
+					System.exit(1);
+				}
+				loader.typed_literals = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.MULTI_OUTPUT.toString())) {
+				if (!format.equals(Format.EXTVP.toString())) {
+					System.err.println("Fatal: Multi-output is only supported for the format extvp.");
+					System.exit(1);
+				}
+				loader.extvp_multi_output = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.EXTVP_PARTITIONED.toString())) {
+				if (!commandLine.hasOption(OptionNames.MULTI_OUTPUT.toString())) {
+					System.err.println("Fatal: The partitioned ExtVP table is only supported with multi-output.");
+					System.exit(1);
+				}
+				loader.extvp_partitioned = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.OBJECT_REPLICA.toString())) {
+				if (!format.equals(Format.EXTVP.toString())) {
+					System.err.println("Fatal: The replica sorted by object is only supported for the format extvp.");
+					System.exit(1);
+				}
+				loader.object_replica = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.TYPE_PARTITIONS.toString())) {
+				if (!format.equals(Format.EXTVP.toString())) {
+					System.err.println("Fatal: The rdf:type table partitioned by class is only supported for the format extvp.");
+					System.exit(1);
+				}
+				loader.type_partitions = true;
+			}
+
+			if(commandLine.hasOption(OptionNames.SUBJECT_BUCKETS.toString())) {
+				if (commandLine.hasOption(OptionNames.NATIVE_PARSER.toString())) {
+					System.err.println("Fatal: Subject buckets are not supported with the native parser.");
+					System.exit(1);
+				}
+				try {
+					loader.subject_buckets = Integer.parseInt(commandLine.getOptionValue(OptionNames.SUBJECT_BUCKETS.toString()));
+					if (loader.subject_buckets < 1)
+						throw new NumberFormatException();
+				} catch (NumberFormatException e) {
+					System.err.println("Fatal: The number of subject buckets has to be a positive integer.");
+					System.exit(1);
+				}
+			}
+
+			if(commandLine.hasOption(OptionNames.NATIVE_PARSER.toString())) {
+				// Parse the rdf data with spark and let impala use the parquet files
+				spark = new Spark("sempalaApp", database);
+				loader.triple_table_writer = new TripleTableWriter(spark, hdfsInputDirectory,
+						commandLine.getOptionValue(OptionNames.NATIVE_PARSER.toString()));
+			}
 			
 		// set the option of loader that is responsible for complex property table (spark)
 		} else if (complexPropertyLoader != null) {
+			if (commandLine.hasOption(OptionNames.APPEND.toString())) {
+				System.err.println("Fatal: Appending is only supported for the formats simple_property_table and single_table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.BITMAP.toString())) {
+				System.err.println("Fatal: Bitmaps are only supported for the format single_table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.DICTIONARY_ENCODING.toString())) {
+				System.err.println("Fatal: Dictionary encoding is not supported for the complex property table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.SUBJECT_BUCKETS.toString())) {
+				System.err.println("Fatal: Subject buckets are not supported for the complex property table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.TYPED_LITERALS.toString())) {
+				System.err.println("Fatal: Typed literals are only supported for the formats loaded with impala.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.OBJECT_REPLICA.toString())) {
+				System.err.println("Fatal: The replica sorted by object is only supported for the format extvp.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.TYPE_PARTITIONS.toString())) {
+				System.err.println("Fatal: The rdf:type table partitioned by class is only supported for the format extvp.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.MULTI_OUTPUT.toString())
+					|| commandLine.hasOption(OptionNames.EXTVP_PARTITIONED.toString())) {
+				System.err.println("Fatal: Multi-output and the partitioned ExtVP table are only supported for the format extvp.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.STATS_POLICY.toString())
+					|| commandLine.hasOption(OptionNames.STATS_SAMPLE.toString())) {
+				System.err.println("Fatal: Stats policies are only supported for the formats loaded with impala.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.SKEW_THRESHOLD.toString())) {
+				try {
+					complexPropertyLoader.skew_threshold = Long.parseLong(commandLine.getOptionValue(OptionNames.SKEW_THRESHOLD.toString()));
+					if (complexPropertyLoader.skew_threshold < 1)
+						throw new NumberFormatException();
+				} catch (NumberFormatException e) {
+					System.err.println("Fatal: The skew threshold has to be a positive integer.");
+					System.exit(1);
+				}
+			}
+
+			if (commandLine.hasOption(OptionNames.SHUFFLE_PARTITIONS.toString())) {
+				try {
+					complexPropertyLoader.shuffle_partitions = Integer.parseInt(commandLine.getOptionValue(OptionNames.SHUFFLE_PARTITIONS.toString()));
+					if (complexPropertyLoader.shuffle_partitions < 1)
+						throw new NumberFormatException();
+				} catch (NumberFormatException e) {
+					System.err.println("Fatal: The number of shuffle partitions has to be a positive integer.");
+					System.exit(1);
+				}
+			}
+
 			if (commandLine.hasOption(OptionNames.COLUMN_NAME_SUBJECT.toString()))
 				complexPropertyLoader.column_name_subject = commandLine
 						.getOptionValue(OptionNames.COLUMN_NAME_SUBJECT.toString());
@@ -187,6 +416,95 @@ public class Main {
 
 			if (commandLine.hasOption(OptionNames.UNIQUE.toString()))
 				complexPropertyLoader.unique = commandLine.hasOption(OptionNames.UNIQUE.toString());
+
+		// set the options of the ExtVP loader that runs on spark
+		} else if (sparkExtVPLoader != null) {
+			if (commandLine.hasOption(OptionNames.APPEND.toString())) {
+				System.err.println("Fatal: Appending is only supported for the formats simple_property_table and single_table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.BITMAP.toString())) {
+				System.err.println("Fatal: Bitmaps are only supported for the format single_table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.DICTIONARY_ENCODING.toString())) {
+				System.err.println("Fatal: Dictionary encoding is not supported for ExtVP on spark.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.SUBJECT_BUCKETS.toString())) {
+				System.err.println("Fatal: Subject buckets are not supported for ExtVP on spark.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.TYPED_LITERALS.toString())) {
+				System.err.println("Fatal: Typed literals are only supported for the formats loaded with impala.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.OBJECT_REPLICA.toString())) {
+				System.err.println("Fatal: The replica sorted by object is only supported for the format extvp.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.TYPE_PARTITIONS.toString())) {
+				System.err.println("Fatal: The rdf:type table partitioned by class is only supported for the format extvp.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.MULTI_OUTPUT.toString())
+					|| commandLine.hasOption(OptionNames.EXTVP_PARTITIONED.toString())) {
+				System.err.println("Fatal: Multi-output and the partitioned ExtVP table are only supported for the format extvp.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.STATS_POLICY.toString())
+					|| commandLine.hasOption(OptionNames.STATS_SAMPLE.toString())) {
+				System.err.println("Fatal: Stats policies are only supported for the formats loaded with impala.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.SKEW_THRESHOLD.toString())
+					|| commandLine.hasOption(OptionNames.SHUFFLE_PARTITIONS.toString())) {
+				System.err.println("Fatal: The skew threshold and the shuffle partitions are only supported for the format complex_property_table.");
+				System.exit(1);
+			}
+
+			if (commandLine.hasOption(OptionNames.COLUMN_NAME_SUBJECT.toString()))
+				sparkExtVPLoader.column_name_subject = commandLine
+						.getOptionValue(OptionNames.COLUMN_NAME_SUBJECT.toString());
+
+			if (commandLine.hasOption(OptionNames.COLUMN_NAME_PREDICATE.toString()))
+				sparkExtVPLoader.column_name_predicate = commandLine
+						.getOptionValue(OptionNames.COLUMN_NAME_PREDICATE.toString());
+
+			if (commandLine.hasOption(OptionNames.COLUMN_NAME_OBJECT.toString()))
+				sparkExtVPLoader.column_name_object = commandLine
+						.getOptionValue(OptionNames.COLUMN_NAME_OBJECT.toString());
+
+			if (commandLine.hasOption(OptionNames.PREFIX_FILE.toString()))
+				sparkExtVPLoader.prefix_file = commandLine.getOptionValue(OptionNames.PREFIX_FILE.toString());
+
+			if (commandLine.hasOption(OptionNames.UNIQUE.toString()))
+				sparkExtVPLoader.unique = commandLine.hasOption(OptionNames.UNIQUE.toString());
+
+			if (commandLine.hasOption(OptionNames.EXTVP_TYPES.toString()))
+				sparkExtVPLoader.extvp_types_selected = commandLine.getOptionValue(OptionNames.EXTVP_TYPES.toString());
+
+			if (commandLine.hasOption(OptionNames.LIST_OF_PREDICATES.toString()))
+				sparkExtVPLoader.path_of_list_of_predicates = commandLine
+						.getOptionValue(OptionNames.LIST_OF_PREDICATES.toString());
+
+			if (commandLine.hasOption(OptionNames.THRESHOLD.toString()))
+				sparkExtVPLoader.threshold = commandLine.getOptionValue(OptionNames.THRESHOLD.toString());
+
+			if (commandLine.hasOption(OptionNames.EVALUATION_MODE.toString()))
+				sparkExtVPLoader.evaluation_mode = commandLine.hasOption(OptionNames.EVALUATION_MODE.toString());
+
+			if (commandLine.hasOption(OptionNames.BLOOM_FILTER.toString()))
+				sparkExtVPLoader.bloom_filter = commandLine.hasOption(OptionNames.BLOOM_FILTER.toString());
 		}
 
 		/*
@@ -196,12 +514,15 @@ public class Main {
 		if (loader != null) {
 			try {
 				loader.load();
+				loader.finishStats();
 			} catch (SQLException e) {
 				System.err.println("Fatal: SQL exception: " + e.getLocalizedMessage());
 				System.exit(1);
 			}
 		} else if (complexPropertyLoader != null) {
 			complexPropertyLoader.load();
+		} else if (sparkExtVPLoader != null) {
+			sparkExtVPLoader.load();
 		}
 	}
 
@@ -210,7 +531,9 @@ public class Main {
 		SIMPLE_PROPERTY_TABLE, 
 		COMPLEX_PROPERTY_TABLE, 
 		EXTVP, 
-		SINGLE_TABLE,;
+		EXTVP_SPARK,
+		SINGLE_TABLE,
+		CHARACTERISTIC_SETS,;
 
 		@Override
 		public String toString() {
@@ -220,10 +543,17 @@ public class Main {
 
 	/** An enumeration of the options supported by this loader */
 	private enum OptionNames {
+		APPEND,
+		BITMAP,
+		BLOOM_FILTER,
+		CHARACTERISTIC_TABLES,
 		COLUMN_NAME_SUBJECT, 
 		COLUMN_NAME_PREDICATE, 
 		COLUMN_NAME_OBJECT,
+		CONNECTIONS,
 		DATABASE, 
+		DICTIONARY_ENCODING,
+		EXTVP_PARTITIONED,
 		EXTVP_TYPES, 
 		EVALUATION_MODE,
 		FORMAT, 
@@ -231,16 +561,27 @@ public class Main {
 		HELP, 
 		HOST, 
 		INPUT, 
+		JOIN_PROPERTIES,
 		KEEP, 
 		LINE_TERMINATOR, 
 		LIST_OF_PREDICATES, 
+		MULTI_OUTPUT,
+		NATIVE_PARSER,
+		OBJECT_REPLICA,
 		OUTPUT, 
 		PORT, 
 		PREFIX_FILE,
 		PREDICATE_PARTITION,
 		STRIP_DOT, 
 		SHUFFLE, 
+		SHUFFLE_PARTITIONS,
+		SKEW_THRESHOLD,
+		STATS_POLICY,
+		STATS_SAMPLE,
+		SUBJECT_BUCKETS,
 		THRESHOLD, 
+		TYPE_PARTITIONS,
+		TYPED_LITERALS,
 		UNIQUE,
 		USER_HDFS_DIRECTORY;
 
@@ -260,6 +601,18 @@ public class Main {
 		Options options = new Options();
 
 		// Add all other options
+		options.addOption("a", OptionNames.APPEND.toString(), false,
+				"Append the input to the tables of a previous load, which was run with -k. (simple_property_table and single_table only)");
+
+		options.addOption("bm", OptionNames.BITMAP.toString(), false,
+				"Store the SS/SO/OS correlations of the single table as bitmaps. The translator has to be run with -bm as well. (single_table only)");
+
+		options.addOption("bf", OptionNames.BLOOM_FILTER.toString(), false,
+				"Bound the selectivity of ExtVP tables with Bloom filters and skip the semi-joins of tables above the threshold. (extvp_spark only)");
+
+		options.addOption("ct", OptionNames.CHARACTERISTIC_TABLES.toString(), true,
+				"Maximal number of tables the characteristic sets are merged into. (characteristic_sets only, defaults to 32)");
+
 		options.addOption("cs", OptionNames.COLUMN_NAME_SUBJECT.toString(), true,
 				"Overwrites the column name to use. (subject)");
 
@@ -269,10 +622,16 @@ public class Main {
 		options.addOption("co", OptionNames.COLUMN_NAME_OBJECT.toString(), true,
 				"Overwrites the column name to use. (object)");
 
+		options.addOption("cn", OptionNames.CONNECTIONS.toString(), true,
+				"Number of impala connections used to compute ExtVP tables concurrently. (Defaults to 1)");
+
 		Option databaseOption = new Option("d", OptionNames.DATABASE.toString(), true, "The database to use.");
 		databaseOption.setRequired(true);
 		options.addOption(databaseOption);
 
+		options.addOption("de", OptionNames.DICTIONARY_ENCODING.toString(), false,
+				"Replace the terms by BIGINT ids of a dictionary table. The translator has to be run with -de as well.");
+
 		options.addOption("e", OptionNames.EXTVP_TYPES.toString(), true,
 				"Formats of ExtVP to be computed. By default all four formats of ExtVP (SS/SO/OS/OO) are computed");
 
@@ -284,8 +643,12 @@ public class Main {
 				+ Format.COMPLEX_PROPERTY_TABLE.toString()
 				+ ": see Sempala Complex Property Table Master project paper \n" + Format.EXTVP.toString()
 				+ ": see Extended Vertical Partitioning, Master's Thesis: S2RDF, Skilevic Simon\n"
+				+ Format.EXTVP_SPARK.toString()
+				+ ": the same tables as " + Format.EXTVP.toString() + ", computed with spark\n"
 				+ Format.SINGLE_TABLE.toString()
-				+ ": see ExtVP Bigtable, Master's Thesis: S2RDF, Skilevic Simon");
+				+ ": see ExtVP Bigtable, Master's Thesis: S2RDF, Skilevic Simon\n"
+				+ Format.CHARACTERISTIC_SETS.toString()
+				+ ": property tables partitioned by the characteristic sets (predicate sets) of the subjects");
 		formatOption.setRequired(true);
 		options.addOption(formatOption);
 
@@ -300,6 +663,9 @@ public class Main {
 		inputOption.setRequired(true);
 		options.addOption(inputOption);
 		
+		options.addOption("jp", OptionNames.JOIN_PROPERTIES.toString(), false,
+				"Build the simple property table with one join per property instead of one aggregation by subject.");
+
 		options.addOption("k", OptionNames.KEEP.toString(), false, "Do not drop temporary tables.");
 
 		options.addOption("lp", OptionNames.LIST_OF_PREDICATES.toString(), true,
@@ -308,6 +674,20 @@ public class Main {
 		options.addOption("L", OptionNames.LINE_TERMINATOR.toString(), true,
 				"The character used to separate the lines in the data. (Defaults to '\\n')");
 
+		options.addOption("mo", OptionNames.MULTI_OUTPUT.toString(), false,
+				"Compute the ExtVP tables of a predicate with all other predicates by one statement per ExtVP type. (extvp only)");
+
+		options.addOption("xp", OptionNames.EXTVP_PARTITIONED.toString(), false,
+				"Store the ExtVP tables as partitions (extvp_type, p1, p2) of the table extvp instead of tables of their own (requires -mo)."
+				+ " The translator has to be run with -xp as well.");
+
+		options.addOption("np", OptionNames.NATIVE_PARSER.toString(), true,
+				"Parse the N-Triples with spark and write the triple table as parquet into the given HDFS directory.\n"
+				+ "Replaces the external text table. Run with spark-submit (--master local[n] for a single machine).");
+
+		options.addOption("or", OptionNames.OBJECT_REPLICA.toString(), false,
+				"Sort the triple table by subject and build a replica sorted by object. The translator has to be run with -or as well. (extvp only)");
+
 		options.addOption("o", OptionNames.OUTPUT.toString(), true, "Overwrites the name of the output table.");
 
 		options.addOption("p", OptionNames.PORT.toString(), true, "The port to connect to. (Defaults to 21050)");
@@ -322,9 +702,35 @@ public class Main {
 
 		options.addOption("S", OptionNames.SHUFFLE.toString(), false, "Use shuffle strategy for join operations");
 
+		options.addOption("sh", OptionNames.SHUFFLE_PARTITIONS.toString(), true,
+				"The number of partitions of the shuffles. Default the larger of the parallelism of spark and the number of input partitions."
+				+ " (complex_property_table only)");
+
+		options.addOption("sk", OptionNames.SKEW_THRESHOLD.toString(), true,
+				"Find the subjects with more triples than the given threshold in a sample and aggregate their triples in several tasks."
+				+ " (complex_property_table only)");
+
+		options.addOption("sp", OptionNames.STATS_POLICY.toString(), true,
+				"When to compute the optimization stats of the tables: full (every table, default), output (skip the intermediate tables)"
+				+ " or deferred (like output, the stats of the ExtVP tables are computed concurrently on -cn connections at the end).");
+
+		options.addOption("ss", OptionNames.STATS_SAMPLE.toString(), true,
+				"Compute the optimization stats from the given percentage of the data files (requires Impala 2.12).");
+
+		options.addOption("sb", OptionNames.SUBJECT_BUCKETS.toString(), true,
+				"Partition the triple table, the ExtVP tables and the property tables by the hash of the subject into the given number of buckets."
+				+ " The translator has to be run with the same -sb as well.");
+
 		options.addOption("t", OptionNames.THRESHOLD.toString(), true,
 				"Threshold of ExtVP if ExtVP format is selected. Default (SF=1)");
 
+		options.addOption("tp", OptionNames.TYPE_PARTITIONS.toString(), false,
+				"Store the rdf:type triples in the table tripletable_type partitioned by class. The translator has to be run with -tp as well. (extvp only)");
+
+		options.addOption("tl", OptionNames.TYPED_LITERALS.toString(), false,
+				"Parse numeric and date literals into the typed columns o_num and o_date of the triple table (and <property>_num, <property>_date of the property table)."
+				+ " The translator has to be run with -tl as well.");
+
 		options.addOption("u", OptionNames.UNIQUE.toString(), false,
 				"Detect and ignore duplicates in the input (Memoryintensive!)");
 		
@@ -0,0 +1,94 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.spark;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+
+/**
+ * A Bloom filter over strings. A value which was put into the filter is always
+ * reported as contained, other values are reported as contained with the
+ * false positive probability the filter was sized for.
+ *
+ * The k bit positions of a value are derived from two 32 bit halves of one
+ * 64 bit hash (Kirsch and Mitzenmacher), so the hash of a value can be
+ * computed once and probed against many filters, see {@link #hash(String)}.
+ */
+public final class BloomFilter implements Serializable {
+
+	private static final long serialVersionUID = 2975387514094371337L;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final long[] bits;
+	private final long num_bits;
+	private final int num_hashes;
+
+	/**
+	 * @param expected_insertions The number of distinct values to be put
+	 * @param fpp The desired false positive probability, e.g. 0.01
+	 */
+	public BloomFilter(long expected_insertions, double fpp) {
+		long n = Math.max(1, expected_insertions);
+		long m = (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+		bits = new long[(int) Math.max(1, (m + 63) / 64)];
+		num_bits = bits.length * 64L;
+		num_hashes = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+	}
+
+	public void put(String value) {
+		long hash = hash(value);
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= num_hashes; i++) {
+			long index = bitIndex(h1 + (long) i * h2);
+			bits[(int) (index >>> 6)] |= 1L << index;
+		}
+	}
+
+	public boolean mightContain(String value) {
+		return mightContain(hash(value));
+	}
+
+	/**
+	 * @param hash The hash of the value as returned by {@link #hash(String)}
+	 */
+	public boolean mightContain(long hash) {
+		int h1 = (int) hash;
+		int h2 = (int) (hash >>> 32);
+		for (int i = 1; i <= num_hashes; i++) {
+			long index = bitIndex(h1 + (long) i * h2);
+			if ((bits[(int) (index >>> 6)] & (1L << index)) == 0)
+				return false;
+		}
+		return true;
+	}
+
+	/** Adds all values of another filter of the same size. */
+	public BloomFilter merge(BloomFilter other) {
+		for (int i = 0; i < bits.length; i++)
+			bits[i] |= other.bits[i];
+		return this;
+	}
+
+	private long bitIndex(long combined) {
+		// Flip the bits of negative values instead of taking the absolute value
+		return (combined < 0 ? ~combined : combined) % num_bits;
+	}
+
+	/**
+	 * Computes the 64 bit hash of a value (FNV-1a followed by the finalizer of
+	 * MurmurHash3 to spread the bits over both halves).
+	 */
+	public static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(UTF8)) {
+			hash ^= b & 0xff;
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -1,19 +1,23 @@
 package de.uni_freiburg.informatik.dbis.sempala.loader.spark;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
 
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.sql.DataFrame;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SaveMode;
 import org.apache.spark.sql.hive.HiveContext;
 import org.apache.spark.sql.functions;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
 
-import de.uni_freiburg.informatik.dbis.sempala.loader.udf.PropertiesAggregateFunction;
+import de.uni_freiburg.informatik.dbis.sempala.loader.Loader;
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.PrefixTrie;
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.PropertiesAggregator;
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.SparkPrefixCompressFunction;
 
 /**
  * Class that construct complex property table. It operates over set of rdf
@@ -65,6 +69,15 @@ public class ComplexPropertyTableLoader {
 	 */
 	protected static final String tablename_triple_table = "tripletable";
 
+	/**
+	 * The name of the table over the raw input data if the prefixes are
+	 * replaced before the triples are stored in the triple table.
+	 */
+	protected static final String tablename_external_triple_table = "external_tripletable";
+
+	/** The name of the spark function replacing the prefixes. */
+	protected static final String function_name_prefix_compress = "prefix_compress";
+
 	/**
 	 * The name of the table that stores all properties/predicates and their
 	 * type - are they simple or complex. The scheme of the table is (p :
@@ -96,9 +109,6 @@ public class ComplexPropertyTableLoader {
 
 	/** The name used for RDF object columns. */
 	public String column_name_object = "o";
-	
-	/** Separator used to distinguish two values in the same string  */
-	public String columns_separator = "\\$%";
 
 	/**
 	 * The name used for an properties table column which indicates if a
@@ -115,6 +125,22 @@ public class ComplexPropertyTableLoader {
 	/** Indicates if temporary tables must not dropped. */
 	public boolean keep;
 
+	/**
+	 * The number of triples from which on the triples of a subject are
+	 * aggregated by several tasks (salted) and merged afterwards. 0 disables
+	 * the detection of heavy subjects.
+	 */
+	public long skew_threshold = 0;
+
+	/** The fraction of the triples sampled to find the heavy subjects. */
+	protected static final double skew_sample_fraction = 0.01;
+
+	/**
+	 * The number of partitions of the shuffles. 0 chooses the larger of the
+	 * default parallelism of spark and the number of input partitions.
+	 */
+	public int shuffle_partitions = 0;
+
 	/** Spark connection used for executing queries. */
 	private Spark connection;
 
@@ -136,14 +162,26 @@ public class ComplexPropertyTableLoader {
 	 */
 	public void buildTripleTable() {
 
+		// without prefixes the raw data is used as triple table
+		String tablename_raw_triples = (prefix_map != null) ? tablename_external_triple_table : tablename_triple_table;
+
 		String createTripleTable = String.format(
 				"CREATE EXTERNAL TABLE %s(%s STRING, %s STRING, %s STRING) ROW FORMAT DELIMITED"
 						+ " FIELDS TERMINATED BY '%s'  LINES TERMINATED BY '%s' LOCATION '%s'",
-						tablename_triple_table, column_name_subject, column_name_predicate, column_name_object,
+						tablename_raw_triples, column_name_subject, column_name_predicate, column_name_object,
 				field_terminator, line_terminator, hdfs_input_directory);
 
 		this.hiveContext.sql(createTripleTable);
 
+		if (prefix_map != null) {
+			// replace the prefixes in one pass over the raw data
+			this.hiveContext.udf().register(function_name_prefix_compress,
+					new SparkPrefixCompressFunction(new PrefixTrie(prefix_map)), DataTypes.StringType);
+			DataFrame triples = this.hiveContext.sql(String.format("SELECT %2$s(%3$s) AS %3$s, %2$s(%4$s) AS %4$s, %2$s(%5$s) AS %5$s FROM %1$s",
+					tablename_raw_triples, function_name_prefix_compress,
+					column_name_subject, column_name_predicate, column_name_object));
+			triples.write().mode(SaveMode.Overwrite).format(table_format_parquet).saveAsTable(tablename_triple_table);
+		}
 	}
 
 	/**
@@ -155,23 +193,13 @@ public class ComplexPropertyTableLoader {
 		// is_complex can be 1 or 0
 		// 1 for multivalued predicate, 0 for single predicate
 
-		// select the properties that are complex
-		DataFrame multivaluedProperties = this.hiveContext.sql(String.format(
-				"SELECT DISTINCT(%1$s) AS %1$s FROM (SELECT %2$s, %1$s, COUNT(*) AS rc FROM %3$s GROUP BY %2$s, %1$s HAVING rc > 1) AS grouped",
-				column_name_predicate, column_name_subject, tablename_triple_table));
-
-		// select all the properties
-		DataFrame allProperties = this.hiveContext.sql(String.format("SELECT DISTINCT(%1$s) AS %1$s FROM %2$s",
-				column_name_predicate, tablename_triple_table));
-
-		// select the properties that are not complex
-		DataFrame singledValueProperties = allProperties.except(multivaluedProperties);
+		// a predicate is complex if a subject has more than one value of it,
+		// which the statistics of the predicates already tell
+		DataFrame stats = connection.buildPredicateStats(tablename_triple_table,
+				column_name_subject, column_name_predicate, column_name_object);
+		DataFrame combinedProperties = stats.selectExpr(column_name_predicate,
+				String.format("CASE WHEN %s > 1 THEN 1 ELSE 0 END AS %s", Loader.column_name_max_multiplicity, column_name_is_complex));
 
-		// combine them
-		DataFrame combinedProperties = singledValueProperties
-				.selectExpr(column_name_predicate, "0 AS " + column_name_is_complex)
-				.unionAll(multivaluedProperties.selectExpr(column_name_predicate, "1 AS " + column_name_is_complex));
-		
 		// remove '<' and '>', convert the characters
 		DataFrame cleanedProperties = combinedProperties.withColumn("p", functions.regexp_replace(functions.translate(combinedProperties.col("p"), "<>", ""), 
 				"[[^\\w]+]", "_"));
@@ -188,36 +216,45 @@ public class ComplexPropertyTableLoader {
 	 */
 	public void buildComplexPropertyTable(String[] allProperties, Boolean[] isComplexProperty) {
 
-		// create a new aggregation environment
-		PropertiesAggregateFunction aggregator = new PropertiesAggregateFunction(allProperties, columns_separator);
-
-		String predicateObjectColumn = "po";
-		String groupColumn = "group";
-
-		// get the compressed table
-		DataFrame compressedTriples = this.hiveContext.sql(String.format("SELECT %s, CONCAT(%s, '%s', %s) AS po FROM %s",
-				column_name_subject, column_name_predicate, columns_separator, column_name_object, tablename_triple_table));
+		// the distinct predicates as they are stored in the triple table
+		ArrayList<String> predicates = new ArrayList<String>();
+		for (Row predicate : this.hiveContext.sql(String.format("SELECT DISTINCT %s FROM %s",
+				column_name_predicate, tablename_triple_table)).collect())
+			predicates.add(predicate.getString(0));
 
-		// group by the subject and get all the data
-		DataFrame grouped = compressedTriples.groupBy(column_name_subject)
-				.agg(aggregator.apply(compressedTriples.col(predicateObjectColumn)).alias(groupColumn));
+		// create a new aggregation environment
+		PropertiesAggregator aggregator = new PropertiesAggregator(allProperties, isComplexProperty, predicates);
+
+		JavaRDD<Row> triples = this.hiveContext.sql(String.format("SELECT %s, %s, %s FROM %s",
+				column_name_subject, column_name_predicate, column_name_object, tablename_triple_table)).javaRDD();
+		int partitions = (shuffle_partitions > 0) ? shuffle_partitions
+				: Math.max(connection.getJavaContext().defaultParallelism(), triples.getNumPartitions());
+
+		// group by the subject and get all the data, the heavy subjects are salted
+		JavaRDD<Row> rows;
+		if (skew_threshold > 0) {
+			System.out.print("Sampling heavy subjects");
+			long timestamp = System.currentTimeMillis();
+			HashMap<String, Integer> salts = PropertiesAggregator.heavySubjects(triples, skew_sample_fraction,
+					skew_threshold, partitions);
+			System.out.println(String.format(" (%d subjects) [%.3fs]", salts.size(), (float)(System.currentTimeMillis() - timestamp)/1000));
+			rows = salts.isEmpty() ? aggregator.aggregate(triples) : aggregator.aggregate(triples, salts, partitions);
+		} else {
+			rows = aggregator.aggregate(triples);
+		}
 
-		// build the query to extract the property from the array
-		String[] selectProperties = new String[allProperties.length + 1];
-		selectProperties[0] = column_name_subject;
+		// build the schema, complex properties are arrays of their values
+		StructType schema = new StructType().add(column_name_subject, DataTypes.StringType);
 		for (int i = 0; i < allProperties.length; i++) {
 			
 			// if property is a full URI, remove the < at the beginning end > at the end
 			String rawProperty = allProperties[i].startsWith("<") && allProperties[i].endsWith(">") ? 
 					allProperties[i].substring(1, allProperties[i].length() - 1) :  allProperties[i];
-			// if is not a complex type, extract the value
-			String newProperty = isComplexProperty[i]
-					? " " + groupColumn + "[" + String.valueOf(i) + "] AS " + getValidColumnName(rawProperty)
-					: " " + groupColumn + "[" + String.valueOf(i) + "][0] AS " + getValidColumnName(rawProperty);
-			selectProperties[i + 1] = newProperty;
+			schema = schema.add(getValidColumnName(rawProperty),
+					isComplexProperty[i] ? DataTypes.createArrayType(DataTypes.StringType) : DataTypes.StringType);
 		}
 
-		DataFrame propertyTable = grouped.selectExpr(selectProperties);
+		DataFrame propertyTable = this.hiveContext.createDataFrame(rows, schema);
 
 		// write the final one
 		propertyTable.write().mode(SaveMode.Overwrite).format(table_format_parquet)
@@ -255,12 +292,26 @@ public class ComplexPropertyTableLoader {
 	 */
 	public void load() {
 
+		// report the task times of the stages to make skew visible
+		StageTaskTimes taskTimes = new StageTaskTimes();
+		connection.getJavaContext().sc().addSparkListener(taskTimes);
+		if (shuffle_partitions > 0)
+			this.hiveContext.setConf("spark.sql.shuffle.partitions", Integer.toString(shuffle_partitions));
+
 		buildPrefixMap();
 		
+		System.out.print(String.format("Creating table '%s'", tablename_triple_table));
+		long timestamp = System.currentTimeMillis();
 		buildTripleTable();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		taskTimes.report();
 
 		// create properties table
+		System.out.print(String.format("Creating table '%s'", tablename_properties));
+		timestamp = System.currentTimeMillis();
 		savePropertiesIntoTable();
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+		taskTimes.report();
 
 		// collect information for all properties
 		Row[] props = this.hiveContext.sql(String.format("SELECT * FROM %s", tablename_properties)).collect();
@@ -272,65 +323,27 @@ public class ComplexPropertyTableLoader {
 		}
 
 		// create complex property table
+		System.out.println(String.format("Creating table '%s'", tablename_complex_property_table));
+		timestamp = System.currentTimeMillis();
 		buildComplexPropertyTable(allProperties, isComplexProperty);
+		System.out.println(String.format("Created table '%s' [%.3fs]", tablename_complex_property_table,
+				(float)(System.currentTimeMillis() - timestamp)/1000));
+		taskTimes.report();
 
 		// Drop intermediate tables
 		if (!keep) {
 			dropTables(tablename_triple_table);
+			if (prefix_map != null)
+				dropTables(tablename_external_triple_table);
 		}
 	}
 
-	/**
-	 * Creates the enormous prefix replace case statements.
-	 *
-	 * buildTripleStoreTable makes use of regex_replace in its select clause
-	 * which is dynamically created for each column.
-	 *
-	 * Note: Replace this with lambdas in Java 8.
-	 *
-	 * @param column_name
-	 *            The column name for which to create the case statement
-	 * 
-	 * @return The complete CASE statement for this column
-	 */
-
-	private static String prefixHelper(String column_name, Map<String, String> prefix_map) {
-		// For each prefix append a case with a regex_replace stmt
-		StringBuilder case_clause_builder = new StringBuilder();
-		for (Map.Entry<String, String> entry : prefix_map.entrySet()) {
-			case_clause_builder.append(String.format(
-					"\n\t WHEN %1$s LIKE '%2$s%%'"
-							+ "\n\t THEN regexp_replace(translate(%1$s, '<>', ''), '%2$s', '%3$s')",
-					column_name, entry.getKey(), entry.getValue()));
-		}
-		return String.format("CASE %s \n\tELSE %s\n\tEND", case_clause_builder.toString(), column_name);
-	}
-	
 	/**
 	 * create the map containing the prefixes, if they are used
 	 */
 	private void buildPrefixMap() {
 		// Read the prefix file if there is one
-		this.prefix_map = null;
-		if (prefix_file != null) {
-			// Get the prefixes and remove braces from long format
-			prefix_map = new HashMap<String, String>();
-			try {
-				BufferedReader br = new BufferedReader(new FileReader(prefix_file));
-				for (String line; (line = br.readLine()) != null;) {
-					String[] splited = line.split("\\s+");
-					if (splited.length < 2) {
-						System.out.printf("Line in prefix file has invalid format. Skip. ('%s')\n", line);
-						continue;
-					}
-					prefix_map.put(splited[1].substring(1, splited[1].length() - 1), splited[0]);
-				}
-				br.close();
-			} catch (IOException e) {
-				System.err.println("[ERROR] Could not open prefix file. Reason: " + e.getMessage());
-				System.exit(1);
-			}
-		}
+		this.prefix_map = (prefix_file != null) ? Loader.readPrefixFile(prefix_file) : null;
 	}
 
 	/**
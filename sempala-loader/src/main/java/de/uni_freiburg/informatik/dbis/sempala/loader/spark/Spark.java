@@ -2,8 +2,12 @@ package de.uni_freiburg.informatik.dbis.sempala.loader.spark;
 
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.sql.DataFrame;
+import org.apache.spark.sql.SaveMode;
 import org.apache.spark.sql.hive.HiveContext;
 
+import de.uni_freiburg.informatik.dbis.sempala.loader.Loader;
+
 /**
  * Wrapper of Spark connection. This class contains the initialization of needed
  * Spark objects. It wraps the functionality for execution of Spark SQL queries.
@@ -38,13 +42,22 @@ public class Spark {
 		// TODO check what kind of exception can be thrown here if there is a
 		// problem with spark connection
 
-		this.hiveContext.sql(String.format("CREATE DATABASE %s", database));
-		// TODO check what kind of exception is thrown if database already
+		// the database may already be created by the impala connection
+		this.hiveContext.sql(String.format("CREATE DATABASE IF NOT EXISTS %s", database));
 
 		// use the created database
 		this.hiveContext.sql((String.format("USE %s", database)));
 	}
 
+	/**
+	 * Get Java Spark context.
+	 * 
+	 * @return {@link JavaSparkContext}
+	 */
+	public JavaSparkContext getJavaContext() {
+		return javaContext;
+	}
+
 	/**
 	 * Get Hive context.
 	 * 
@@ -53,4 +66,39 @@ public class Spark {
 	public HiveContext getHiveContext() {
 		return hiveContext;
 	}
+
+	/**
+	 * Builds the statistics of the predicates of a triple table in the table
+	 * {@link Loader#tablename_predicate_stats}, the same table the impala
+	 * loaders build (see {@link Loader}).
+	 *
+	 * @param tablename
+	 *            the name of the triple table
+	 * @param subject
+	 *            the name of the subject column
+	 * @param predicate
+	 *            the name of the predicate column
+	 * @param object
+	 *            the name of the object column
+	 * @return the statistics, one row per predicate
+	 */
+	public DataFrame buildPredicateStats(String tablename, String subject, String predicate, String object) {
+		DataFrame stats = this.hiveContext.sql(String.format(
+				"SELECT subjects.%1$s, %5$s, %6$s, %7$s, %8$s, %9$s, %10$s FROM"
+						// the number of values of every subject of a predicate
+						+ " (SELECT %1$s, SUM(n) AS %5$s, COUNT(*) AS %6$s, MAX(n) AS %8$s, AVG(n) AS %9$s"
+						+ " FROM (SELECT %1$s, %2$s, COUNT(*) AS n FROM %4$s GROUP BY %1$s, %2$s) ps GROUP BY %1$s) subjects"
+						// the number of triples of every object of a predicate, ranked by frequency
+						+ " JOIN (SELECT %1$s, COUNT(*) AS %7$s,"
+						+ " concat_ws('\n', collect_list(CASE WHEN r <= %11$d THEN concat(CAST(n AS STRING), ' ', %3$s) END)) AS %10$s"
+						+ " FROM (SELECT %1$s, %3$s, n, row_number() OVER (PARTITION BY %1$s ORDER BY n DESC) AS r"
+						+ " FROM (SELECT %1$s, %3$s, COUNT(*) AS n FROM %4$s GROUP BY %1$s, %3$s) po_counts) po GROUP BY %1$s) objects"
+						+ " ON subjects.%1$s = objects.%1$s",
+				predicate, subject, object, tablename,
+				Loader.column_name_triples, Loader.column_name_distinct_subjects, Loader.column_name_distinct_objects,
+				Loader.column_name_max_multiplicity, Loader.column_name_avg_multiplicity, Loader.column_name_top_objects,
+				Loader.stats_top_objects));
+		stats.write().mode(SaveMode.Overwrite).format("parquet").saveAsTable(Loader.tablename_predicate_stats);
+		return this.hiveContext.table(Loader.tablename_predicate_stats);
+	}
 }
@@ -0,0 +1,512 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.spark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.broadcast.Broadcast;
+import org.apache.spark.sql.DataFrame;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+import org.apache.spark.storage.StorageLevel;
+
+import de.uni_freiburg.informatik.dbis.sempala.loader.ExtVPLoader;
+import de.uni_freiburg.informatik.dbis.sempala.loader.Loader;
+
+/**
+ * Class that constructs the ExtVP tables (see 'S2RDF: RDF Querying with SPARQL
+ * on Spark') with Spark. It writes the same triple table, ExtVP tables and
+ * statistic tables as {@link ExtVPLoader}, such that the translator can query
+ * them with Impala.
+ *
+ * The vertical partition (VP) of every predicate is read once from the triple
+ * table and cached, hash partitioned by subject and by object. The distinct
+ * subjects and objects of every VP are cached as well. The semi-joins of all
+ * pairs of predicates are computed from these cached and co-partitioned
+ * DataFrames, the triple table is not scanned again for every pair.
+ */
+public class SparkExtVPLoader {
+
+	/** The file containing the prefixes. */
+	public String prefix_file;
+
+	/** A map containing the prefixes **/
+	private Map<String, String> prefix_map;
+
+	/** Indicates if duplicates in the input are to be ignored. */
+	public boolean unique;
+
+	/** The name used for RDF subject columns. */
+	public String column_name_subject = "s";
+
+	/** The name used for RDF predicate columns. */
+	public String column_name_predicate = "p";
+
+	/** The name used for RDF object columns. */
+	public String column_name_object = "o";
+
+	/** The location of the list of predicates, all predicates if null. */
+	public String path_of_list_of_predicates;
+
+	/** The types of ExtVP tables, all types if null. */
+	public String extvp_types_selected;
+
+	/** The value of threshold. */
+	public String threshold = "1";
+
+	/** Indicates if all ExtVP tables are stored regardless of the threshold. */
+	public boolean evaluation_mode;
+
+	/**
+	 * Indicates if the sizes of the ExtVP tables are bounded with Bloom
+	 * filters first. Only tables whose upper bound of the selectivity is
+	 * below the threshold are computed by a semi-join.
+	 */
+	public boolean bloom_filter;
+
+	/** The false positive probability of the Bloom filters. */
+	protected static final double bloom_filter_fpp = 0.01;
+
+	/** The ExtVP types in the order of the upper bounds. */
+	protected static final List<String> extvp_types = Arrays.asList("ss", "so", "os", "oo");
+
+	/**
+	 * The table name of the table that contains all rdf triples. The scheme of
+	 * the table is (s:STRING, o:STRING) partitioned by (p:STRING), as built by
+	 * the Impala loaders.
+	 */
+	protected static final String tablename_triple_table = "tripletable";
+
+	/** The prefix of the names of the ExtVP tables. */
+	protected static final String tablename_output = "extvp";
+
+	/** The prefix of the names of the statistic tables. */
+	protected static final String tablename_stats = "extvp_tableofstats_";
+
+	/** The name of the column of the cached join values. */
+	protected static final String column_name_join_value = "join_value";
+
+	/**
+	 * The format in which the tables in Spark are stored.
+	 */
+	protected static final String table_format_parquet = "parquet";
+
+	/** Spark connection used for executing queries. */
+	private Spark connection;
+
+	/** Hive context of a Spark connection. */
+	private HiveContext hiveContext;
+
+	/** Parses the input and writes the parquet files of the triple table. */
+	private TripleTableWriter triple_table_writer;
+
+	/** The selectivity threshold. */
+	private double SF;
+
+	/** The VP of every predicate, partitioned by subject and by object. */
+	private HashMap<String, DataFrame> vp_by_subject = new HashMap<String, DataFrame>();
+	private HashMap<String, DataFrame> vp_by_object = new HashMap<String, DataFrame>();
+
+	/** The distinct subjects and objects of every predicate. */
+	private HashMap<String, DataFrame> subjects = new HashMap<String, DataFrame>();
+	private HashMap<String, DataFrame> objects = new HashMap<String, DataFrame>();
+
+	/** The size of the VP of every predicate. */
+	private HashMap<String, Double> partition_sizes = new HashMap<String, Double>();
+
+	/** The rows of the statistic tables by type (ss, so, os, oo, time, emptytable). */
+	private HashMap<String, List<Row>> stats = new HashMap<String, List<Row>>();
+
+	public SparkExtVPLoader(Spark connection, TripleTableWriter tripleTableWriter) {
+		this.connection = connection;
+		this.hiveContext = connection.getHiveContext();
+		this.triple_table_writer = tripleTableWriter;
+	}
+
+	/**
+	 * Method that contains the full process of creating the ExtVP tables.
+	 * Initially, the triple table is created from the rdf triples. Then the VP
+	 * of each predicate is cached and the ExtVP tables of all pairs of
+	 * predicates are computed. Finally, the statistics are stored in the
+	 * tables extvp_tableofstats_*.
+	 */
+	public void load() {
+		setThreshold();
+		List<String> types = getExtVPTypes();
+		for (String type : Arrays.asList("ss", "so", "os", "oo", "time", "emptytable"))
+			stats.put(type, new ArrayList<Row>());
+
+		// Read the prefix file if there is one
+		prefix_map = (prefix_file != null) ? Loader.readPrefixFile(prefix_file) : null;
+
+		long timestamp = System.currentTimeMillis();
+		buildTripleTable();
+		addTime("BUILD TRIPLETABLE", " TIME", timestamp);
+
+		System.out.print(String.format("Creating table '%s'", Loader.tablename_predicate_stats));
+		timestamp = System.currentTimeMillis();
+		connection.buildPredicateStats(tablename_triple_table, column_name_subject, column_name_predicate, column_name_object);
+		addTime("BUILD PREDICATE STATS", " TIME", timestamp);
+		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+
+		List<String> predicates = getPredicates();
+
+		System.out.print(String.format("Caching %d vertical partitions", predicates.size()));
+		timestamp = System.currentTimeMillis();
+		for (String predicate : predicates)
+			cacheVerticalPartition(predicate);
+		addTime("CACHE VERTICAL PARTITIONS", " TIME", timestamp);
+		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+
+		Broadcast<BloomFilter[][]> filters = null;
+		if (bloom_filter) {
+			System.out.print(String.format("Building Bloom filters of %d predicates", predicates.size()));
+			timestamp = System.currentTimeMillis();
+			filters = connection.getJavaContext().broadcast(buildBloomFilters(predicates));
+			addTime("BUILD BLOOM FILTERS", " TIME", timestamp);
+			System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+		}
+
+		// Compute the ExtVP tables of all ordered pairs of predicates
+		System.out.println(String.format("Creating %s from '%s'", "ExtVps", tablename_triple_table));
+		timestamp = System.currentTimeMillis();
+		for (String p1 : predicates) {
+			long[][] upper_bounds = (filters != null) ? upperBounds(vp_by_subject.get(p1), filters) : null;
+			for (int j = 0; j < predicates.size(); j++) {
+				String p2 = predicates.get(j);
+				for (String type : types) {
+					// SS and OO tables of a predicate with itself are the VP
+					if (p1.equals(p2) && (type.equals("ss") || type.equals("oo")))
+						continue;
+					long upper_bound = (upper_bounds != null) ? upper_bounds[extvp_types.indexOf(type)][j] : -1;
+					computeExtVP(type, p1, p2, upper_bound);
+				}
+			}
+		}
+		if (filters != null)
+			filters.destroy();
+		addTime("Complete_EXTVP_TABLES", "0-" + predicates.size(), timestamp);
+		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+
+		saveStatsTables();
+
+		for (String predicate : predicates) {
+			vp_by_subject.get(predicate).unpersist();
+			vp_by_object.get(predicate).unpersist();
+			subjects.get(predicate).unpersist();
+			objects.get(predicate).unpersist();
+		}
+	}
+
+	/**
+	 * Build the triple table partitioned by predicate. The input is parsed by
+	 * the {@link TripleTableWriter}, which replaces the prefixes if a file with
+	 * prefixes is given. The table is then created over the parquet files and
+	 * the partitions written by spark are added to the metastore.
+	 */
+	public void buildTripleTable() {
+		// Dropped first, the old table may have another location
+		hiveContext.sql("DROP TABLE IF EXISTS " + tablename_triple_table);
+
+		triple_table_writer.column_name_subject = column_name_subject;
+		triple_table_writer.column_name_predicate = column_name_predicate;
+		triple_table_writer.column_name_object = column_name_object;
+		triple_table_writer.prefix_map = prefix_map;
+		triple_table_writer.unique = unique;
+		triple_table_writer.write();
+
+		System.out.print(String.format("Creating %s from '%s'", tablename_triple_table, triple_table_writer.getOutputDirectory()));
+		long timestamp = System.currentTimeMillis();
+		hiveContext.sql(String.format(
+				"CREATE TABLE %s(%s STRING, %s STRING) PARTITIONED BY (%s STRING) STORED AS PARQUET LOCATION '%s'",
+				tablename_triple_table, column_name_subject, column_name_object, column_name_predicate,
+				triple_table_writer.getOutputDirectory()));
+		hiveContext.sql("MSCK REPAIR TABLE " + tablename_triple_table);
+		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+	}
+
+	/**
+	 * Cache the VP of a predicate, partitioned by subject and by object, and
+	 * its distinct subjects and objects.
+	 *
+	 * @param predicate
+	 *            the predicate of the VP
+	 */
+	private void cacheVerticalPartition(String predicate) {
+		DataFrame triples = hiveContext.table(tablename_triple_table);
+		DataFrame vp = triples.where(triples.col(column_name_predicate).equalTo(predicate))
+				.select(column_name_subject, column_name_object);
+
+		DataFrame by_subject = vp.repartition(vp.col(column_name_subject)).persist(StorageLevel.MEMORY_AND_DISK_SER());
+		DataFrame by_object = vp.repartition(vp.col(column_name_object)).persist(StorageLevel.MEMORY_AND_DISK_SER());
+		vp_by_subject.put(predicate, by_subject);
+		vp_by_object.put(predicate, by_object);
+
+		// The join values are renamed, otherwise both sides of a self-join
+		// of the triple table would refer to the same column
+		subjects.put(predicate, distinctValues(by_subject, column_name_subject));
+		objects.put(predicate, distinctValues(by_object, column_name_object));
+
+		// Counting materializes the cached partitions
+		partition_sizes.put(predicate, (double) by_subject.count());
+		by_object.count();
+	}
+
+	private DataFrame distinctValues(DataFrame vp, String column) {
+		DataFrame values = vp.select(vp.col(column).as(column_name_join_value)).distinct();
+		return values.repartition(values.col(column_name_join_value)).persist(StorageLevel.MEMORY_AND_DISK_SER());
+	}
+
+	/**
+	 * Build a Bloom filter over the distinct subjects and one over the
+	 * distinct objects of every predicate.
+	 *
+	 * @param predicates
+	 *            the list of predicates
+	 * @return the subject filters [0][i] and object filters [1][i] of the
+	 *         i-th predicate
+	 */
+	private BloomFilter[][] buildBloomFilters(List<String> predicates) {
+		BloomFilter[][] filters = new BloomFilter[2][predicates.size()];
+		for (int i = 0; i < predicates.size(); i++) {
+			filters[0][i] = buildBloomFilter(subjects.get(predicates.get(i)));
+			filters[1][i] = buildBloomFilter(objects.get(predicates.get(i)));
+		}
+		return filters;
+	}
+
+	// Static, such that the functions do not reference the loader
+	private static BloomFilter buildBloomFilter(DataFrame values) {
+		return values.javaRDD().aggregate(new BloomFilter(values.count(), bloom_filter_fpp),
+				new Function2<BloomFilter, Row, BloomFilter>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public BloomFilter call(BloomFilter filter, Row row) {
+						filter.put(row.getString(0));
+						return filter;
+					}
+				}, new Function2<BloomFilter, BloomFilter, BloomFilter>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public BloomFilter call(BloomFilter filter1, BloomFilter filter2) {
+						return filter1.merge(filter2);
+					}
+				});
+	}
+
+	/**
+	 * Compute upper bounds of the sizes of the ExtVP tables of a first
+	 * predicate and all second predicates. A triple of the VP is counted for a
+	 * second predicate if the Bloom filter of that predicate might contain its
+	 * join value. Since Bloom filters have no false negatives, the count is an
+	 * upper bound of the size of the semi-join. All bounds are computed in a
+	 * single pass over the VP, without a shuffle.
+	 *
+	 * @param vp
+	 *            the VP of the first predicate
+	 * @param filters
+	 *            the Bloom filters, see {@link #buildBloomFilters(List)}
+	 * @return the upper bounds by type (see {@link #extvp_types}) and index of
+	 *         the second predicate
+	 */
+	private static long[][] upperBounds(DataFrame vp, final Broadcast<BloomFilter[][]> filters) {
+		final int size = filters.value()[0].length;
+		return vp.javaRDD().aggregate(new long[extvp_types.size()][size],
+				new Function2<long[][], Row, long[][]>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public long[][] call(long[][] bounds, Row row) {
+						BloomFilter[][] f = filters.value();
+						long subject = BloomFilter.hash(row.getString(0));
+						long object = BloomFilter.hash(row.getString(1));
+						for (int i = 0; i < size; i++) {
+							if (f[0][i].mightContain(subject))
+								bounds[0][i]++;
+							if (f[1][i].mightContain(subject))
+								bounds[1][i]++;
+							if (f[0][i].mightContain(object))
+								bounds[2][i]++;
+							if (f[1][i].mightContain(object))
+								bounds[3][i]++;
+						}
+						return bounds;
+					}
+				}, new Function2<long[][], long[][], long[][]>() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					public long[][] call(long[][] bounds1, long[][] bounds2) {
+						for (int t = 0; t < bounds1.length; t++)
+							for (int i = 0; i < size; i++)
+								bounds1[t][i] += bounds2[t][i];
+						return bounds1;
+					}
+				});
+	}
+
+	/**
+	 * Compute an ExtVP table by a left semi-join of the VP of p1 with the
+	 * distinct join values of the VP of p2. The table is only stored if its
+	 * selectivity is below the threshold. Empty tables are only listed in the
+	 * statistics.
+	 *
+	 * If an upper bound of the size is given, the semi-join is skipped if the
+	 * bound is 0 (the table is empty) or the selectivity of the bound is not
+	 * below the threshold. The statistics of a skipped table hold the bound.
+	 *
+	 * @param type
+	 *            the ExtVP type (ss, so, os, oo)
+	 * @param p1
+	 *            the first predicate
+	 * @param p2
+	 *            the second predicate
+	 * @param upper_bound
+	 *            an upper bound of the size of the table, -1 if unknown
+	 */
+	private void computeExtVP(String type, String p1, String p2, long upper_bound) {
+		String tablename = String.format("%s_%s_%s_%s", tablename_output, ExtVPLoader.RenamePredicates(p1),
+				ExtVPLoader.RenamePredicates(p2), type);
+		System.out.print(String.format("Creating %s from '%s'", tablename, tablename_triple_table));
+		long timestamp = System.currentTimeMillis();
+
+		double partition_size = partition_sizes.get(p1);
+		if (upper_bound == 0) {
+			stats.get("emptytable").add(RowFactory.create(tablename));
+			System.out.println(" [empty]");
+			return;
+		}
+		if (upper_bound > 0 && upper_bound / partition_size >= SF) {
+			stats.get(type).add(RowFactory.create(tablename, p1 + "_" + p2, (double) upper_bound, partition_size,
+					upper_bound / partition_size, 0.0));
+			System.out.println(String.format(" [skipped, selectivity <= %.3f]", upper_bound / partition_size));
+			return;
+		}
+
+		boolean left_by_subject = type.charAt(0) == 's';
+		DataFrame left = left_by_subject ? vp_by_subject.get(p1) : vp_by_object.get(p1);
+		DataFrame right = type.charAt(1) == 's' ? subjects.get(p2) : objects.get(p2);
+		String column = left_by_subject ? column_name_subject : column_name_object;
+		DataFrame extvp = left.join(right, left.col(column).equalTo(right.col(column_name_join_value)), "leftsemi");
+
+		double extvp_size = extvp.count();
+		if (extvp_size == 0) {
+			stats.get("emptytable").add(RowFactory.create(tablename));
+		} else {
+			double selectivity = extvp_size / partition_size;
+			if (selectivity < SF)
+				extvp.write().mode(SaveMode.Overwrite).format(table_format_parquet).saveAsTable(tablename);
+			double time = (double) (System.currentTimeMillis() - timestamp) / 1000;
+			stats.get(type).add(RowFactory.create(tablename, p1 + "_" + p2, extvp_size, partition_size, selectivity, time));
+		}
+		System.out.println(String.format(" [%.3fs]", (float) (System.currentTimeMillis() - timestamp) / 1000));
+	}
+
+	/**
+	 * Store the collected statistics in the tables read by the translator.
+	 */
+	private void saveStatsTables() {
+		StructType extvp_schema = DataTypes.createStructType(new StructField[] {
+				DataTypes.createStructField("ExtVPTable_Name", DataTypes.StringType, false),
+				DataTypes.createStructField("ExtVPTable_Predicates", DataTypes.StringType, false),
+				DataTypes.createStructField("ExtVPTable_Nr_Tuples", DataTypes.DoubleType, false),
+				DataTypes.createStructField("Partition_Nr_Tuples", DataTypes.DoubleType, false),
+				DataTypes.createStructField("ExtVPTable_SF", DataTypes.DoubleType, false),
+				DataTypes.createStructField("ExtVPTable_Time", DataTypes.DoubleType, false) });
+		StructType time_schema = DataTypes.createStructType(new StructField[] {
+				DataTypes.createStructField("Operation_Name", DataTypes.StringType, false),
+				DataTypes.createStructField("Description", DataTypes.StringType, false),
+				DataTypes.createStructField("Time", DataTypes.DoubleType, false),
+				DataTypes.createStructField("Measured", DataTypes.DoubleType, false),
+				DataTypes.createStructField("Seconds", DataTypes.DoubleType, false) });
+		StructType empty_schema = DataTypes.createStructType(new StructField[] {
+				DataTypes.createStructField("ExtVPTable_Name", DataTypes.StringType, false) });
+
+		for (Map.Entry<String, List<Row>> entry : stats.entrySet()) {
+			StructType schema = entry.getKey().equals("time") ? time_schema
+					: entry.getKey().equals("emptytable") ? empty_schema : extvp_schema;
+			hiveContext.createDataFrame(entry.getValue(), schema).write().mode(SaveMode.Overwrite)
+					.format(table_format_parquet).saveAsTable(tablename_stats + entry.getKey());
+		}
+	}
+
+	private void addTime(String operation, String description, long timestamp) {
+		stats.get("time").add(RowFactory.create(operation, description, 0.0, 0.0,
+				(double) (System.currentTimeMillis() - timestamp) / 1000));
+	}
+
+	/**
+	 * Read the value of the threshold, see {@link ExtVPLoader}.
+	 */
+	private void setThreshold() {
+		if (evaluation_mode) {
+			SF = 1.01;
+			return;
+		}
+		try {
+			SF = Double.parseDouble(threshold);
+			if (SF <= 0)
+				throw new IllegalArgumentException();
+		} catch (Exception e) {
+			System.err.println(String.format("Threshold '%s' is not a proper value as threshold", threshold));
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Read the types of ExtVP tables to compute, all types by default.
+	 */
+	private List<String> getExtVPTypes() {
+		if (extvp_types_selected == null)
+			return extvp_types;
+		List<String> types = new ArrayList<String>();
+		for (String type : extvp_types_selected.toLowerCase().split("[/.,\\s\\-:\\?]")) {
+			if (!extvp_types.contains(type)) {
+				System.err.println(String.format("'%s' is not a proper format of ExtVP types", extvp_types_selected));
+				System.exit(1);
+			}
+			if (!types.contains(type))
+				types.add(type);
+		}
+		return types;
+	}
+
+	/**
+	 * Get the sorted list of predicates, either from the list of predicates
+	 * or from the triple table.
+	 */
+	private List<String> getPredicates() {
+		List<String> predicates = new ArrayList<String>();
+		if (path_of_list_of_predicates != null) {
+			try {
+				BufferedReader br = new BufferedReader(new FileReader(path_of_list_of_predicates));
+				for (String line; (line = br.readLine()) != null;)
+					predicates.add(line);
+				br.close();
+			} catch (IOException e) {
+				System.err.println("[ERROR] Could not open list of predicates file. Reason: " + e.getMessage());
+				System.exit(1);
+			}
+		} else {
+			for (Row row : hiveContext.sql(String.format("SELECT DISTINCT %s FROM %s", column_name_predicate,
+					tablename_triple_table)).collect())
+				predicates.add(row.getString(0));
+		}
+		Collections.sort(predicates);
+		return predicates;
+	}
+}
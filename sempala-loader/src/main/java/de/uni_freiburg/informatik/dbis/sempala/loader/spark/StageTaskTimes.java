@@ -0,0 +1,63 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.spark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import org.apache.spark.JavaSparkListener;
+import org.apache.spark.scheduler.SparkListenerStageCompleted;
+import org.apache.spark.scheduler.SparkListenerTaskEnd;
+import org.apache.spark.scheduler.StageInfo;
+
+/**
+ * Collects the durations of the tasks of every stage, so that skewed stages,
+ * i.e. stages where a few tasks take much longer than the others, show up in
+ * the output of the loader.
+ *
+ * The listener is called by the listener bus of spark, the collected stages
+ * are printed by the loader with {@link #report()} between its steps.
+ */
+public class StageTaskTimes extends JavaSparkListener {
+
+	/** The durations of the successful tasks of the running stages */
+	private final HashMap<Integer, ArrayList<Long>> durations = new HashMap<Integer, ArrayList<Long>>();
+
+	/** The lines of the stages completed since the last report */
+	private final ArrayList<String> completed = new ArrayList<String>();
+
+	@Override
+	public synchronized void onTaskEnd(SparkListenerTaskEnd taskEnd) {
+		if (taskEnd.taskInfo() == null || !taskEnd.taskInfo().successful())
+			return;
+		ArrayList<Long> stage = durations.get(taskEnd.stageId());
+		if (stage == null) {
+			stage = new ArrayList<Long>();
+			durations.put(taskEnd.stageId(), stage);
+		}
+		stage.add(taskEnd.taskInfo().duration());
+	}
+
+	@Override
+	public synchronized void onStageCompleted(SparkListenerStageCompleted stageCompleted) {
+		StageInfo info = stageCompleted.stageInfo();
+		ArrayList<Long> stage = durations.remove(info.stageId());
+		if (stage == null || stage.isEmpty())
+			return;
+		Collections.sort(stage);
+		completed.add(String.format("Stage %d (%d tasks, %s): min %.3fs, median %.3fs, 95%% %.3fs, max %.3fs",
+				info.stageId(), stage.size(), info.name(),
+				(float) stage.get(0) / 1000,
+				(float) stage.get(stage.size() / 2) / 1000,
+				(float) stage.get((int) Math.ceil(stage.size() * 0.95) - 1) / 1000,
+				(float) stage.get(stage.size() - 1) / 1000));
+	}
+
+	/**
+	 * Prints the task times of the stages completed since the last report.
+	 */
+	public synchronized void report() {
+		for (String line : completed)
+			System.out.println("  " + line);
+		completed.clear();
+	}
+}
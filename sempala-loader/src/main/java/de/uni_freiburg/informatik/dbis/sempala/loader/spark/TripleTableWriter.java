@@ -0,0 +1,171 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.spark;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.spark.Accumulator;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.sql.DataFrame;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.apache.spark.sql.SaveMode;
+import org.apache.spark.sql.hive.HiveContext;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructField;
+import org.apache.spark.sql.types.StructType;
+
+import de.uni_freiburg.informatik.dbis.sempala.loader.parser.NTriplesParser;
+import de.uni_freiburg.informatik.dbis.sempala.loader.udf.PrefixTrie;
+
+/**
+ * Parses N-Triples from HDFS and writes them as predicate partitioned parquet
+ * files. The layout of the output directory is the one of the impala triple
+ * table (s: STRING, o: STRING) PARTITIONED BY (p: STRING), so impala can use
+ * the directory as location of the triple table without staging the raw text
+ * in an external table first.
+ *
+ * The lines are parsed by {@link NTriplesParser}, one parser per partition,
+ * while they are streamed from HDFS. Prefixes are replaced in the same pass
+ * by a {@link PrefixTrie}.
+ * Run it in local mode (e.g. spark-submit --master local[8]) to get a
+ * standalone multi threaded process.
+ */
+public final class TripleTableWriter {
+
+	/** The location of the input data. */
+	private final String hdfs_input_directory;
+
+	/** The location of the parquet files. */
+	private final String hdfs_output_directory;
+
+	/** The map containing the prefixes (namespace to prefix). */
+	public Map<String, String> prefix_map;
+
+	/** Indicates if duplicates in the input are to be ignored. */
+	public boolean unique;
+
+	/** The name used for RDF subject columns. */
+	public String column_name_subject = "s";
+
+	/** The name used for RDF predicate columns. */
+	public String column_name_predicate = "p";
+
+	/** The name used for RDF object columns. */
+	public String column_name_object = "o";
+
+	/** Spark context used to read the input. */
+	private final JavaSparkContext javaContext;
+
+	/** Hive context used to write the parquet files. */
+	private final HiveContext hiveContext;
+
+	public TripleTableWriter(Spark connection, String hdfsInputDirectory, String hdfsOutputDirectory) {
+		this.javaContext = connection.getJavaContext();
+		this.hiveContext = connection.getHiveContext();
+		this.hdfs_input_directory = hdfsInputDirectory;
+		this.hdfs_output_directory = hdfsOutputDirectory;
+	}
+
+	/**
+	 * @return The location the parquet files are written to.
+	 */
+	public String getOutputDirectory() {
+		return hdfs_output_directory;
+	}
+
+	/**
+	 * Parses the input and (over)writes the parquet files of the triple table.
+	 */
+	public void write() {
+		System.out.print(String.format("Parsing '%s' into parquet files at '%s'", hdfs_input_directory, hdfs_output_directory));
+		long timestamp = System.currentTimeMillis();
+
+		Accumulator<Integer> skipped = javaContext.intAccumulator(0);
+		JavaRDD<Row> triples = javaContext.textFile(hdfs_input_directory)
+				.mapPartitions(new ParseTriples((prefix_map != null) ? new PrefixTrie(prefix_map) : null, skipped));
+
+		// Column order of the impala table, the partition column comes last
+		StructType schema = DataTypes.createStructType(new StructField[] {
+				DataTypes.createStructField(column_name_subject, DataTypes.StringType, false),
+				DataTypes.createStructField(column_name_object, DataTypes.StringType, false),
+				DataTypes.createStructField(column_name_predicate, DataTypes.StringType, false) });
+		DataFrame tripleTable = hiveContext.createDataFrame(triples, schema);
+		if (unique)
+			tripleTable = tripleTable.distinct();
+
+		tripleTable.write()
+		.mode(SaveMode.Overwrite)
+		.partitionBy(column_name_predicate)
+		.parquet(hdfs_output_directory);
+		System.out.println(String.format(" [%.3fs]", (float)(System.currentTimeMillis() - timestamp)/1000));
+
+		if (skipped.value() > 0)
+			System.out.println(String.format("Skipped %d lines which are empty, comments or not valid N-Triples", skipped.value()));
+	}
+
+	/**
+	 * Lazily turns the lines of a partition into rows (s, o, p). The function
+	 * does not buffer the partition, each line is parsed when the writer asks
+	 * for the next row.
+	 */
+	private static final class ParseTriples implements FlatMapFunction<Iterator<String>, Row> {
+
+		private static final long serialVersionUID = -3612093457822910234L;
+
+		private final PrefixTrie prefixes;
+		private final Accumulator<Integer> skipped;
+
+		public ParseTriples(PrefixTrie prefixes, Accumulator<Integer> skipped) {
+			this.prefixes = prefixes;
+			this.skipped = skipped;
+		}
+
+		private String compress(String term) {
+			return (prefixes == null) ? term : prefixes.compress(term);
+		}
+
+		@Override
+		public Iterable<Row> call(final Iterator<String> lines) {
+			final NTriplesParser parser = new NTriplesParser();
+			return new Iterable<Row>() {
+				@Override
+				public Iterator<Row> iterator() {
+					return new Iterator<Row>() {
+						private Row next = null;
+
+						@Override
+						public boolean hasNext() {
+							while (next == null && lines.hasNext()) {
+								if (parser.parse(lines.next()))
+									next = RowFactory.create(
+											compress(parser.getSubject()),
+											compress(parser.getObject()),
+											compress(parser.getPredicate()));
+								else
+									skipped.add(1);
+							}
+							return next != null;
+						}
+
+						@Override
+						public Row next() {
+							if (!hasNext())
+								throw new NoSuchElementException();
+							Row row = next;
+							next = null;
+							return row;
+						}
+
+						@Override
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+			};
+		}
+	}
+}
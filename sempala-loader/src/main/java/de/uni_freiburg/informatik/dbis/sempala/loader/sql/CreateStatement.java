@@ -53,6 +53,7 @@ public final class CreateStatement {
 	private Boolean ifNotExists = false;
 	private ArrayList<ColumnDefinition> columnDefinitions = new ArrayList<ColumnDefinition>();
 	private ArrayList<ColumnDefinition> partitionDefinitions = new ArrayList<ColumnDefinition>();
+	private ArrayList<String> sortColumns = new ArrayList<String>();
 	private String fieldTermintor = null;
 	private String lineTermintor = null;
 	private FileFormat fileFormat = null;
@@ -97,6 +98,15 @@ public final class CreateStatement {
 		return this;
 	}
 
+	/**
+	 * Sorts the rows written by inserts into the table, so the parquet files
+	 * have tight min/max statistics on the given column. (Impala 2.9)
+	 */
+	public CreateStatement sortBy(final String columnName) {
+		this.sortColumns.add(columnName);
+		return this;
+	}
+
 	public CreateStatement fieldTermintor(final String fieldTermintor) {
 		this.fieldTermintor = fieldTermintor;
 		return this;
@@ -144,16 +154,26 @@ public final class CreateStatement {
 			sb.append("\n)");
 		}
 		if (!this.partitionDefinitions.isEmpty()){
+			// The partition columns of CREATE TABLE AS SELECT take their types from the select
+			String format = (this.selectStatement == null) ? "%s %s" : "%s";
 			sb.append("\nPARTITIONED BY (");
 			Iterator<ColumnDefinition> it = this.partitionDefinitions.iterator();
 			ColumnDefinition columnDefinition = it.next();
-			sb.append(String.format("%s %s", columnDefinition.columnName, columnDefinition.dataType.name()));
+			sb.append(String.format(format, columnDefinition.columnName, columnDefinition.dataType.name()));
 		    while (it.hasNext()) {
 				columnDefinition = it.next();
-				sb.append(String.format(", %s %s", columnDefinition.columnName, columnDefinition.dataType.name()));
+				sb.append(String.format(", " + format, columnDefinition.columnName, columnDefinition.dataType.name()));
 		    }
 			sb.append(")");
 		}
+		if (!this.sortColumns.isEmpty()){
+			sb.append("\nSORT BY (");
+			Iterator<String> it = this.sortColumns.iterator();
+			sb.append(it.next());
+			while (it.hasNext())
+				sb.append(String.format(", %s", it.next()));
+			sb.append(")");
+		}
 		if (this.fieldTermintor != null || this.lineTermintor != null) {
 			sb.append("\nROW FORMAT DELIMITED");
 			if (this.fieldTermintor != null)
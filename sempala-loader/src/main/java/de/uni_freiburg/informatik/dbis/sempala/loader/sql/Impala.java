@@ -5,7 +5,12 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import de.uni_freiburg.informatik.dbis.sempala.loader.sql.CreateStatement.DataType;
 
 /**
  * This is an Java binding for Impala JDBC.
@@ -56,6 +61,12 @@ public final class Impala {
 	/** The connection to the impala daemon */
     private Connection connection = null;
 
+    /** The url of the impala daemon */
+    private final String impalad_url;
+
+    /** The database in use */
+    private final String database;
+
     /** Creates an instance of the impala wrapper. */
 	public Impala(String host, String port, String database) throws SQLException {
         // Dynamically load the impala driver // Why is this not necessary?
@@ -72,7 +83,8 @@ public final class Impala {
 //		}
 
     	// Establish the connection to impalad
-		String impalad_url = String.format("jdbc:impala://%s:%s/", host, port);
+		impalad_url = String.format("jdbc:impala://%s:%s/", host, port);
+		this.database = database;
 		System.out.println(String.format("Connecting to impalad (%s)", impalad_url));
 		connection = DriverManager.getConnection(impalad_url);
 		try {
@@ -106,6 +118,36 @@ public final class Impala {
 		connection.createStatement().executeUpdate(String.format("USE %s", database));
     }
 
+    /** Creates an instance of the impala wrapper on an existing database. */
+    private Impala(String impalad_url, String database) throws SQLException {
+		this.impalad_url = impalad_url;
+		this.database = database;
+		connection = DriverManager.getConnection(impalad_url);
+		connection.createStatement().executeUpdate(String.format("USE %s", database));
+    }
+
+    /**
+     * Opens another connection to the same impala daemon and database.
+     *
+     * Statements of one connection are executed one after the other, use a
+     * session per thread to run statements concurrently.
+     *
+     * @return The impala wrapper of the new connection.
+     * @throws SQLException
+     */
+    public Impala newSession() throws SQLException {
+    	return new Impala(impalad_url, database);
+    }
+
+    /**
+     * Closes the connection, e.g. of a session opened by {@link #newSession()}.
+     *
+     * @throws SQLException
+     */
+    public void close() throws SQLException {
+    	connection.close();
+    }
+
     @Override
     protected void finalize() throws Throwable {
     	connection.close();
@@ -193,6 +235,70 @@ public final class Impala {
 		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
     }
 
+    /**
+     * Drops a table instantly if it exists.
+     *
+     * @param tablename The table to drop.
+     * @throws SQLException
+     */
+    public void dropTableIfExists(String tablename) throws SQLException {
+		System.out.print(String.format("Dropping table '%s' if it exists", tablename));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("DROP TABLE IF EXISTS %s;", tablename));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
+    /**
+     * Drops the partitions of a table matching a condition on the partition
+     * columns, e.g. "p = 'value'" (requires Impala 2.8).
+     *
+     * @param tablename
+     * @param condition
+     * @throws SQLException
+     */
+    public void dropPartitions(String tablename, String condition) throws SQLException {
+		System.out.print(String.format("Dropping partitions (%s) of table '%s'", condition, tablename));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("ALTER TABLE %s DROP IF EXISTS PARTITION (%s);", tablename, condition));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
+    /**
+     * Renames a table instantly.
+     *
+     * @param tablename The table to rename.
+     * @param newTablename The new name of the table.
+     * @throws SQLException
+     */
+    public void renameTable(String tablename, String newTablename) throws SQLException {
+		System.out.print(String.format("Renaming table '%s' to '%s'", tablename, newTablename));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("ALTER TABLE %s RENAME TO %s;", tablename, newTablename));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
+    /**
+     * (Re)creates a java user defined function instantly.
+     *
+     * @param signature The name and argument types, e.g. "f(STRING, STRING)".
+     * @param returnType The type of the return value.
+     * @param location The HDFS location of the jar containing the function.
+     * @param symbol The fully qualified name of the class implementing the function.
+     * @throws SQLException
+     */
+    public void createFunction(String signature, String returnType, String location, String symbol) throws SQLException {
+		System.out.print(String.format("Creating function '%s'", signature));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("DROP FUNCTION IF EXISTS %s;", signature));
+		connection.createStatement().executeUpdate(String.format("CREATE FUNCTION %s RETURNS %s LOCATION '%s' SYMBOL='%s';",
+				signature, returnType, location, symbol));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
     /**
      * Computes stats for a table (optimization)
      *
@@ -213,6 +319,135 @@ public final class Impala {
 		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
     }
 
+    /**
+     * Computes stats for a table from a sample of its data files (optimization)
+     *
+     * Like {@link #computeStats(String)}, but the column stats are estimated
+     * from the given percentage of the data files (TABLESAMPLE, requires
+     * Impala 2.12). The number of rows is still exact.
+     *
+     * @param tablename
+     * @param percent The percentage of the data files to scan, 0 or 100 to scan all of them
+     * @throws SQLException
+     */
+    public void computeStats(String tablename, int percent) throws SQLException {
+		if (percent <= 0 || percent >= 100) {
+			computeStats(tablename);
+			return;
+		}
+		System.out.print(String.format("Precomputing sampled optimization stats for '%s' (%d%%)", tablename, percent));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("COMPUTE STATS %s TABLESAMPLE SYSTEM(%d);", tablename, percent));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
+    /**
+     * Computes stats for the partitions of a table which have none (optimization)
+     *
+     * Like {@link #computeStats(String)}, but only partitions which were added
+     * or changed since the last run are scanned. Use it after appending to a
+     * few partitions of a large partitioned table.
+     *
+     * @param tablename
+     * @throws SQLException
+     */
+    public void computeIncrementalStats(String tablename) throws SQLException {
+		System.out.print(String.format("Precomputing incremental optimization stats for '%s'", tablename));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("COMPUTE INCREMENTAL STATS %s;", tablename));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
+    /**
+     * Returns the names of the tables of the database in use.
+     *
+     * Impala returns the names in lower case.
+     *
+     * @return The names of the tables.
+     * @throws SQLException
+     */
+    public HashSet<String> tableNames() throws SQLException {
+		ResultSet result = connection.createStatement().executeQuery("SHOW TABLES;");
+		HashSet<String> tables = new HashSet<String>();
+		while (result.next())
+			tables.add(result.getString(1));
+		return tables;
+    }
+
+    /**
+     * Returns the names of the columns of a table in the order of the table.
+     *
+     * Impala returns the names in lower case. Partition columns are included.
+     *
+     * @param tablename
+     * @return The names of the columns.
+     * @throws SQLException
+     */
+    public ArrayList<String> columnNames(String tablename) throws SQLException {
+		ResultSet result = connection.createStatement().executeQuery(String.format("DESCRIBE %s;", tablename));
+		ArrayList<String> columns = new ArrayList<String>();
+		while (result.next())
+			columns.add(result.getString("name"));
+		return columns;
+    }
+
+    /**
+     * Adds a column to a table instantly.
+     *
+     * Rows of existing data files have NULL in the new column.
+     *
+     * @param tablename The table to alter.
+     * @param columnName The name of the new column.
+     * @param dataType The type of the new column.
+     * @throws SQLException
+     */
+    public void addColumn(String tablename, String columnName, DataType dataType) throws SQLException {
+		System.out.print(String.format("Adding column '%s' to table '%s'", columnName, tablename));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("ALTER TABLE %s ADD COLUMNS (%s %s);", tablename, columnName, dataType.name()));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
+    /**
+     * Returns the number of rows of a table as stored in the metastore.
+     *
+     * The number of rows is known after {@link #computeStats(String)} and
+     * retrieved without scanning the table. For partitioned tables the total
+     * of all partitions is returned.
+     *
+     * @param tablename
+     * @return The number of rows or -1 if the table has no stats.
+     * @throws SQLException
+     */
+    public long rowCount(String tablename) throws SQLException {
+		ResultSet result = connection.createStatement().executeQuery(String.format("SHOW TABLE STATS %s;", tablename));
+		long rows = -1;
+		// The last row holds the total of a partitioned table
+		while (result.next())
+			rows = result.getLong("#Rows");
+		return rows;
+    }
+
+    /**
+     * Adds the partitions found in the HDFS directory of a table
+     *
+     * Scans the location of a partitioned table for partition directories,
+     * which were written outside of impala, and adds them to the metastore.
+     *
+     * @param tablename
+     * @throws SQLException
+     */
+    public void recoverPartitions(String tablename) throws SQLException {
+		System.out.print(String.format("Recovering partitions of '%s'", tablename));
+		long startTime = System.currentTimeMillis();
+		connection.createStatement().executeUpdate(String.format("ALTER TABLE %s RECOVER PARTITIONS;", tablename));
+		long endTime = System.currentTimeMillis();
+		System.out.println(String.format(" [%.3fs]", (float)(endTime - startTime)/1000));
+    }
+
     /**
      * Sets an impala query option
      *
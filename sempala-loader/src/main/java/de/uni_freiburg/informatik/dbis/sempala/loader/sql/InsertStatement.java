@@ -16,6 +16,7 @@ public final class InsertStatement {
 	private Boolean overwrite = false;
 	private String partitions = null;
 	private String selectStatement = null;
+	private String values = null;
 
 	public InsertStatement(Connection connection, String tablename) {
 		this.connection = connection;
@@ -54,9 +55,38 @@ public final class InsertStatement {
 		return this;
 	}
 
+	/**
+	 * Adds a row to the VALUES clause. Strings are inserted as quoted
+	 * literals, other values as they are.
+	 */
+	public InsertStatement addValues(final Object... row) {
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < row.length; i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(literal(row[i]));
+		}
+		sb.append(")");
+		if (this.values==null)
+			values = sb.toString();
+		else
+			values+=String.format(", %s", sb);
+		return this;
+	}
+
+	private static String literal(Object value) {
+		if (value == null)
+			return "NULL";
+		if (value instanceof String)
+			return String.format("'%s'", ((String) value).replace("\\", "\\\\").replace("'", "\\'"));
+		if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite()))
+			return String.format("CAST('%s' AS DOUBLE)", value);
+		return value.toString();
+	}
+
 	public String toString() throws IllegalArgumentException {
-		if (this.tablename == null || this.selectStatement == null)
-			throw new IllegalArgumentException("tablename and either some columnDefinitions or asSelect must be specified");
+		if (this.tablename == null || (this.selectStatement == null && this.values == null))
+			throw new IllegalArgumentException("tablename and either a selectStatement or some values must be specified");
 		/*
 		 * [with_clause]
 	     * INSERT { INTO | OVERWRITE } [TABLE] table_name
@@ -78,6 +108,8 @@ public final class InsertStatement {
 			sb.append(String.format("\nPARTITION (%s)", partitions));
 		if (this.selectStatement != null)
 			sb.append(String.format("\n%s", this.selectStatement));
+		else
+			sb.append(String.format("\nVALUES %s", this.values));
 		return sb.toString();
 	}
 
@@ -0,0 +1,43 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.udf;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.UDF;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Hive/Impala user defined function which replaces the namespace of an IRI by
+ * its prefix, see {@link PrefixTrie#compress(String)}.
+ *
+ * The function takes the term and the HDFS path of the prefix file, e.g.
+ * prefix_compress(s, '/user/admin/sempala/prefixes.ttl'). The path has to be
+ * constant within a query, the prefix file is read once per function
+ * instance.
+ */
+public final class HivePrefixCompressFunction extends UDF {
+
+	private PrefixTrie trie = null;
+
+	public Text evaluate(Text term, Text prefix_file) throws IOException {
+		if (term == null)
+			return null;
+		if (trie == null)
+			trie = load(prefix_file.toString());
+		return new Text(trie.compress(term.toString()));
+	}
+
+	private static PrefixTrie load(String prefix_file) throws IOException {
+		Path path = new Path(prefix_file);
+		BufferedReader reader = new BufferedReader(
+				new InputStreamReader(path.getFileSystem(new Configuration()).open(path), "UTF-8"));
+		try {
+			return new PrefixTrie(PrefixTrie.readPrefixes(reader));
+		} finally {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.udf;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A character trie over the namespaces of a prefix file. It replaces the
+ * namespace of an IRI by its prefix in a single pass over the IRI, no matter
+ * how many prefixes are known. If several namespaces match, the longest one
+ * wins.
+ *
+ * The children of a node are kept in a sorted char array and found by binary
+ * search, which keeps the trie small enough to be shipped to every UDF
+ * instance.
+ */
+public final class PrefixTrie implements Serializable {
+
+	private static final long serialVersionUID = 6402313125873402101L;
+
+	/** A node of the trie, prefix is set if a namespace ends here. */
+	private static final class Node implements Serializable {
+
+		private static final long serialVersionUID = -4873305813279628357L;
+
+		private char[] labels = new char[0];
+		private Node[] children = new Node[0];
+		private String prefix = null;
+
+		private Node child(final char label) {
+			final int index = Arrays.binarySearch(labels, label);
+			return index < 0 ? null : children[index];
+		}
+
+		private Node addChild(final char label) {
+			int index = Arrays.binarySearch(labels, label);
+			if (index >= 0)
+				return children[index];
+
+			// Insert the new child at its position to keep the labels sorted
+			index = -(index + 1);
+			final char[] newLabels = new char[labels.length + 1];
+			final Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, index);
+			System.arraycopy(children, 0, newChildren, 0, index);
+			System.arraycopy(labels, index, newLabels, index + 1, labels.length - index);
+			System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+			newLabels[index] = label;
+			newChildren[index] = new Node();
+			labels = newLabels;
+			children = newChildren;
+			return newChildren[index];
+		}
+	}
+
+	private final Node root = new Node();
+
+	/**
+	 * @param prefix_map The map from namespace (braces removed) to prefix as
+	 *            returned by {@link #readPrefixes(BufferedReader)}
+	 */
+	public PrefixTrie(Map<String, String> prefix_map) {
+		for (Map.Entry<String, String> entry : prefix_map.entrySet()) {
+			Node node = root;
+			for (int i = 0; i < entry.getKey().length(); i++)
+				node = node.addChild(entry.getKey().charAt(i));
+			node.prefix = entry.getValue();
+		}
+	}
+
+	/**
+	 * Replaces the namespace of an IRI by its prefix, e.g.
+	 * "&lt;http://xmlns.com/foaf/0.1/name&gt;" becomes "foaf:name". Terms
+	 * which are not IRIs or have no known namespace are returned unchanged.
+	 *
+	 * @param term The term to compress
+	 * @return The compressed term
+	 */
+	public String compress(final String term) {
+		if (term == null || term.length() < 2 || term.charAt(0) != '<' || term.charAt(term.length() - 1) != '>')
+			return term;
+
+		// Walk down the trie and remember the last (longest) namespace
+		final int end = term.length() - 1;
+		Node node = root;
+		String prefix = null;
+		int local = -1;
+		for (int i = 1; i < end && node != null; i++) {
+			node = node.child(term.charAt(i));
+			if (node != null && node.prefix != null) {
+				prefix = node.prefix;
+				local = i + 1;
+			}
+		}
+		if (prefix == null)
+			return term;
+		return prefix + term.substring(local, end);
+	}
+
+	/**
+	 * Reads a prefix file.
+	 *
+	 * Each line holds a prefix and its namespace in long format, e.g.
+	 * "foaf: &lt;http://xmlns.com/foaf/0.1/&gt;". Invalid lines are skipped.
+	 *
+	 * @param reader The reader of the prefix file
+	 * @return A map from namespace (braces removed) to prefix
+	 * @throws IOException
+	 */
+	public static Map<String, String> readPrefixes(BufferedReader reader) throws IOException {
+		Map<String, String> prefix_map = new HashMap<String, String>();
+		for (String line; (line = reader.readLine()) != null;) {
+			String[] splited = line.split("\\s+");
+			if (splited.length < 2) {
+				System.out.printf("Line in prefix file has invalid format. Skip. ('%s')\n", line);
+				continue;
+			}
+			prefix_map.put(splited[1].substring(1, splited[1].length() - 1), splited[0]);
+		}
+		return prefix_map;
+	}
+}
@@ -0,0 +1,337 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.udf;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+
+import scala.Tuple2;
+
+/**
+ * Aggregates the triples of every subject into one row of the complex
+ * property table. For example, for a subject "s1", we have the corresponding
+ * triples:
+ * 	"s1 likes o1" ,
+ * 	"s1 likes o2" ,
+ *	"s1 has o3",
+ * 	"s1 contains o4"
+ * and the properties <likes, has, contains, is>, where only "likes" is
+ * complex. Then the row of s1 is (s1, [o1, o2], o3, o4, NULL). The order of
+ * the columns is the order of the properties given to the constructor.
+ *
+ * The values of a subject are collected in an array of lists indexed by the
+ * ordinal of the property. The ordinals of the predicates are computed once
+ * on the driver, so a triple costs one hash lookup and one append.
+ *
+ * Subjects with very many triples (hubs) would be aggregated by a single
+ * task. Such subjects can be salted, i.e. their triples are spread over
+ * several keys by the hash of the object, aggregated partially and merged
+ * afterwards, see {@link #heavySubjects(JavaRDD, double, long, int)}.
+ */
+public final class PropertiesAggregator implements Serializable {
+
+	private static final long serialVersionUID = -4861530297147721846L;
+
+	/** The ordinal of every predicate as it is stored in the triple table */
+	private final HashMap<String, Integer> ordinals = new HashMap<String, Integer>();
+
+	/** Indicates for every ordinal if the property is complex (multi valued) */
+	private final boolean[] complex;
+
+	/**
+	 * @param allProperties The normalized properties in the order of the columns
+	 * @param isComplexProperty Indicates for every property if it is complex
+	 * @param predicates The distinct predicates of the triple table
+	 */
+	public PropertiesAggregator(String[] allProperties, Boolean[] isComplexProperty, Iterable<String> predicates) {
+		HashMap<String, Integer> positions = new HashMap<String, Integer>();
+		for (int i = 0; i < allProperties.length; i++)
+			positions.put(allProperties[i], i);
+		for (String predicate : predicates)
+			ordinals.put(predicate, positions.get(normalize(predicate)));
+
+		complex = new boolean[isComplexProperty.length];
+		for (int i = 0; i < isComplexProperty.length; i++)
+			complex[i] = isComplexProperty[i];
+	}
+
+	/**
+	 * Returns the name of a property as it is stored in the properties table,
+	 * i.e. without '<' and '>' and non word characters replaced by '_'.
+	 */
+	public static String normalize(String predicate) {
+		String property = predicate.startsWith("<") && predicate.endsWith(">")
+				? predicate.substring(1, predicate.length() - 1) : predicate;
+		return property.replaceAll("[[^\\w]+]", "_");
+	}
+
+	/**
+	 * Aggregates the triples by subject.
+	 *
+	 * @param triples The rows (subject, predicate, object)
+	 * @return One row per subject, the subject followed by the values of all
+	 *         properties, a list for complex properties and a single value
+	 *         otherwise
+	 */
+	public JavaRDD<Row> aggregate(JavaRDD<Row> triples) {
+		return triples
+				.mapToPair(new KeyBySubject(ordinals))
+				.combineByKey(new CreateValues(complex.length), new AddValue(), new MergeValues())
+				.map(new ToRow(complex));
+	}
+
+	/**
+	 * Aggregates the triples by subject, where the triples of the given heavy
+	 * subjects are aggregated partially by several tasks first.
+	 *
+	 * @param triples The rows (subject, predicate, object)
+	 * @param salts The number of partial aggregates of every heavy subject
+	 * @param partitions The number of partitions of the shuffles
+	 * @return One row per subject, see {@link #aggregate(JavaRDD)}
+	 */
+	public JavaRDD<Row> aggregate(JavaRDD<Row> triples, HashMap<String, Integer> salts, int partitions) {
+		JavaPairRDD<Tuple2<String, Integer>, ArrayList<String>[]> partial = triples
+				.mapToPair(new KeyBySaltedSubject(ordinals, salts))
+				.combineByKey(new CreateValues(complex.length), new AddValue(), new MergeValues(), partitions);
+
+		// The aggregates of the other subjects are complete, only the partial ones are merged.
+		// Both read the output of the same shuffle, which is written only once.
+		JavaRDD<Row> light = partial
+				.filter(new IsSalted(false))
+				.mapToPair(new Unsalt())
+				.map(new ToRow(complex));
+		JavaRDD<Row> heavy = partial
+				.filter(new IsSalted(true))
+				.mapToPair(new Unsalt())
+				.reduceByKey(new MergeValues(), partitions)
+				.map(new ToRow(complex));
+		return light.union(heavy);
+	}
+
+	/**
+	 * Finds the subjects with more triples than the threshold by counting the
+	 * subjects of a sample of the triples.
+	 *
+	 * @param triples The rows (subject, predicate, object)
+	 * @param fraction The fraction of the triples sampled
+	 * @param threshold The estimated number of triples of a heavy subject
+	 * @param maxSalts The maximal number of partial aggregates of a subject
+	 * @return The number of partial aggregates of every heavy subject, one
+	 *         per threshold triples
+	 */
+	public static HashMap<String, Integer> heavySubjects(JavaRDD<Row> triples, double fraction, long threshold, int maxSalts) {
+		HashMap<String, Integer> salts = new HashMap<String, Integer>();
+		Map<String, Long> counts = triples
+				.sample(false, fraction)
+				.mapToPair(new CountSubject())
+				.reduceByKey(new Sum())
+				.filter(new AtLeast((long) Math.ceil(threshold * fraction)))
+				.collectAsMap();
+		for (Map.Entry<String, Long> count : counts.entrySet()) {
+			long estimate = (long) (count.getValue() / fraction);
+			salts.put(count.getKey(), (int) Math.max(2, Math.min(maxSalts, (estimate + threshold - 1) / threshold)));
+		}
+		return salts;
+	}
+
+	/** Maps a triple to (subject, (ordinal, object)) */
+	private static final class KeyBySubject implements PairFunction<Row, String, Tuple2<Integer, String>> {
+
+		private static final long serialVersionUID = 6105519733513627408L;
+
+		private final HashMap<String, Integer> ordinals;
+
+		KeyBySubject(HashMap<String, Integer> ordinals) {
+			this.ordinals = ordinals;
+		}
+
+		@Override
+		public Tuple2<String, Tuple2<Integer, String>> call(Row triple) {
+			return new Tuple2<String, Tuple2<Integer, String>>(triple.getString(0),
+					new Tuple2<Integer, String>(ordinals.get(triple.getString(1)), triple.getString(2)));
+		}
+	}
+
+	/**
+	 * Maps a triple to ((subject, salt), (ordinal, object)). The salt is the
+	 * hash of the object modulo the number of salts of a heavy subject, or -1
+	 * for the other subjects.
+	 */
+	private static final class KeyBySaltedSubject implements PairFunction<Row, Tuple2<String, Integer>, Tuple2<Integer, String>> {
+
+		private static final long serialVersionUID = -1825300946426130711L;
+
+		private final HashMap<String, Integer> ordinals;
+
+		private final HashMap<String, Integer> salts;
+
+		KeyBySaltedSubject(HashMap<String, Integer> ordinals, HashMap<String, Integer> salts) {
+			this.ordinals = ordinals;
+			this.salts = salts;
+		}
+
+		@Override
+		public Tuple2<Tuple2<String, Integer>, Tuple2<Integer, String>> call(Row triple) {
+			Integer count = salts.get(triple.getString(0));
+			int salt = (count == null) ? -1 : (triple.getString(2).hashCode() & Integer.MAX_VALUE) % count;
+			return new Tuple2<Tuple2<String, Integer>, Tuple2<Integer, String>>(
+					new Tuple2<String, Integer>(triple.getString(0), salt),
+					new Tuple2<Integer, String>(ordinals.get(triple.getString(1)), triple.getString(2)));
+		}
+	}
+
+	/** Keeps the partial aggregates of the heavy subjects or the complete ones of the others */
+	private static final class IsSalted implements Function<Tuple2<Tuple2<String, Integer>, ArrayList<String>[]>, Boolean> {
+
+		private static final long serialVersionUID = 5390851925512311735L;
+
+		private final boolean salted;
+
+		IsSalted(boolean salted) {
+			this.salted = salted;
+		}
+
+		@Override
+		public Boolean call(Tuple2<Tuple2<String, Integer>, ArrayList<String>[]> values) {
+			return (values._1()._2() >= 0) == salted;
+		}
+	}
+
+	/** Removes the salt of a partial aggregate */
+	private static final class Unsalt implements PairFunction<Tuple2<Tuple2<String, Integer>, ArrayList<String>[]>, String, ArrayList<String>[]> {
+
+		private static final long serialVersionUID = -3116842214393337092L;
+
+		@Override
+		public Tuple2<String, ArrayList<String>[]> call(Tuple2<Tuple2<String, Integer>, ArrayList<String>[]> values) {
+			return new Tuple2<String, ArrayList<String>[]>(values._1()._1(), values._2());
+		}
+	}
+
+	/** Maps a triple to (subject, 1) */
+	private static final class CountSubject implements PairFunction<Row, String, Long> {
+
+		private static final long serialVersionUID = 2984318564620381532L;
+
+		@Override
+		public Tuple2<String, Long> call(Row triple) {
+			return new Tuple2<String, Long>(triple.getString(0), 1L);
+		}
+	}
+
+	/** Adds two counts */
+	private static final class Sum implements Function2<Long, Long, Long> {
+
+		private static final long serialVersionUID = -8405426573385262101L;
+
+		@Override
+		public Long call(Long count1, Long count2) {
+			return count1 + count2;
+		}
+	}
+
+	/** Keeps the counts reaching a minimum */
+	private static final class AtLeast implements Function<Tuple2<String, Long>, Boolean> {
+
+		private static final long serialVersionUID = 7725120460853158519L;
+
+		private final long minimum;
+
+		AtLeast(long minimum) {
+			this.minimum = minimum;
+		}
+
+		@Override
+		public Boolean call(Tuple2<String, Long> count) {
+			return count._2() >= minimum;
+		}
+	}
+
+	/** Creates the values of a subject from its first triple */
+	private static final class CreateValues implements Function<Tuple2<Integer, String>, ArrayList<String>[]> {
+
+		private static final long serialVersionUID = -2390542218755624170L;
+
+		private final int size;
+
+		CreateValues(int size) {
+			this.size = size;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public ArrayList<String>[] call(Tuple2<Integer, String> value) {
+			return new AddValue().call(new ArrayList[size], value);
+		}
+	}
+
+	/** Appends the object of a triple to the list of its property */
+	private static final class AddValue implements Function2<ArrayList<String>[], Tuple2<Integer, String>, ArrayList<String>[]> {
+
+		private static final long serialVersionUID = 3350932651062125397L;
+
+		@Override
+		public ArrayList<String>[] call(ArrayList<String>[] values, Tuple2<Integer, String> value) {
+			int ordinal = value._1();
+			if (values[ordinal] == null)
+				values[ordinal] = new ArrayList<String>(1);
+			values[ordinal].add(value._2());
+			return values;
+		}
+	}
+
+	/** Merges two parts of the values of a subject */
+	private static final class MergeValues implements Function2<ArrayList<String>[], ArrayList<String>[], ArrayList<String>[]> {
+
+		private static final long serialVersionUID = -7480328226640530562L;
+
+		@Override
+		public ArrayList<String>[] call(ArrayList<String>[] values1, ArrayList<String>[] values2) {
+			for (int i = 0; i < values1.length; i++) {
+				if (values2[i] == null)
+					continue;
+				if (values1[i] == null)
+					values1[i] = values2[i];
+				else
+					values1[i].addAll(values2[i]);
+			}
+			return values1;
+		}
+	}
+
+	/** Builds the row of a subject */
+	private static final class ToRow implements Function<Tuple2<String, ArrayList<String>[]>, Row> {
+
+		private static final long serialVersionUID = 1795006442871924453L;
+
+		private final boolean[] complex;
+
+		ToRow(boolean[] complex) {
+			this.complex = complex;
+		}
+
+		@Override
+		public Row call(Tuple2<String, ArrayList<String>[]> subject) {
+			ArrayList<String>[] values = subject._2();
+			Object[] row = new Object[values.length + 1];
+			row[0] = subject._1();
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] == null)
+					row[i + 1] = null;
+				else if (complex[i])
+					row[i + 1] = values[i].toArray(new String[values[i].size()]);
+				else
+					row[i + 1] = values[i].get(0);
+			}
+			return RowFactory.create(row);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package de.uni_freiburg.informatik.dbis.sempala.loader.udf;
+
+import org.apache.spark.sql.api.java.UDF1;
+
+/**
+ * Spark user defined function which replaces the namespace of an IRI by its
+ * prefix, see {@link PrefixTrie#compress(String)}. The trie is serialized
+ * with the function and shipped to the executors.
+ */
+public final class SparkPrefixCompressFunction implements UDF1<String, String> {
+
+	private static final long serialVersionUID = -1546180470264578925L;
+
+	private final PrefixTrie trie;
+
+	public SparkPrefixCompressFunction(PrefixTrie trie) {
+		this.trie = trie;
+	}
+
+	@Override
+	public String call(String term) {
+		return trie.compress(term);
+	}
+}
@@ -0,0 +1,107 @@
+package de.uni_freiburg.informatik.dbis.sempala.translator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import de.uni_freiburg.informatik.dbis.sempala.translator.run.Main;
+import de.uni_freiburg.informatik.dbis.sempala.translator.sql.SpecialCharFilter;
+
+/**
+ * Looks up the tables of the characteristic set format built by the loader
+ * (format characteristic_sets) in its catalog.
+ *
+ * Every subject is stored in exactly one table, which has a column for every
+ * predicate of the subject. So the subjects matching a star of bound
+ * predicates are found in the tables having columns for all of them.
+ */
+public final class CharacteristicSets {
+
+	/** The tables and columns of every predicate, loaded on first use */
+	private static HashMap<String, HashMap<String, String>> catalog = null;
+
+	/**
+	 * Returns the FROM expression of a star of triple patterns. It is the
+	 * union of all tables covering the predicates, where the columns are
+	 * named like the columns of the property table, see
+	 * {@link SpecialCharFilter#filter(String)}.
+	 *
+	 * @param predicates The bound predicates of the star as they are stored by the loader
+	 * @return The FROM expression
+	 */
+	public static String from(Collection<String> predicates) {
+		LinkedHashSet<String> distinct = new LinkedHashSet<String>(predicates);
+		HashMap<String, HashMap<String, String>> columnsOf = getCatalog();
+
+		// The tables with columns for all predicates
+		ArrayList<String> tables = null;
+		for (String predicate : distinct) {
+			HashMap<String, String> columns = columnsOf.get(predicate);
+			if (columns == null) {
+				tables = new ArrayList<String>();
+				break;
+			}
+			if (tables == null)
+				tables = new ArrayList<String>(columns.keySet());
+			else
+				tables.retainAll(columns.keySet());
+		}
+		if (tables != null)
+			Collections.sort(tables);
+
+		// No table covers the star, select an empty relation
+		if (tables == null || tables.isEmpty()) {
+			StringBuilder empty = new StringBuilder("SELECT NULL AS " + Tags.SUBJECT_COLUMN_NAME);
+			if (Translator.subjectBuckets > 0)
+				empty.append(", NULL AS " + Tags.SUBJECT_BUCKET_COLUMN_NAME);
+			for (String predicate : distinct)
+				empty.append(", NULL AS " + SpecialCharFilter.filter(predicate));
+			return "(" + empty + " LIMIT 0) cs";
+		}
+
+		StringBuilder union = new StringBuilder();
+		for (String table : tables) {
+			if (union.length() > 0)
+				union.append("\nUNION ALL\n");
+			union.append("SELECT " + Tags.SUBJECT_COLUMN_NAME);
+			if (Translator.subjectBuckets > 0)
+				union.append(", " + Tags.SUBJECT_BUCKET_COLUMN_NAME);
+			for (String predicate : distinct)
+				union.append(String.format(", %s AS %s", columnsOf.get(predicate).get(table),
+						SpecialCharFilter.filter(predicate)));
+			union.append(" FROM " + table);
+		}
+		return "(" + union + ") cs";
+	}
+
+	private static synchronized HashMap<String, HashMap<String, String>> getCatalog() {
+		if (catalog == null) {
+			HashMap<String, HashMap<String, String>> read = new HashMap<String, HashMap<String, String>>();
+			try {
+				ResultSet result = Main.impalaConnection.createStatement()
+						.executeQuery(String.format("SELECT %s, %s, %s FROM %s", Tags.PREDICATE_COLUMN_NAME,
+								Tags.CHARACTERISTIC_SETS_TABLE_COLUMN_NAME, Tags.CHARACTERISTIC_SETS_COLUMN_COLUMN_NAME,
+								Tags.CHARACTERISTIC_SETS_TABLENAME));
+				while (result.next()) {
+					if (!read.containsKey(result.getString(1)))
+						read.put(result.getString(1), new HashMap<String, String>());
+					read.get(result.getString(1)).put(result.getString(2), result.getString(3));
+				}
+			} catch (SQLException e) {
+				// Without the catalog every pattern would be translated to an empty relation
+				throw new IllegalStateException("Cannot read the characteristic sets catalog "
+						+ Tags.CHARACTERISTIC_SETS_TABLENAME, e);
+			}
+			catalog = read;
+		}
+		return catalog;
+	}
+
+	// Suppress default constructor for noninstantiability
+	private CharacteristicSets() {
+	}
+}
@@ -0,0 +1,97 @@
+package de.uni_freiburg.informatik.dbis.sempala.translator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.uni_freiburg.informatik.dbis.sempala.translator.run.Main;
+import de.uni_freiburg.informatik.dbis.sempala.translator.sql.SQLStatement;
+import de.uni_freiburg.informatik.dbis.sempala.translator.sql.Select;
+
+/**
+ * Maps the constants of a query to the ids of the dictionary built by the
+ * loader (option -de) and the ids of the result back to terms.
+ *
+ * If the dictionary encoding is turned off all methods leave the query as it
+ * is, i.e. constants are compared as strings.
+ */
+public final class Dictionary {
+
+	/** The id used for terms which are not part of the dictionary */
+	private static final long UNKNOWN_ID = -1;
+
+	/** The ids of the terms looked up so far */
+	private static final HashMap<String, Long> ids = new HashMap<String, Long>();
+
+	/** Whether the lookup of an id failed, later terms are not looked up */
+	private static boolean lookupFailed = false;
+
+	/**
+	 * Returns the SQL expression a column has to be compared with to match the
+	 * given term.
+	 *
+	 * With dictionary encoding the id is looked up once via the impala
+	 * connection. Without a connection (the query is only written to a file)
+	 * a scalar subquery against the dictionary is returned instead, as well as
+	 * for all terms after a lookup failed.
+	 *
+	 * @param term The term as it is stored by the loader
+	 * @return The quoted term or its id
+	 */
+	public static String encode(String term) {
+		if (!Translator.dictionaryEncoding)
+			return "'" + term + "'";
+
+		Long id = ids.get(term);
+		if (id == null) {
+			String lookup = String.format("SELECT %s FROM %s WHERE %s = '%s'", Tags.DICTIONARY_ID_COLUMN_NAME,
+					Tags.DICTIONARY_TABLENAME, Tags.DICTIONARY_TERM_COLUMN_NAME, term);
+			if (Main.impalaConnection == null || lookupFailed)
+				return "(" + lookup + ")";
+			try {
+				ResultSet result = Main.impalaConnection.createStatement().executeQuery(lookup);
+				id = result.next() ? result.getLong(1) : UNKNOWN_ID;
+			} catch (SQLException e) {
+				e.printStackTrace();
+				lookupFailed = true;
+				return "(" + lookup + ")";
+			}
+			ids.put(term, id);
+		}
+		return String.valueOf(id);
+	}
+
+	/**
+	 * Wraps the final statement of a query in a statement which replaces the
+	 * ids of all selected variables by their terms.
+	 *
+	 * @param root The final statement of the query
+	 * @return The decoding statement or root if there is nothing to decode
+	 */
+	public static SQLStatement decode(SQLStatement root) {
+		if (!Translator.dictionaryEncoding || root.getSelectors().isEmpty())
+			return root;
+
+		// The name of the root may contain spaces (e.g. "PROJECTION ")
+		String encoded = "encoded";
+		Select decoded = new Select("decoded");
+		StringBuilder from = new StringBuilder(root.toString() + " " + encoded);
+		int i = 0;
+		for (Map.Entry<String, String[]> selector : root.getSelectors().entrySet()) {
+			if (selector.getValue() == null)
+				continue;
+			String var = selector.getKey();
+			String alias = "d" + i++;
+			decoded.addSelector(var, new String[] { alias, Tags.DICTIONARY_TERM_COLUMN_NAME });
+			from.append(String.format("\nLEFT JOIN %1$s %2$s ON %2$s.%3$s = %4$s.%5$s", Tags.DICTIONARY_TABLENAME, alias,
+					Tags.DICTIONARY_ID_COLUMN_NAME, encoded, var));
+		}
+		decoded.setFrom(from.toString());
+		return decoded;
+	}
+
+	// Suppress default constructor for noninstantiability
+	private Dictionary() {
+	}
+}
@@ -6,7 +6,8 @@ public enum Format {
 	COMPLEX_PROPERTY_TABLE,
 	COMPLEX_PROPERTY_TABLE_SPARK,
 	SINGLETABLE,
-	EXTVP;
+	EXTVP,
+	CHARACTERISTIC_SETS;
 	@Override
 	public String toString() {
 		return super.toString().toLowerCase();
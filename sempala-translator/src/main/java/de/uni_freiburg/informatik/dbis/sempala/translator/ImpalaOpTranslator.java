@@ -67,7 +67,7 @@ public class ImpalaOpTranslator extends ImpalaOpVisitorBase {
 		expandPrefixes = _expandPrefixes;
 		// Walk through the tree bottom up
 		ImpalaOpWalker.walkBottomUp(this, op);
-		return clean(stack.pop().toString());
+		return clean(Dictionary.decode(stack.pop()).toString());
 	}
 
 	private String clean(String raw) {
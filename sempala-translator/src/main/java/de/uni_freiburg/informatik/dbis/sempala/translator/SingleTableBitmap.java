@@ -0,0 +1,65 @@
+package de.uni_freiburg.informatik.dbis.sempala.translator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import de.uni_freiburg.informatik.dbis.sempala.translator.run.Main;
+
+/**
+ * Maps the predicates to the bits of the correlation bitmaps of the single
+ * table built by the loader (option -bm).
+ *
+ * Without bitmaps there are the BOOLEAN columns ss_p, so_p and os_p for every
+ * predicate p. With bitmaps the correlations are stored in the BIGINT columns
+ * ss_w, so_w and os_w, where predicate p is the bit mask(p) of the word w(p).
+ */
+public final class SingleTableBitmap {
+
+	/** The word and the mask of every predicate, loaded on first use */
+	private static HashMap<String, long[]> bits = null;
+
+	/**
+	 * Returns the condition which holds if a row of the single table is in the
+	 * given relation to the given predicate.
+	 *
+	 * @param relation The relation, i.e. "ss", "so" or "os"
+	 * @param predicate The predicate as it is stored by the loader
+	 * @param column The boolean column of the predicate without bitmaps
+	 * @return The condition
+	 */
+	public static String condition(String relation, String predicate, String column) {
+		if (!Translator.singleTableBitmap)
+			return String.format("%s_%s", relation, column);
+
+		long[] bit = lookup(predicate);
+		// A predicate which is not part of the data is in no relation
+		if (bit == null)
+			return "false";
+		return String.format("bitand(%s_%d, %d) <> 0", relation, bit[0], bit[1]);
+	}
+
+	private static synchronized long[] lookup(String predicate) {
+		if (bits == null) {
+			HashMap<String, long[]> read = new HashMap<String, long[]>();
+			try {
+				ResultSet result = Main.impalaConnection.createStatement()
+						.executeQuery(String.format("SELECT %s, %s, %s FROM %s", Tags.PREDICATE_COLUMN_NAME,
+								Tags.BITMAP_WORD_COLUMN_NAME, Tags.BITMAP_MASK_COLUMN_NAME,
+								Tags.IMPALA_SINGLETABLE_BITMAP_TABLENAME));
+				while (result.next())
+					read.put(result.getString(1), new long[] { result.getInt(2), result.getLong(3) });
+			} catch (SQLException e) {
+				// Without the bits every correlation test would be false
+				throw new IllegalStateException("Cannot read the bits of the predicates from "
+						+ Tags.IMPALA_SINGLETABLE_BITMAP_TABLENAME, e);
+			}
+			bits = read;
+		}
+		return bits.get(predicate);
+	}
+
+	// Suppress default constructor for noninstantiability
+	private SingleTableBitmap() {
+	}
+}
@@ -0,0 +1,61 @@
+package de.uni_freiburg.informatik.dbis.sempala.translator;
+
+/**
+ * Builds the conditions on the subject buckets of the tables loaded with
+ * subject buckets (loader option -sb).
+ *
+ * The loader partitions the tables by the hash of the subject modulo the
+ * number of buckets. A bound subject restricts the scan to one partition and
+ * a join on the subject can also join the buckets, so impala prunes the
+ * partitions of one side with the runtime filter built from the other side.
+ *
+ * If the tables are not bucketed all methods leave the query as it is.
+ */
+public final class SubjectBuckets {
+
+	/**
+	 * Returns the condition selecting the bucket of a bound subject.
+	 *
+	 * @param term The subject as it is stored by the loader
+	 * @return The condition or null if the tables are not bucketed or the
+	 *         bucket is not known before the query is run
+	 */
+	public static String condition(String term) {
+		if (Translator.subjectBuckets <= 0)
+			return null;
+
+		String subject = Dictionary.encode(term);
+		// Ids looked up by a subquery can not be hashed
+		if (subject.startsWith("("))
+			return null;
+		// The ids are hashed as BIGINT like the column of the loader
+		if (Translator.dictionaryEncoding)
+			subject = String.format("CAST(%s AS BIGINT)", subject);
+		return String.format("%s = pmod(fnv_hash(%s), %d)", Tags.SUBJECT_BUCKET_COLUMN_NAME, subject,
+				Translator.subjectBuckets);
+	}
+
+	/**
+	 * Returns the name of the selector of the bucket of a subject variable.
+	 *
+	 * @param variable The name of the variable
+	 * @return The name of the selector or null if the tables are not bucketed
+	 */
+	public static String selector(String variable) {
+		if (Translator.subjectBuckets <= 0)
+			return null;
+		return Tags.SUBJECT_BUCKET_PREFIX + variable;
+	}
+
+	/**
+	 * @param selector The name of a selector
+	 * @return Indicates if the selector is the bucket of a subject variable
+	 */
+	public static boolean isSelector(String selector) {
+		return selector.startsWith(Tags.SUBJECT_BUCKET_PREFIX);
+	}
+
+	// Suppress default constructor for noninstantiability
+	private SubjectBuckets() {
+	}
+}
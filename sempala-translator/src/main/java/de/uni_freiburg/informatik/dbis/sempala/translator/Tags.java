@@ -11,6 +11,10 @@ public final class Tags {
 	// Global Constants
 	public static final String IMPALA_PROPERTYTABLE_TABLENAME = "bigtable_parquet";
 	public static final String IMPALA_SINGLETABLE_TABLENAME = "singletable";
+	// predicate bits of the single table if it was loaded with bitmaps
+	public static final String IMPALA_SINGLETABLE_BITMAP_TABLENAME = "singletable_bitmap";
+	public static final String BITMAP_WORD_COLUMN_NAME = "word";
+	public static final String BITMAP_MASK_COLUMN_NAME = "mask";
 	public static final String IMPALA_TABLENAME_TRIPLESTORE = "triplestore_parquet";
 
 	// tables produced by the complex property table loading process
@@ -22,7 +26,30 @@ public final class Tags {
 	
 	//tables produced by the ExtVP loading process
 	public static final String TABLENAME_TRIPLE_TABLE = "tripletable";
+	public static final String TABLENAME_OBJECT_TRIPLE_TABLE = "tripletable_os";
+	// rdf:type triples partitioned by class (object) if the loader was run with -tp
+	public static final String TABLENAME_TYPE_TRIPLE_TABLE = "tripletable_type";
+	// table holding all ExtVP tables as partitions if the loader was run with -xp
+	public static final String TABLENAME_EXTVP = "extvp";
+	public static final String EXTVP_TYPE_COLUMN_NAME = "extvp_type";
+	public static final String EXTVP_P1_COLUMN_NAME = "p1";
+	public static final String EXTVP_P2_COLUMN_NAME = "p2";
 	
+	// catalog of the tables produced by the characteristic set loading process
+	public static final String CHARACTERISTIC_SETS_TABLENAME = "characteristic_sets";
+	public static final String CHARACTERISTIC_SETS_TABLE_COLUMN_NAME = "tablename";
+	public static final String CHARACTERISTIC_SETS_COLUMN_COLUMN_NAME = "column_name";
+	
+	// dictionary produced by the loaders if the terms are encoded
+	public static final String DICTIONARY_TABLENAME = "dictionary";
+	public static final String DICTIONARY_ID_COLUMN_NAME = "id";
+	public static final String DICTIONARY_TERM_COLUMN_NAME = "term";
+
+	// partition column of the subject buckets if the loader was run with -sb
+	public static final String SUBJECT_BUCKET_COLUMN_NAME = "s_bucket";
+	// prefix of the selectors of the subject buckets, which are not part of the result
+	public static final String SUBJECT_BUCKET_PREFIX = "bucket__";
+
 	public static final String SEMPALA_RESULTS_DB_NAME = "sempala_results";
 
 	public static final String BGP = "BGP";
@@ -57,6 +84,11 @@ public final class Tags {
 	public static final String SUBJECT_COLUMN_NAME   = "s";
 	public static final String PREDICATE_COLUMN_NAME = "p";
 	public static final String OBJECT_COLUMN_NAME    = "o";
+	// typed columns of the numeric and date literals if the loader was run with -tl
+	public static final String OBJECT_NUMERIC_COLUMN_NAME = "o_num";
+	public static final String OBJECT_DATE_COLUMN_NAME = "o_date";
+	public static final String NUMERIC_COLUMN_SUFFIX = "_num";
+	public static final String DATE_COLUMN_SUFFIX = "_date";
 
 	public static final int LIMIT_LARGE_NUMBER = 100000000;
 	public static final String ADD = "+";
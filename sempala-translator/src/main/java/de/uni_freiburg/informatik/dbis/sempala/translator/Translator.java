@@ -61,6 +61,27 @@ public class Translator {
 	/** The value of threshold*/
 	public static boolean StraighJoin = false;
 	
+	/** Indicates if the terms are replaced by ids of the dictionary */
+	public static boolean dictionaryEncoding = false;
+
+	/** Indicates if the correlations of the single table are stored as bitmaps */
+	public static boolean singleTableBitmap = false;
+
+	/** Indicates if numeric and date literals are compared with the typed columns */
+	public static boolean typedLiterals = false;
+
+	/** Indicates if there is a replica of the triple table sorted by object */
+	public static boolean objectReplica = false;
+
+	/** Indicates if the ExtVP tables are partitions of one table */
+	public static boolean extvpPartitioned = false;
+
+	/** Indicates if there is a table of the rdf:type triples partitioned by class */
+	public static boolean typePartitions = false;
+
+	/** The number of buckets the subjects are hashed into by the loader, 0 if the tables are not bucketed */
+	public static int subjectBuckets = 0;
+
 	/** The value of result table name */
 	public String result_table_name = "extvp";
 	
@@ -271,6 +292,34 @@ public class Translator {
 		this.StraighJoin = StraightJoin;
 	}
 	
+	public void setDictionaryEncoding(boolean value) {
+		dictionaryEncoding = value;
+	}
+
+	public void setSingleTableBitmap(boolean value) {
+		singleTableBitmap = value;
+	}
+
+	public void setTypedLiterals(boolean value) {
+		typedLiterals = value;
+	}
+
+	public void setObjectReplica(boolean value) {
+		objectReplica = value;
+	}
+
+	public void setExtVPPartitioned(boolean value) {
+		extvpPartitioned = value;
+	}
+
+	public void setTypePartitions(boolean value) {
+		typePartitions = value;
+	}
+
+	public void setSubjectBuckets(int value) {
+		subjectBuckets = value;
+	}
+
 	public void setThreshold(String Threshold) {
 		try {
 			threshold = Double.parseDouble(Threshold);
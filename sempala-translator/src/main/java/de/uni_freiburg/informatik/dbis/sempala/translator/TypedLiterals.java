@@ -0,0 +1,106 @@
+package de.uni_freiburg.informatik.dbis.sempala.translator;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+
+import com.hp.hpl.jena.sparql.expr.NodeValue;
+
+import de.uni_freiburg.informatik.dbis.sempala.translator.run.Main;
+
+/**
+ * Compares terms with numeric and date literals by their values, using the
+ * typed columns of the loader (option -tl).
+ *
+ * The loader parses the numeric and date literals into the columns o_num and
+ * o_date of the triple table and into the columns &lt;property&gt;_num and
+ * &lt;property&gt;_date of the property table. Comparing these columns
+ * instead of the strings of the terms is correct for numbers and lets the
+ * parquet min/max statistics skip row groups. Where no typed column is
+ * available the value is parsed from the term.
+ */
+public final class TypedLiterals {
+
+	/** The columns of the property table, loaded on first use */
+	private static HashSet<String> columns = null;
+
+	/**
+	 * Returns the value of a literal as SQL literal of its type.
+	 *
+	 * @param literal The literal
+	 * @return The typed SQL literal or null if the literal is neither a number nor a date
+	 */
+	public static String value(NodeValue literal) {
+		String lexical = literal.asNode().getLiteralLexicalForm();
+		if (literal.isNumber())
+			return lexical;
+		if (literal.isDateTime() || literal.isDate())
+			return String.format("CAST('%s' AS TIMESTAMP)", toTimestamp(lexical));
+		return null;
+	}
+
+	/**
+	 * Returns the typed column of a column holding terms.
+	 *
+	 * @param column The column of the table scanned by the statement
+	 * @param literal The literal the column is compared with
+	 * @return The typed column or null if there is none
+	 */
+	public static String column(String column, NodeValue literal) {
+		String suffix = literal.isNumber() ? Tags.NUMERIC_COLUMN_SUFFIX : Tags.DATE_COLUMN_SUFFIX;
+		if (column.equals(Tags.OBJECT_COLUMN_NAME))
+			return literal.isNumber() ? Tags.OBJECT_NUMERIC_COLUMN_NAME : Tags.OBJECT_DATE_COLUMN_NAME;
+		if (getColumns().contains((column + suffix).toLowerCase()))
+			return column + suffix;
+		return null;
+	}
+
+	/**
+	 * Returns the expression parsing the value of a term the way the loader
+	 * does, i.e. the lexical form of the literal cast to its type.
+	 *
+	 * @param term The expression of the term
+	 * @param literal The literal the term is compared with
+	 * @return The expression of the value, NULL if the term has no such value
+	 */
+	public static String parse(String term, NodeValue literal) {
+		String lexical = String.format("regexp_extract(%s, '^\"([^\"]*)\"', 1)", term);
+		if (literal.isNumber())
+			return String.format("CAST(%s AS DOUBLE)", lexical);
+		return String.format("CAST(regexp_replace(substr(%s, 1, 19), 'T', ' ') AS TIMESTAMP)", lexical);
+	}
+
+	/**
+	 * @param literal A literal
+	 * @return Indicates if the literal is compared by its value
+	 */
+	public static boolean isTyped(NodeValue literal) {
+		return literal.isNumber() || literal.isDateTime() || literal.isDate();
+	}
+
+	/** Cuts the time zone and replaces the 'T' like the loader */
+	private static String toTimestamp(String lexical) {
+		return (lexical.length() > 19 ? lexical.substring(0, 19) : lexical).replace('T', ' ');
+	}
+
+	private static synchronized HashSet<String> getColumns() {
+		if (columns == null) {
+			columns = new HashSet<String>();
+			if (Main.impalaConnection == null)
+				return columns;
+			try {
+				ResultSet result = Main.impalaConnection.createStatement()
+						.executeQuery(String.format("DESCRIBE %s", Tags.IMPALA_PROPERTYTABLE_TABLENAME));
+				while (result.next())
+					columns.add(result.getString(1).toLowerCase());
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return columns;
+	}
+
+	// Suppress default constructor for noninstantiability
+	private TypedLiterals() {
+	}
+}
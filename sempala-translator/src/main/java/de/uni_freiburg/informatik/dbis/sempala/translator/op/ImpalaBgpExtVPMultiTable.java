@@ -13,7 +13,10 @@ import com.hp.hpl.jena.graph.Node;
 import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.shared.PrefixMapping;
 import com.hp.hpl.jena.sparql.algebra.op.OpBGP;
+import com.hp.hpl.jena.vocabulary.RDF;
 
+import de.uni_freiburg.informatik.dbis.sempala.translator.Dictionary;
+import de.uni_freiburg.informatik.dbis.sempala.translator.SubjectBuckets;
 import de.uni_freiburg.informatik.dbis.sempala.translator.Tags;
 import de.uni_freiburg.informatik.dbis.sempala.translator.run.Main;
 import de.uni_freiburg.informatik.dbis.sempala.translator.sql.Join;
@@ -34,6 +37,7 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 
 	private Map<Triple, List<String>> ListOfExtVPTables;
 	private Map<Triple, String> ListOfExtVPTriples = new HashMap<Triple, String>();
+	private Map<String, String> ExtVPPartitions = new HashMap<String, String>();
 	private Map<String, List<String>> invertedVarIndex;
 	private List<Triple> QueryTriples;
 	double Threshold = Translator.threshold;
@@ -66,6 +70,11 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 			double min_sel = 1;
 			double SF = 1;
 			Triple key = it.next();
+			// The partition of a bound class holds exactly the matching triples
+			if (IsClassPattern(key)) {
+				ListOfExtVPTriples.put(key, Tags.TABLENAME_TYPE_TRIPLE_TABLE);
+				continue;
+			}
 			String selected_extvp_table = Tags.TABLENAME_TRIPLE_TABLE;
 			for (int i = 0; i < ListOfExtVPTables.get(key).size(); i++) {
 				String Extvptable_Triple = ListOfExtVPTables.get(key).get(i);
@@ -176,6 +185,7 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 		SQLStatement first = null;
 		List<SQLStatement> rights = new ArrayList<>();
 		Map<String, List<String>> TripleConditions = new HashMap<String, List<String>>();
+		Map<String, List<String>> BucketConditions = new HashMap<String, List<String>>();
 		
 
 		for (int i = 0; i < QueryTriples.size(); i++) {
@@ -183,26 +193,46 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 			Select stmt = new Select("T" + String.valueOf(i));
 			Triple T = QueryTriples.get(i);
 			String From = RemoveTripleNumber(ListOfExtVPTriples.get(T));
-			if (!From.startsWith("extvp_")) {
+			if (From.equals(Tags.TABLENAME_TYPE_TRIPLE_TABLE)) {
+				// The bound class selects the partition by the condition on the object below
+				stmt.setFrom(Tags.TABLENAME_TYPE_TRIPLE_TABLE);
+			} else if (!From.startsWith("extvp_")) {
 				if (From.contains("http://")) {
 					int index = From.lastIndexOf("/");
 					From = From.substring(index + 1);
 					stmt.addWhereConjunction(Tags.PREDICATE_COLUMN_NAME + "='<" + From + ">'");
 				} else
 					stmt.addWhereConjunction(Tags.PREDICATE_COLUMN_NAME + "='" + From + "'");
-				stmt.setFrom(Tags.TABLENAME_TRIPLE_TABLE);
+				// Look up bound objects in the replica sorted by object to skip row groups
+				if (Translator.objectReplica && T.getObject().isLiteral() && !T.getSubject().isLiteral())
+					stmt.setFrom(Tags.TABLENAME_OBJECT_TRIPLE_TABLE);
+				else
+					stmt.setFrom(Tags.TABLENAME_TRIPLE_TABLE);
+			} else if (Translator.extvpPartitioned) {
+				stmt.setFrom(Tags.TABLENAME_EXTVP);
+				stmt.addWhereConjunction(ExtVPPartitions.get(From));
 			} else
 				stmt.setFrom(From);
-			if (T.getSubject().isLiteral())
-				stmt.addWhereConjunction(Tags.SUBJECT_COLUMN_NAME + "='"
-						+ T.getSubject().toString().substring(1, T.getSubject().toString().length() - 1) + "'");
-			else {
+			List<String> bucketConditions = new ArrayList<>();
+			if (T.getSubject().isLiteral()) {
+				String Subject = T.getSubject().toString().substring(1, T.getSubject().toString().length() - 1);
+				stmt.addWhereConjunction(Tags.SUBJECT_COLUMN_NAME + "=" + Dictionary.encode(Subject));
+				String bucket = SubjectBuckets.condition(Subject);
+				if (bucket != null)
+					stmt.addWhereConjunction(bucket);
+			} else {
 				stmt.addSelector(T.getSubject().getName(), new String[] { Tags.SUBJECT_COLUMN_NAME });
 				onConditions.add(T.getSubject().getName());
+				// Join the buckets of the subjects as well to prune the partitions
+				String bucket = SubjectBuckets.selector(T.getSubject().getName());
+				if (bucket != null) {
+					stmt.addSelector(bucket, new String[] { Tags.SUBJECT_BUCKET_COLUMN_NAME });
+					bucketConditions.add(bucket);
+				}
 			}
 			if (T.getObject().isLiteral())
-				stmt.addWhereConjunction(Tags.OBJECT_COLUMN_NAME + "='"
-						+ T.getObject().toString().substring(1, T.getObject().toString().length() - 1) + "'");
+				stmt.addWhereConjunction(Tags.OBJECT_COLUMN_NAME + "=" + Dictionary.encode(
+						T.getObject().toString().substring(1, T.getObject().toString().length() - 1)));
 			else {
 				stmt.addSelector(T.getObject().getName(), new String[] { Tags.OBJECT_COLUMN_NAME });
 				onConditions.add(T.getObject().getName());
@@ -215,11 +245,15 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 				rights.add(stmt);
 				TripleConditions.put("T" + String.valueOf(i), onConditions);
 			}
+			BucketConditions.put("T" + String.valueOf(i), bucketConditions);
 		}
+		// The buckets are no variables of the result, so the index of the variables is kept
+		List<String> onConditions = CreateonConditions(BucketConditions);
+		onConditions.addAll(CreateonConditions(TripleConditions));
 		if (!Translator.StraighJoin)
-			join = new Join("extvp", first, rights, CreateonConditions(TripleConditions), JoinType.INNEREXTVP);
+			join = new Join("extvp", first, rights, onConditions, JoinType.INNEREXTVP);
 		else
-			join = new Join("extvp", first, rights, CreateonConditions(TripleConditions), JoinType.STRAIGHEXTVP);
+			join = new Join("extvp", first, rights, onConditions, JoinType.STRAIGHEXTVP);
 		this.resultName = join.getName();
 		for (String var : invertedVarIndex.keySet())
 			this.resultSchema.put(var, new String[0]);
@@ -227,6 +261,19 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 		return join;
 	}
 
+	/**
+	 * Checks if a triple pattern looks up the subjects of a bound class, i.e.
+	 * it is of the form "?x rdf:type class", and the classes are stored in
+	 * their own partitions.
+	 * 
+	 * @param T - Triple to be checked.
+	 * @return
+	 */
+	private boolean IsClassPattern(Triple T) {
+		return Translator.typePartitions && T.getPredicate().isURI()
+				&& T.getPredicate().getURI().equals(RDF.type.getURI()) && T.getObject().isLiteral();
+	}
+
 	/**
 	 * Use defined prefixes for making predicates compatible with ExtVP table naming.
 	 * 
@@ -252,6 +299,26 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 			return Prefix + "_" + Pred;
 	}
 
+	/**
+	 * Returns the name of the ExtVP table of two triples followed by the
+	 * position of the second triple. The partition filter of the table in the
+	 * partitioned ExtVP table is remembered by the name of the table.
+	 * 
+	 * @param T1 - Triple of the table.
+	 * @param T2 - Triple joined with.
+	 * @param ExtVPFormat - ExtVP Format.
+	 * @param j - Position of the second triple in list of triples.
+	 * @return
+	 */
+	private String ExtVPTable(Triple T1, Triple T2, String ExtVPFormat, int j) {
+		String p1 = PrefixforExtVP(T1.getPredicate());
+		String p2 = PrefixforExtVP(T2.getPredicate());
+		String Extvptable = String.format("extvp_%s_%s_%s", p1, p2, ExtVPFormat);
+		ExtVPPartitions.put(Extvptable, String.format("%s='%s' AND %s='%s' AND %s='%s'",
+				Tags.EXTVP_TYPE_COLUMN_NAME, ExtVPFormat, Tags.EXTVP_P1_COLUMN_NAME, p1, Tags.EXTVP_P2_COLUMN_NAME, p2));
+		return String.format("%s T%d", Extvptable, j);
+	}
+
 	/**
 	 * Compare two triples to see if they are joined by Subject or Object.
 	 * Returns list of possible ExtVP tables to be selected in query.
@@ -272,28 +339,20 @@ public class ImpalaBgpExtVPMultiTable extends ImpalaBGP {
 
 		if (!T1.equals(T2)) {
 			if (T1.getSubject().equals(T2.getSubject())) {
-				ExtVpsT1.add(String.format("extvp_%s_%s_ss T%d", PrefixforExtVP(T1.getPredicate()),
-						PrefixforExtVP(T2.getPredicate()), j));
-				ExtVpsT2.add(String.format("extvp_%s_%s_ss T%d", PrefixforExtVP(T2.getPredicate()),
-						PrefixforExtVP(T1.getPredicate()), i));
+				ExtVpsT1.add(ExtVPTable(T1, T2, "ss", j));
+				ExtVpsT2.add(ExtVPTable(T2, T1, "ss", i));
 			}
 			if (T1.getSubject().equals(T2.getObject())) {
-				ExtVpsT1.add(String.format("extvp_%s_%s_so T%d", PrefixforExtVP(T1.getPredicate()),
-						PrefixforExtVP(T2.getPredicate()), j));
-				ExtVpsT2.add(String.format("extvp_%s_%s_os T%d", PrefixforExtVP(T2.getPredicate()),
-						PrefixforExtVP(T1.getPredicate()), i));
+				ExtVpsT1.add(ExtVPTable(T1, T2, "so", j));
+				ExtVpsT2.add(ExtVPTable(T2, T1, "os", i));
 			}
 			if (T1.getObject().equals(T2.getSubject())) {
-				ExtVpsT1.add(String.format("extvp_%s_%s_os T%d", PrefixforExtVP(T1.getPredicate()),
-						PrefixforExtVP(T2.getPredicate()), j));
-				ExtVpsT2.add(String.format("extvp_%s_%s_so T%d", PrefixforExtVP(T2.getPredicate()),
-						PrefixforExtVP(T1.getPredicate()), i));
+				ExtVpsT1.add(ExtVPTable(T1, T2, "os", j));
+				ExtVpsT2.add(ExtVPTable(T2, T1, "so", i));
 			}
 			if (T1.getObject().equals(T2.getObject())) {
-				ExtVpsT1.add(String.format("extvp_%s_%s_oo T%d", PrefixforExtVP(T1.getPredicate()),
-						PrefixforExtVP(T2.getPredicate()), j));
-				ExtVpsT2.add(String.format("extvp_%s_%s_oo T%d", PrefixforExtVP(T2.getPredicate()),
-						PrefixforExtVP(T1.getPredicate()), i));
+				ExtVpsT1.add(ExtVPTable(T1, T2, "oo", j));
+				ExtVpsT2.add(ExtVPTable(T2, T1, "oo", i));
 			}
 		}
 		if (!ListOfExtVPTables.containsKey(T1))
@@ -16,6 +16,8 @@ import com.hp.hpl.jena.shared.PrefixMapping;
 import com.hp.hpl.jena.sparql.algebra.op.OpBGP;
 import com.hp.hpl.jena.sparql.util.FmtUtils;
 
+import de.uni_freiburg.informatik.dbis.sempala.translator.Dictionary;
+import de.uni_freiburg.informatik.dbis.sempala.translator.SingleTableBitmap;
 import de.uni_freiburg.informatik.dbis.sempala.translator.Tags;
 import de.uni_freiburg.informatik.dbis.sempala.translator.sql.Join;
 import de.uni_freiburg.informatik.dbis.sempala.translator.sql.JoinType;
@@ -228,18 +230,16 @@ public class ImpalaBgpExtVPSingleTable extends ImpalaBGP {
 
 				// If the neighbour.s equals triple.s add SS relation. Implies neighbour.getSubject().isVariable().
 				if (neighbour.getSubject().equals(triple.getSubject()) )
-					stmt.addWhereConjunction(String.format("ss_%s",
-							toImpalaColumnName(FmtUtils.stringForNode(neighbour.getPredicate(), prefixes))));
+					stmt.addWhereConjunction(relation("ss", neighbour.getPredicate()));
 
 				// Analogous SO relations
 				if (neighbour.getObject().equals(triple.getSubject()) )
-					stmt.addWhereConjunction(String.format("so_%s",
-							toImpalaColumnName(FmtUtils.stringForNode(neighbour.getPredicate(), prefixes))));
+					stmt.addWhereConjunction(relation("so", neighbour.getPredicate()));
 			}
 		}
 		else
-			stmt.addWhereConjunction(String.format("%s = '%s'", Tags.SUBJECT_COLUMN_NAME,
-					FmtUtils.stringForNode(triple.getSubject(), this.prefixes)));
+			stmt.addWhereConjunction(String.format("%s = %s", Tags.SUBJECT_COLUMN_NAME,
+					Dictionary.encode(FmtUtils.stringForNode(triple.getSubject(), this.prefixes))));
 
 		/*
 		 * If the object is a variable check if there are any relations and
@@ -270,19 +270,31 @@ public class ImpalaBgpExtVPSingleTable extends ImpalaBGP {
 
 				// If the neighbour.s equals triple.o add OS relation. Implies neighbour.getSubject().isVariable().
 				if (neighbour.getSubject().equals(triple.getObject()) )
-					stmt.addWhereConjunction(String.format("os_%s",
-							toImpalaColumnName(FmtUtils.stringForNode(neighbour.getPredicate(), prefixes))));
+					stmt.addWhereConjunction(relation("os", neighbour.getPredicate()));
 			}
 		}
 		else
-			stmt.addWhereConjunction(String.format("%s = '%s'", Tags.OBJECT_COLUMN_NAME,
-					FmtUtils.stringForNode(triple.getObject(), this.prefixes)));
+			stmt.addWhereConjunction(String.format("%s = %s", Tags.OBJECT_COLUMN_NAME,
+					Dictionary.encode(FmtUtils.stringForNode(triple.getObject(), this.prefixes))));
 
 		return stmt;
 	}
 
 
 
+	/**
+	 * Builds the condition of a SS, SO or OS relation to a predicate.
+	 * @param relation The relation, i.e. "ss", "so" or "os"
+	 * @param predicate The predicate node
+	 * @return The condition
+	 */
+	private String relation(String relation, Node predicate) {
+		String p = FmtUtils.stringForNode(predicate, prefixes);
+		return SingleTableBitmap.condition(relation, p, toImpalaColumnName(p));
+	}
+
+
+
 	/**
 	 * Makes the string conform to the requirements for impala column names.
 	 * I.e. remove braces, replace non word characters, trim spaces.
@@ -22,8 +22,16 @@ import de.uni_freiburg.informatik.dbis.sempala.translator.sql.TripleGroup;
  */
 public class ImpalaBgpPropertyTable extends ImpalaBGP {
 
+	/** Indicates if the stars are selected from the characteristic set tables */
+	private final boolean characteristicSets;
+
 	public ImpalaBgpPropertyTable(OpBGP opBGP, PrefixMapping prefixes) {
+		this(opBGP, prefixes, false);
+	}
+
+	public ImpalaBgpPropertyTable(OpBGP opBGP, PrefixMapping prefixes, boolean characteristicSets) {
 		super(opBGP, prefixes);
+		this.characteristicSets = characteristicSets;
 	}
 
 	@Override
@@ -57,6 +65,7 @@ public class ImpalaBgpPropertyTable extends ImpalaBGP {
 			if (!tripleGroups.containsKey(key)) {
 				tripleGroups.put(key, new TripleGroup(this.resultName + "_"
 						+ tableNumber++, prefixes, fromTripletable));
+				tripleGroups.get(key).setCharacteristicSets(characteristicSets);
 			}
 			tripleGroups.get(key).add(triple);
 		}
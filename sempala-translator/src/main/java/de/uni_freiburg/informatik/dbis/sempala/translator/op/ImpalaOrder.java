@@ -12,6 +12,7 @@ import com.hp.hpl.jena.sparql.expr.Expr;
 
 import de.uni_freiburg.informatik.dbis.sempala.translator.ImpalaOpVisitor;
 import de.uni_freiburg.informatik.dbis.sempala.translator.Tags;
+import de.uni_freiburg.informatik.dbis.sempala.translator.Translator;
 import de.uni_freiburg.informatik.dbis.sempala.translator.sparql.ExprTranslator;
 import de.uni_freiburg.informatik.dbis.sempala.translator.sql.SQLStatement;
 
@@ -32,6 +33,10 @@ public class ImpalaOrder extends ImpalaOp1 {
 
 	@Override
 	public SQLStatement translate(String _resultName, SQLStatement child) {
+		// Ids are not in the order of the terms, and the results are decoded after the slice
+		if (Translator.dictionaryEncoding)
+			throw new UnsupportedOperationException("ORDER BY not supported on dictionary encoded data!");
+
 		resultName = subOp.getResultName();
 		String order = "";
 		resultSchema = subOp.getSchema();
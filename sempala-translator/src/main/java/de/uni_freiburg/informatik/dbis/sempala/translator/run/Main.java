@@ -145,6 +145,90 @@ public class Main {
 		if (commandLine.hasOption(OptionNames.STRAIGHJOIN.toString()))
 			translator.setStraightJoin(true);
 
+		// Compare against the ids of the dictionary
+		if (commandLine.hasOption(OptionNames.DICTIONARY_ENCODING.toString())) {
+			if (format.equals(Format.COMPLEX_PROPERTY_TABLE.toString())
+					|| format.equals(Format.COMPLEX_PROPERTY_TABLE_SPARK.toString())) {
+				logger.fatal("Dictionary encoding is not supported for the complex property table.");
+				System.exit(1);
+			}
+			translator.setDictionaryEncoding(true);
+			logger.info("Dictionary encoding is turned on");
+		}
+
+		// Test the bits of the correlation bitmaps of the single table
+		if (commandLine.hasOption(OptionNames.BITMAP.toString())) {
+			if (!format.equals(Format.SINGLETABLE.toString())) {
+				logger.fatal("Bitmaps are only supported for the singletable.");
+				System.exit(1);
+			}
+			if (impalaConnection == null) {
+				logger.fatal("Bitmaps require a connection to impala to look up the bits of the predicates.");
+				System.exit(1);
+			}
+			translator.setSingleTableBitmap(true);
+			logger.info("Bitmaps are turned on");
+		}
+
+		// Compare numbers and dates with the typed columns
+		if (commandLine.hasOption(OptionNames.TYPED_LITERALS.toString())) {
+			if (!format.equals(Format.PROPERTYTABLE.toString())) {
+				logger.fatal("Typed literals are only supported for the propertytable.");
+				System.exit(1);
+			}
+			translator.setTypedLiterals(true);
+			logger.info("Typed literals are turned on");
+		}
+
+		// Look up bound objects in the replica sorted by object
+		if (commandLine.hasOption(OptionNames.OBJECT_REPLICA.toString())) {
+			if (!format.equals(Format.EXTVP.toString())) {
+				logger.fatal("The replica sorted by object is only supported for extvp.");
+				System.exit(1);
+			}
+			translator.setObjectReplica(true);
+			logger.info("Object replica is turned on");
+		}
+
+		// Read the ExtVP tables from the partitions of one table
+		if (commandLine.hasOption(OptionNames.EXTVP_PARTITIONED.toString())) {
+			if (!format.equals(Format.EXTVP.toString())) {
+				logger.fatal("The partitioned ExtVP table is only supported for extvp.");
+				System.exit(1);
+			}
+			translator.setExtVPPartitioned(true);
+			logger.info("Partitioned ExtVP table is turned on");
+		}
+
+		// Look up bound classes in the rdf:type table partitioned by class
+		if (commandLine.hasOption(OptionNames.TYPE_PARTITIONS.toString())) {
+			if (!format.equals(Format.EXTVP.toString())) {
+				logger.fatal("The rdf:type table partitioned by class is only supported for extvp.");
+				System.exit(1);
+			}
+			translator.setTypePartitions(true);
+			logger.info("Type partitions are turned on");
+		}
+
+		// Prune the partitions of the subject buckets
+		if (commandLine.hasOption(OptionNames.SUBJECT_BUCKETS.toString())) {
+			if (!format.equals(Format.PROPERTYTABLE.toString()) && !format.equals(Format.EXTVP.toString())
+					&& !format.equals(Format.CHARACTERISTIC_SETS.toString())) {
+				logger.fatal("Subject buckets are only supported for the propertytable, extvp and characteristic sets.");
+				System.exit(1);
+			}
+			try {
+				int buckets = Integer.parseInt(commandLine.getOptionValue(OptionNames.SUBJECT_BUCKETS.toString()));
+				if (buckets < 1)
+					throw new NumberFormatException();
+				translator.setSubjectBuckets(buckets);
+			} catch (NumberFormatException e) {
+				logger.fatal("The number of subject buckets has to be a positive integer.");
+				System.exit(1);
+			}
+			logger.info("Subject buckets are turned on");
+		}
+
 		// Set Result Table Name
 		if (commandLine.hasOption(OptionNames.RESULT_TABLE_NAME.toString()))
 			translator.result_table_name = commandLine.getOptionValue(OptionNames.RESULT_TABLE_NAME.toString());
@@ -165,6 +249,13 @@ public class Main {
 		} else if (format.equals(Format.EXTVP.toString())) {
 			translator.setFormat(Format.EXTVP);
 			logger.info("Format set to ExtVP");
+		} else if (format.equals(Format.CHARACTERISTIC_SETS.toString())) {
+			if (impalaConnection == null) {
+				logger.fatal("Characteristic sets require a connection to impala to look up the tables of the predicates.");
+				System.exit(1);
+			}
+			translator.setFormat(Format.CHARACTERISTIC_SETS);
+			logger.info("Format set to characteristic sets.");
 		} else {
 			logger.fatal("Fatal: Invalid format specified.");
 			System.exit(1);
@@ -500,7 +591,7 @@ public class Main {
 	 * Impala output script file
 	 */
 	public enum OptionNames {
-		BENCHMARK, COUNT, EXPAND, DATABASE, FORMAT, HELP, HOST, INPUT, OPTIMIZE, PORT, RESULT_TABLE_NAME, THRESHOLD, STRAIGHJOIN, SPARKPARTITIONS;
+		BENCHMARK, BITMAP, COUNT, EXPAND, DATABASE, DICTIONARY_ENCODING, FORMAT, HELP, HOST, INPUT, OPTIMIZE, PORT, RESULT_TABLE_NAME, THRESHOLD, STRAIGHJOIN, SPARKPARTITIONS, SUBJECT_BUCKETS, OBJECT_REPLICA, TYPED_LITERALS, EXTVP_PARTITIONED, TYPE_PARTITIONS;
 
 		@Override
 		public String toString() {
@@ -517,6 +608,8 @@ public class Main {
 
 		Options options = new Options();
 		options.addOption("b", OptionNames.BENCHMARK.toString(), false, "Just print runtimes and delete results.");
+		options.addOption("bm", OptionNames.BITMAP.toString(), false,
+				"The singletable was loaded with bitmaps. Correlations are tested as bits of the bitmaps.");
 		options.addOption("c", OptionNames.COUNT.toString(), false, "COUNT result without storing the table.");
 		options.addOption("e", OptionNames.EXPAND.toString(), false, "Expand URI prefixes.");
 		
@@ -524,6 +617,9 @@ public class Main {
 		databaseOption.setRequired(true);
 		options.addOption(databaseOption);
 	
+		options.addOption("de", OptionNames.DICTIONARY_ENCODING.toString(), false,
+				"The data was loaded with dictionary encoding. Constants are replaced by ids and results are decoded.");
+
 		Option formatOption = new Option("f", OptionNames.FORMAT.toString(), true, "The database format the query is built for.\n"
 				+ Format.PROPERTYTABLE.toString() + ": (see 'Sempala: Interactive SPARQL Query Processing on Hadoop')\n"
 				+ Format.COMPLEX_PROPERTY_TABLE.toString()
@@ -531,7 +627,9 @@ public class Main {
 				+ Format.COMPLEX_PROPERTY_TABLE_SPARK.toString()
 				+ ": see Sempala Complex Property Table Master project paper (Spark Version) \n" + Format.SINGLETABLE.toString()
 				+ ": see ExtVP Bigtable, Master's Thesis: S2RDF, Skilevic Simon \n" + Format.EXTVP.toString()
-				+ ": see Extended Vertical Partitioning, Master's Thesis: S2RDF, Skilevic Simon\n");
+				+ ": see Extended Vertical Partitioning, Master's Thesis: S2RDF, Skilevic Simon\n"
+				+ Format.CHARACTERISTIC_SETS.toString()
+				+ ": property tables partitioned by the characteristic sets of the subjects\n");
 		formatOption.setRequired(true);
 		options.addOption(formatOption);
 		
@@ -546,20 +644,35 @@ public class Main {
 
 		options.addOption("opt", OptionNames.OPTIMIZE.toString(), false, "turn on SPARQL algebra optimization");
 
+		options.addOption("or", OptionNames.OBJECT_REPLICA.toString(), false,
+				"The data was loaded with a replica of the triple table sorted by object. Bound objects are looked up in the replica.");
+
 		options.addOption("p", OptionNames.PORT.toString(), true, "The port to connect to. (Defaults to 21050)");
 
+		options.addOption("xp", OptionNames.EXTVP_PARTITIONED.toString(), false,
+				"The data was loaded with the ExtVP tables as partitions of one table. The ExtVP tables are read by partition filters.");
+
 		options.addOption("rn", OptionNames.RESULT_TABLE_NAME.toString(), true,
 				"Result Table Name format if results tables are stored.");
 
 		options.addOption("s", OptionNames.STRAIGHJOIN.toString(), false,
 				"Executes query with Straight join. Default (Impala sets the join order of tables)");
 
+		options.addOption("tp", OptionNames.TYPE_PARTITIONS.toString(), false,
+				"The data was loaded with the rdf:type triples partitioned by class. Triple patterns of a bound class read only its partition.");
+
+		options.addOption("tl", OptionNames.TYPED_LITERALS.toString(), false,
+				"The data was loaded with typed literals. Numbers and dates are compared by their values.");
+
 		options.addOption("t", OptionNames.THRESHOLD.toString(), true,
 				"Threshold of ExtVP if ExtVP format is selected. Default (SF=1)");
 
 		options.addOption("sp", OptionNames.SPARKPARTITIONS.toString(), true,
 				"Number of partitions in Spark. See DataFrame#partitions.");
 
+		options.addOption("sb", OptionNames.SUBJECT_BUCKETS.toString(), true,
+				"The data was loaded with the given number of subject buckets. Bound subjects and subject joins prune the buckets.");
+
 		return options;
 	}
 }
@@ -75,6 +75,9 @@ public class AlgebraTransformer extends OpVisitorBase {
 		case EXTVP:
 			stack.push(new ImpalaBgpExtVPMultiTable(opBGP, prefixes));
 			break;
+		case CHARACTERISTIC_SETS:
+			stack.push(new ImpalaBgpPropertyTable(opBGP, prefixes, true));
+			break;
 		}
 	}
 
@@ -35,7 +35,10 @@ import com.hp.hpl.jena.sparql.expr.ExprVisitor;
 import com.hp.hpl.jena.sparql.expr.NodeValue;
 import com.hp.hpl.jena.sparql.util.FmtUtils;
 
+import de.uni_freiburg.informatik.dbis.sempala.translator.Dictionary;
 import de.uni_freiburg.informatik.dbis.sempala.translator.Tags;
+import de.uni_freiburg.informatik.dbis.sempala.translator.Translator;
+import de.uni_freiburg.informatik.dbis.sempala.translator.TypedLiterals;
 
 /**
  *
@@ -112,6 +115,8 @@ public class ExprTranslator implements ExprVisitor {
 			before = false;
 		} else if (func instanceof E_Str || func instanceof E_Lang){
 			operator = "";
+			if (Translator.dictionaryEncoding)
+				throw new UnsupportedOperationException("Filter expression not supported on dictionary encoded data!");
 		}
 
 		if (operator.equals(Tags.NO_SUPPORT)) {
@@ -187,8 +192,23 @@ public class ExprTranslator implements ExprVisitor {
 			operator = Tags.LANG_MATCHES;
 		}
 
+		// Compare numbers and dates by their values
+		if (Translator.typedLiterals && (operator.equals(Tags.GREATER_THAN) || operator.equals(Tags.GREATER_THAN_OR_EQUAL)
+				|| operator.equals(Tags.LESS_THAN) || operator.equals(Tags.LESS_THAN_OR_EQUAL)
+				|| operator.equals(Tags.EQUALS) || operator.equals(Tags.NOT_EQUALS))) {
+			String typed = typedComparison(func, operator, left, right);
+			if (typed != null) {
+				stack.push(typed);
+				return;
+			}
+		}
+
 		if (operator.equals(Tags.NO_SUPPORT)) {
 			throw new UnsupportedOperationException("Filter expression not supported yet!");
+		} else if (Translator.dictionaryEncoding && !(operator.equals(Tags.EQUALS) || operator.equals(Tags.NOT_EQUALS)
+				|| operator.equals(Tags.LOGICAL_AND) || operator.equals(Tags.LOGICAL_OR))) {
+			// Ids only preserve the identity of terms, not their values
+			throw new UnsupportedOperationException("Filter expression not supported on dictionary encoded data!");
 		}  else if(operator.equals(Tags.LANG_MATCHES)){
 			right = "%@" + right.split("\"")[1];
 			stack.push("(" + left + operator + "'"+ right + "'"+ ")");
@@ -197,8 +217,44 @@ public class ExprTranslator implements ExprVisitor {
 		}
 	}
 
+	/**
+	 * Translates the comparison of a variable with a numeric or date literal
+	 * into a comparison of values, see {@link TypedLiterals}.
+	 *
+	 * @return The comparison or null if it is no such comparison or the
+	 *         values of the variable are not available
+	 */
+	private String typedComparison(ExprFunction2 func, String operator, String left, String right) {
+		boolean variableLeft = func.getArg1() instanceof ExprVar && func.getArg2() instanceof NodeValue;
+		boolean variableRight = func.getArg2() instanceof ExprVar && func.getArg1() instanceof NodeValue;
+		if (!variableLeft && !variableRight)
+			return null;
+		NodeValue literal = (NodeValue) (variableLeft ? func.getArg2() : func.getArg1());
+		if (!TypedLiterals.isTyped(literal))
+			return null;
+
+		// A column of the scanned table may have a typed column
+		String[] entry = schema.get(variableLeft ? func.getArg1().getVarName() : func.getArg2().getVarName());
+		String column = null;
+		if (entry != null && entry.length == 1)
+			column = TypedLiterals.column(entry[0], literal);
+		if (column == null) {
+			// Ids can not be parsed
+			if (Translator.dictionaryEncoding)
+				return null;
+			column = TypedLiterals.parse(variableLeft ? left : right, literal);
+		}
+
+		String value = TypedLiterals.value(literal);
+		return variableLeft ? "(" + column + operator + value + ")" : "(" + value + operator + column + ")";
+	}
+
 	@Override
 	public void visit(NodeValue nv) {
+		if (Translator.dictionaryEncoding) {
+			stack.push(Dictionary.encode(FmtUtils.stringForNode(nv.asNode(), prefixes)));
+			return;
+		}
 		try {
 			stack.push(""+Integer.parseInt(FmtUtils.stringForNode(nv.asNode())));
 		} catch (NumberFormatException e) {
@@ -230,6 +286,8 @@ public class ExprTranslator implements ExprVisitor {
 	@Override
 	public void visit(ExprFunctionN func) {
 	if(func instanceof E_Regex){
+		if (Translator.dictionaryEncoding)
+			throw new UnsupportedOperationException("Filter expression not supported on dictionary encoded data!");
 		String operator = Tags.NO_SUPPORT;
 		String right = stack.pop();
 		String left = stack.pop();
@@ -9,6 +9,10 @@ import java.util.Map;
  * This class represents a single select query for Impala 
  * where complex types could be present.
  * 
+ * The nested collections of the complex columns are only joined for the
+ * variables selected from them, once per variable. Bound values of complex
+ * columns are tested by an EXISTS over the collection instead.
+ * 
  * @author Matteo Cossu
  *
  */
@@ -23,7 +27,7 @@ public class ImpalaComplexSelect extends SQLStatement {
 	HashMap<String, String[]> selection = new HashMap<String, String[]>();
 	// <selector, alias>
 	HashMap<String, String> inverted_selection = new HashMap<String, String>();
-	// properties that need to be considered in case of cross joins 
+	// bound values of the properties, complex ones are tested without joining their collection
 	public HashMap<String, ArrayList<String>> crossProperties = new HashMap<String, ArrayList<String>>();
 
 	HashMap<String, String> complexColumns = new HashMap<String, String>();
@@ -129,10 +133,11 @@ public class ImpalaComplexSelect extends SQLStatement {
 			}
 		}
 		sb.append("\nFROM ");
-		sb.append(from.replaceAll("\n", "\n  "));
-		if (!this.where.equals("")) {
+		sb.append(from.replaceAll("\n", "\n  ") + " t1");
+		String conditions = whereWithCrossProperties();
+		if (!conditions.equals("")) {
 			sb.append(" \nWHERE ");
-			sb.append(where);
+			sb.append(conditions);
 		}
 		if (!this.order.equals("")) {
 			sb.append("\nORDER BY ");
@@ -199,7 +204,8 @@ public class ImpalaComplexSelect extends SQLStatement {
 		
 		sb.append("\nFROM ");
 		sb.append(from  + " t1 ");
-		sb.append(" \n INNER JOIN ");
+		if (!complexColumns.isEmpty())
+			sb.append(" \n INNER JOIN ");
 		first = true;
 		for (String key : complexColumns.keySet()) {
 			String selector = complexColumns.get(key);
@@ -214,26 +220,11 @@ public class ImpalaComplexSelect extends SQLStatement {
 			}
 		}
 
-		// add also additional cross joins on the same predicate if are needed
-		for (String key : crossProperties.keySet()) {
-			ArrayList<String> selectors = crossProperties.get(key);
-			for(int i = 0; i < selectors.size(); i++){
-				sb.append(", ");
-				sb.append(" t1." + key + " subT_" + key + String.valueOf(i));
-				
-				// and add it also to the where condition
-				this.where += "\nAND subT_" + key + String.valueOf(i) + ".ITEM = '" + selectors.get(i) +"'";
-			}
-		}
-		
-		if (!this.where.equals("")) {
-			// if the where is empty now, do not use it
-			if(where.trim().length() > 0){
-				sb.append(" \nWHERE ");
-				sb.append(where);
-				
-			}
-				
+		String conditions = whereWithCrossProperties();
+		// if the where is empty now, do not use it
+		if (conditions.trim().length() > 0) {
+			sb.append(" \nWHERE ");
+			sb.append(conditions);
 		}
 		if (!this.order.equals("")) {
 			sb.append("\nORDER BY ");
@@ -252,6 +243,27 @@ public class ImpalaComplexSelect extends SQLStatement {
 
 	}
 
+	/**
+	 * Returns the where clause extended by the bound values of the
+	 * properties. A bound value of a complex property is tested by a
+	 * correlated EXISTS over its collection, so the rows of the table are not
+	 * multiplied by the values of the collection.
+	 */
+	private String whereWithCrossProperties() {
+		StringBuilder sb = new StringBuilder(where);
+		for (String key : crossProperties.keySet()) {
+			for (String value : crossProperties.get(key)) {
+				if (sb.length() > 0)
+					sb.append("\n  AND ");
+				if (Boolean.TRUE.equals(is_complex_column.get(key)))
+					sb.append("EXISTS (SELECT 1 FROM t1." + key + " v WHERE v.ITEM = '" + value + "')");
+				else
+					sb.append("t1." + key + " = '" + value + "'");
+			}
+		}
+		return sb.toString();
+	}
+
 	@Override
 	public String toString() {
 
@@ -138,11 +138,12 @@ public class ImpalaComplexTripleGroup {
 		// give the information about the complex columns to the select
 		select.setComplexColumns(new HashMap<String,Boolean>(ComplexPropertyTableColumns.getColumns()));
 		
-		// if one of the properties is a complex one, set the select accordingly
+		// if a variable is bound to the values of a complex property, set the
+		// select accordingly. Bound values are tested without the collection.
 		for (int i = 0; i < triples.size(); i++) {
 			String predicateString = getPropertyFromURI(FmtUtils
 					.stringForNode(triples.get(i).getPredicate(), prefixMapping), false);
-			if(select.is_complex_column.get(predicateString)){
+			if(triples.get(i).getObject().isVariable() && select.is_complex_column.get(predicateString)){
 					select.setComplexVariables();
 					break;
 			}
@@ -234,8 +235,11 @@ public class ImpalaComplexTripleGroup {
 				String predicateString = getPropertyFromURI(FmtUtils
 						.stringForNode(predicate, this.prefixMapping), false);
 				
-				whereConditions.add(SpecialCharFilter.filter(predicateString)
-						+ " IS NOT NULL");
+				// a complex property is tested by its value or by the join
+				// with its collection, an own condition would join it again
+				if (selectFromTripleStore || !isComplex(select, predicateString))
+					whereConditions.add(SpecialCharFilter.filter(predicateString)
+							+ " IS NOT NULL");
 
 			} else {
 				String predicateString = predicate.getName();
@@ -263,6 +267,14 @@ public class ImpalaComplexTripleGroup {
 					String predicateString = getPropertyFromURI((FmtUtils
 							.stringForNode(predicate, this.prefixMapping)), false);
 					
+					// the value of a complex property is looked up in its collection
+					if (isComplex(select, predicateString)) {
+						if (select.crossProperties.containsKey(predicateString))
+							select.crossProperties.get(predicateString).add(string);
+						else
+							select.crossProperties.put(predicateString, new ArrayList<String>(Arrays.asList(string)));
+						continue;
+					}
 					condition = predicateString	+ " = '" + string + "'";
 				}
 				whereConditions.add(condition);
@@ -296,6 +308,10 @@ public class ImpalaComplexTripleGroup {
 		return select;
 	}
 
+	private boolean isComplex(ImpalaComplexSelect select, String property) {
+		return Boolean.TRUE.equals(select.is_complex_column.get(property));
+	}
+
 	public int getSharedVars(ImpalaComplexTripleGroup other) {
 		return JoinUtil.getSharedVars(this.mapping, other.getMappings()).size();
 	}
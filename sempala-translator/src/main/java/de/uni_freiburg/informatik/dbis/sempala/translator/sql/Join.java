@@ -5,6 +5,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
+import de.uni_freiburg.informatik.dbis.sempala.translator.SubjectBuckets;
+
 public class Join extends SQLStatement {
 
 	private SQLStatement left;
@@ -21,7 +23,7 @@ public class Join extends SQLStatement {
 		this.type = type;
 		this.onStrings = onStrings;
 
-		// add selectors only once
+		// add selectors only once, the buckets of the subjects are only used to join
 		HashSet<String> added = new HashSet<String>();
 		this.wrapper = new Select(tablename);
 		for (String key: left.getSelectors().keySet()) {
@@ -32,7 +34,7 @@ public class Join extends SQLStatement {
 			} else{
 				name = selector[0];
 			}
-			if (!added.contains(key)) {
+			if (!added.contains(key) && !SubjectBuckets.isSelector(key)) {
 				added.add(key);
 				wrapper.addSelector(key, new String[] { left.getName() ,key });
 			}
@@ -46,7 +48,7 @@ public class Join extends SQLStatement {
 				} else{
 					name = selector[0];
 				}
-				if (!added.contains(key)) {
+				if (!added.contains(key) && !SubjectBuckets.isSelector(key)) {
 					added.add(key);
 					wrapper.addSelector(key, new String[] { right.getName(), key });
 				}
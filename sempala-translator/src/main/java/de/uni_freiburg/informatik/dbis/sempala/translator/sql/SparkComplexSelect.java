@@ -2,6 +2,7 @@ package de.uni_freiburg.informatik.dbis.sempala.translator.sql;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import de.uni_freiburg.informatik.dbis.sempala.translator.ComplexPropertyTableColumns;
@@ -16,6 +17,9 @@ import de.uni_freiburg.informatik.dbis.sempala.translator.ComplexPropertyTableCo
  * EXPLODE" statement 2) if a complex column is a part of a selection it is
  * flatten with "LATERAL VIEW EXPLODE" statement
  * 
+ * Bound objects of complex properties are tested with "array_contains", so
+ * they never flatten a column. Every variable flattens its column once.
+ * 
  * @author Polina Koleva
  *
  */
@@ -34,13 +38,16 @@ public class SparkComplexSelect extends SQLStatement {
 	// <alias, selectors>
 	HashMap<String, String[]> selection = new HashMap<String, String[]>();
 
-	// <complex_propery, view name>
-	private HashMap<String, String> viewProperties = new HashMap<String, String>();
+	// <view name, complex property>
+	private LinkedHashMap<String, String> viewProperties = new LinkedHashMap<String, String>();
+
+	// <alias, view name> of the variables of complex properties
+	private HashMap<String, String> variableViews = new HashMap<String, String>();
 
 	// <column name, is the column complex>
 	HashMap<String, Boolean> is_complex_column = new HashMap<String, Boolean>();
 
-	// properties that need to be considered in case of cross joins
+	// bound values of properties requested more than once, tested without flattening
 	public HashMap<String, ArrayList<String>> crossProperties = new HashMap<String, ArrayList<String>>();
 
 	// if there is a complex column which is part of a join or is part of the
@@ -58,9 +65,14 @@ public class SparkComplexSelect extends SQLStatement {
 			if (hasComplexColumn == false) {
 				hasComplexColumn = true;
 			}
-			int viewPropSize = viewProperties.size();
-			String viewName = "lve_" + (viewPropSize + 1);
-			viewProperties.put(selector[0], viewName);
+			// a variable selected again keeps the view of its column
+			String viewName = variableViews.get(alias);
+			if (viewName == null || !selector[0].equals(viewProperties.get(viewName))) {
+				int viewPropSize = viewProperties.size();
+				viewName = "lve_" + (viewPropSize + 1);
+				viewProperties.put(viewName, selector[0]);
+				variableViews.put(alias, viewName);
+			}
 			selection.put(alias, new String[] { viewName + "_" + selector[0] });
 		} else {
 			selection.put(alias, selector);
@@ -121,9 +133,10 @@ public class SparkComplexSelect extends SQLStatement {
 		}
 		sb.append("\nFROM ");
 		sb.append(from.replaceAll("\n", "\n  "));
-		if (!this.where.equals("")) {
+		String conditions = whereWithCrossProperties();
+		if (!conditions.equals("")) {
 			sb.append(" \nWHERE ");
-			sb.append(where);
+			sb.append(conditions);
 		}
 		if (!this.order.equals("")) {
 			sb.append("\nORDER BY ");
@@ -141,6 +154,26 @@ public class SparkComplexSelect extends SQLStatement {
 		return sb.toString();
 	}
 
+	/**
+	 * Returns the where clause extended by the bound values of the properties
+	 * requested more than once. Complex properties are tested with
+	 * "array_contains", so they do not need to be flattened.
+	 */
+	private String whereWithCrossProperties() {
+		StringBuilder sb = new StringBuilder(where);
+		for (String predicate : crossProperties.keySet()) {
+			for (String value : crossProperties.get(predicate)) {
+				if (sb.length() > 0)
+					sb.append("\n  AND ");
+				if (Boolean.TRUE.equals(is_complex_column.get(predicate)))
+					sb.append("array_contains(" + predicate + ", '" + value + "')");
+				else
+					sb.append(predicate + " = '" + value + "'");
+			}
+		}
+		return sb.toString();
+	}
+
 	// needed if some of the variables part of the join are complex
 	public String complexSelect() {
 		StringBuilder sb = new StringBuilder("");
@@ -170,25 +203,16 @@ public class SparkComplexSelect extends SQLStatement {
 		sb.append(from.replaceAll("\n", "\n  "));
 		// add Lateral views
 		for (Map.Entry<String, String> entry : viewProperties.entrySet()) {
-			String complexPropertyName = entry.getKey();
-			String viewName = entry.getValue();
+			String complexPropertyName = entry.getValue();
+			String viewName = entry.getKey();
 			sb.append("\nLATERAL VIEW EXPLODE(" + from.replaceAll("\n", "\n  ") + "." + complexPropertyName + ")" + " "
 					+ viewName + " AS " + (viewName + "_" + complexPropertyName));
 		}
-		
-		// add also additional cross joins on the same predicate if are needed
-		for (String predicate : crossProperties.keySet()) {
-			ArrayList<String> selectors = crossProperties.get(predicate);
-			for (int i = 0; i < selectors.size(); i++) {
-				String condition = "array_contains(" + predicate + ", '" + selectors.get(i) + "')";
-				// and add it also to the where condition
-				this.where += "\nAND " + condition;
-			}
-		}
 
-		if (!this.where.equals("")) {
+		String conditions = whereWithCrossProperties();
+		if (!conditions.equals("")) {
 			sb.append(" \nWHERE ");
-			sb.append(where);
+			sb.append(conditions);
 		}
 		if (!this.order.equals("")) {
 			sb.append("\nORDER BY ");
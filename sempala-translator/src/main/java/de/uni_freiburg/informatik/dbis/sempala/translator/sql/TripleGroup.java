@@ -10,6 +10,9 @@ import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.shared.PrefixMapping;
 import com.hp.hpl.jena.sparql.util.FmtUtils;
 
+import de.uni_freiburg.informatik.dbis.sempala.translator.CharacteristicSets;
+import de.uni_freiburg.informatik.dbis.sempala.translator.Dictionary;
+import de.uni_freiburg.informatik.dbis.sempala.translator.SubjectBuckets;
 import de.uni_freiburg.informatik.dbis.sempala.translator.Tags;
 
 /**
@@ -40,6 +43,9 @@ public class TripleGroup {
 	// choose triplestore as predicate unbound
 	private boolean selectFromTripleStore = false;
 
+	// choose the characteristic set tables instead of the property table
+	private boolean characteristicSets = false;
+
 	PrefixMapping prefixMapping;
 
 	private Map<String, String[]> mapping = new HashMap<String, String[]>();
@@ -105,9 +111,13 @@ public class TripleGroup {
 				// only check subject once per group
 				if (subject.isURI() || subject.isBlank()) {
 					// subject is bound -> add to Filter
-					whereConditions.add(Tags.SUBJECT_COLUMN_NAME + " = '"
-							+ FmtUtils.stringForNode(subject,
-									this.prefixMapping) + "'");
+					whereConditions.add(Tags.SUBJECT_COLUMN_NAME + " = "
+							+ Dictionary.encode(FmtUtils.stringForNode(subject,
+									this.prefixMapping)));
+					String bucket = SubjectBuckets.condition(FmtUtils.stringForNode(subject,
+							this.prefixMapping));
+					if (bucket != null)
+						whereConditions.add(bucket);
 				} else {
 					vars.add(subject.getName());
 					whereConditions.add(Tags.SUBJECT_COLUMN_NAME
@@ -138,12 +148,12 @@ public class TripleGroup {
 				}
 				String condition = "";
 				if (selectFromTripleStore) {
-					condition = Tags.OBJECT_COLUMN_NAME + " = '"
-							+ string + "'";
+					condition = Tags.OBJECT_COLUMN_NAME + " = "
+							+ Dictionary.encode(string);
 				} else {
 					condition = SpecialCharFilter.filter(FmtUtils
 							.stringForNode(predicate, this.prefixMapping))
-							+ " = '" + string + "'";
+							+ " = " + Dictionary.encode(string);
 				}
 				whereConditions.add(condition);
 			} else {
@@ -163,6 +173,11 @@ public class TripleGroup {
 		// FROM
 		if (selectFromTripleStore) {
 			select.setFrom(Tags.IMPALA_TABLENAME_TRIPLESTORE);
+		} else if (characteristicSets) {
+			ArrayList<String> predicates = new ArrayList<String>();
+			for (Triple triple : triples)
+				predicates.add(FmtUtils.stringForNode(triple.getPredicate(), this.prefixMapping));
+			select.setFrom(CharacteristicSets.from(predicates));
 		} else {
 			select.setFrom(Tags.IMPALA_PROPERTYTABLE_TABLENAME);
 		}
@@ -181,6 +196,7 @@ public class TripleGroup {
 			for (Triple triple : crossjoin) {
 				TripleGroup group = new TripleGroup(this.name + "_"
 						+ subQueries++, this.prefixMapping, false);
+				group.setCharacteristicSets(characteristicSets);
 				// group.setMapping(mapping);
 				group.add(triple);
 				rights.add(group.translate());
@@ -260,4 +276,8 @@ public class TripleGroup {
 	public void setMapping(Map<String, String[]> mapping) {
 		this.mapping = mapping;
 	}
+
+	public void setCharacteristicSets(boolean characteristicSets) {
+		this.characteristicSets = characteristicSets;
+	}
 }